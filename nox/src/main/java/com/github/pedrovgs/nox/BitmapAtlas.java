@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import java.util.Arrays;
+
+/**
+ * Packs the bitmaps loaded for the NoxItem instances, all of them with the same size, into square
+ * slots of a few big bitmaps called pages. NoxItem bitmaps are copied into a free slot once
+ * loaded, so NoxView draws every NoxItem from the same page bitmaps instead of using one bitmap per
+ * NoxItem. Consecutive draws using the same bitmap are batched by the hardware accelerated
+ * renderer.
+ *
+ * The number of slots is bounded. Once every slot is used, the slot of the least recently drawn
+ * NoxItem is recycled. Pages are created the first time one of their slots is used and no object
+ * is allocated to look for, draw or recycle a slot. The atlas created for a device uses up to a
+ * fraction of the application memory class, so the memory used by the pages replaces the memory
+ * used by the NoxItem bitmaps instead of growing with the number of NoxItem instances loaded.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class BitmapAtlas {
+
+  static final int MEMORY_CLASS_DIVIDER = 8;
+  static final int MIN_NUMBER_OF_PAGES = 2;
+  private static final int MAX_PAGE_SIZE = 1024;
+  private static final int BYTES_PER_PIXEL = 4;
+  private static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+  private static final int NO_SLOT = -1;
+
+  private final int slotSize;
+  private final int capacity;
+  private final int slotsPerRow;
+  private final int slotsPerPage;
+  private final Bitmap[] pages;
+  private final Canvas pageCanvas = new Canvas();
+  private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Rect slotBounds = new Rect();
+
+  private final int[] slotPositions;
+  private final int[] previousSlots;
+  private final int[] nextSlots;
+  private int[] positionSlots = new int[0];
+  private int numberOfUsedSlots;
+  private int leastRecentlyUsedSlot = NO_SLOT;
+  private int mostRecentlyUsedSlot = NO_SLOT;
+
+  BitmapAtlas(int slotSize, int capacity) {
+    this.slotSize = Math.max(1, slotSize);
+    this.capacity = capacity;
+    this.slotsPerRow = getSlotsPerRow(this.slotSize);
+    this.slotsPerPage = slotsPerRow * slotsPerRow;
+    this.pages = new Bitmap[(capacity + slotsPerPage - 1) / slotsPerPage];
+    this.slotPositions = new int[capacity];
+    this.previousSlots = new int[capacity];
+    this.nextSlots = new int[capacity];
+    Arrays.fill(slotPositions, NO_SLOT);
+    Arrays.fill(previousSlots, NO_SLOT);
+    Arrays.fill(nextSlots, NO_SLOT);
+  }
+
+  /**
+   * Creates a BitmapAtlas with slots of the size passed as argument whose pages use up to a
+   * fraction of the memory class of the application.
+   */
+  static BitmapAtlas create(Context context, int slotSize) {
+    ActivityManager activityManager =
+        (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    int maxBytes = activityManager.getMemoryClass() * BYTES_PER_MEGABYTE / MEMORY_CLASS_DIVIDER;
+    return new BitmapAtlas(slotSize, getCapacity(slotSize, maxBytes));
+  }
+
+  /**
+   * Returns the number of slots of the size passed as argument contained in the pages which fit
+   * into the number of bytes passed as argument. At least MIN_NUMBER_OF_PAGES pages are used, so
+   * the NoxItem instances inside the view always fit into the atlas.
+   */
+  static int getCapacity(int slotSize, int maxBytes) {
+    int size = Math.max(1, slotSize);
+    int slotsPerRow = getSlotsPerRow(size);
+    int pageSize = slotsPerRow * size;
+    long bytesPerPage = (long) pageSize * pageSize * BYTES_PER_PIXEL;
+    int numberOfPages = (int) Math.max(MIN_NUMBER_OF_PAGES, maxBytes / bytesPerPage);
+    return numberOfPages * slotsPerRow * slotsPerRow;
+  }
+
+  /**
+   * Copies the bitmap passed as argument into the slot associated to the NoxItem position passed
+   * as argument. If the NoxItem has no slot, a free one is used or the least recently used slot
+   * is recycled if every slot is being used.
+   */
+  void put(int position, Bitmap bitmap) {
+    int slot = getSlot(position);
+    if (slot == NO_SLOT) {
+      slot = obtainSlot();
+      ensurePositionCapacity(position);
+      positionSlots[position] = slot;
+      slotPositions[slot] = position;
+    }
+    markAsMostRecentlyUsed(slot);
+    copyIntoSlot(slot, bitmap);
+  }
+
+  /**
+   * Returns true if the bitmap associated to the NoxItem position passed as argument is stored in
+   * the atlas.
+   */
+  boolean contains(int position) {
+    return getSlot(position) != NO_SLOT;
+  }
+
+  /**
+   * Returns the page containing the bitmap associated to the NoxItem position passed as argument
+   * and writes the bounds of its slot into the Rect passed as argument. The slot is marked as the
+   * most recently used one. This method has to be invoked just for positions stored in the atlas.
+   */
+  Bitmap getPage(int position, Rect bounds) {
+    int slot = getSlot(position);
+    markAsMostRecentlyUsed(slot);
+    getSlotBounds(slot, bounds);
+    return pages[slot / slotsPerPage];
+  }
+
+  /**
+   * Frees the slots associated to NoxItem positions equal or greater than the number of NoxItem
+   * instances passed as argument. Used when the number of NoxItem instances has changed.
+   */
+  void resize(int numberOfNoxItems) {
+    for (int position = numberOfNoxItems; position < positionSlots.length; position++) {
+      int slot = positionSlots[position];
+      if (slot != NO_SLOT) {
+        positionSlots[position] = NO_SLOT;
+        slotPositions[slot] = NO_SLOT;
+        markAsLeastRecentlyUsed(slot);
+      }
+    }
+  }
+
+  /**
+   * Recycles every page. The atlas can't be used once released.
+   */
+  void release() {
+    for (int i = 0; i < pages.length; i++) {
+      if (pages[i] != null) {
+        pages[i].recycle();
+        pages[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of slots used at any time.
+   */
+  int getNumberOfUsedSlots() {
+    return numberOfUsedSlots;
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of pages created.
+   */
+  int getNumberOfPages() {
+    int numberOfPages = 0;
+    for (Bitmap page : pages) {
+      if (page != null) {
+        numberOfPages++;
+      }
+    }
+    return numberOfPages;
+  }
+
+  private static int getSlotsPerRow(int slotSize) {
+    return Math.max(1, MAX_PAGE_SIZE / slotSize);
+  }
+
+  private int getSlot(int position) {
+    return position < positionSlots.length ? positionSlots[position] : NO_SLOT;
+  }
+
+  /**
+   * Returns a slot never used before or the least recently used slot if every slot has been used
+   * once. Slots freed because of a resize are linked at the least recently used end, so they are
+   * recycled first.
+   */
+  private int obtainSlot() {
+    if (numberOfUsedSlots < capacity) {
+      return numberOfUsedSlots++;
+    }
+    int slot = leastRecentlyUsedSlot;
+    int position = slotPositions[slot];
+    if (position != NO_SLOT) {
+      positionSlots[position] = NO_SLOT;
+    }
+    return slot;
+  }
+
+  private void copyIntoSlot(int slot, Bitmap bitmap) {
+    int page = slot / slotsPerPage;
+    if (pages[page] == null) {
+      int pageSize = slotsPerRow * slotSize;
+      pages[page] = Bitmap.createBitmap(pageSize, pageSize, Bitmap.Config.ARGB_8888);
+    }
+    getSlotBounds(slot, slotBounds);
+    pageCanvas.setBitmap(pages[page]);
+    pageCanvas.save();
+    pageCanvas.clipRect(slotBounds);
+    pageCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+    pageCanvas.drawBitmap(bitmap, null, slotBounds, paint);
+    pageCanvas.restore();
+  }
+
+  private void getSlotBounds(int slot, Rect bounds) {
+    int slotInPage = slot % slotsPerPage;
+    int left = (slotInPage % slotsPerRow) * slotSize;
+    int top = (slotInPage / slotsPerRow) * slotSize;
+    bounds.set(left, top, left + slotSize, top + slotSize);
+  }
+
+  /**
+   * Moves the slot passed as argument to the most recently used end of the list of slots sorted
+   * by last usage.
+   */
+  private void markAsMostRecentlyUsed(int slot) {
+    if (slot == mostRecentlyUsedSlot) {
+      return;
+    }
+    unlink(slot);
+    previousSlots[slot] = mostRecentlyUsedSlot;
+    nextSlots[slot] = NO_SLOT;
+    if (mostRecentlyUsedSlot != NO_SLOT) {
+      nextSlots[mostRecentlyUsedSlot] = slot;
+    }
+    mostRecentlyUsedSlot = slot;
+    if (leastRecentlyUsedSlot == NO_SLOT) {
+      leastRecentlyUsedSlot = slot;
+    }
+  }
+
+  /**
+   * Moves the slot passed as argument to the least recently used end of the list of slots sorted
+   * by last usage, so it is the next slot recycled.
+   */
+  private void markAsLeastRecentlyUsed(int slot) {
+    if (slot == leastRecentlyUsedSlot) {
+      return;
+    }
+    unlink(slot);
+    nextSlots[slot] = leastRecentlyUsedSlot;
+    previousSlots[slot] = NO_SLOT;
+    if (leastRecentlyUsedSlot != NO_SLOT) {
+      previousSlots[leastRecentlyUsedSlot] = slot;
+    }
+    leastRecentlyUsedSlot = slot;
+    if (mostRecentlyUsedSlot == NO_SLOT) {
+      mostRecentlyUsedSlot = slot;
+    }
+  }
+
+  /**
+   * Removes the slot passed as argument from the list of slots sorted by last usage if it was
+   * linked.
+   */
+  private void unlink(int slot) {
+    boolean isLinked = slot == leastRecentlyUsedSlot || previousSlots[slot] != NO_SLOT;
+    if (!isLinked) {
+      return;
+    }
+    int previous = previousSlots[slot];
+    int next = nextSlots[slot];
+    if (previous != NO_SLOT) {
+      nextSlots[previous] = next;
+    } else {
+      leastRecentlyUsedSlot = next;
+    }
+    if (next != NO_SLOT) {
+      previousSlots[next] = previous;
+    } else {
+      mostRecentlyUsedSlot = previous;
+    }
+    previousSlots[slot] = NO_SLOT;
+    nextSlots[slot] = NO_SLOT;
+  }
+
+  private void ensurePositionCapacity(int position) {
+    if (position >= positionSlots.length) {
+      int oldLength = positionSlots.length;
+      positionSlots = Arrays.copyOf(positionSlots, Math.max(position + 1, oldLength * 2));
+      Arrays.fill(positionSlots, oldLength, positionSlots.length, NO_SLOT);
+    }
+  }
+}
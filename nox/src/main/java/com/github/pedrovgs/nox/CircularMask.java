@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.support.v4.util.LruCache;
+
+/**
+ * Draws bitmaps masked with a circle, so NoxItem images can be shown as circles without
+ * transforming them while loaded. The plain image is kept in memory and the mask is applied while
+ * drawing using a BitmapShader, so square and circular NoxItem instances can share the same
+ * bitmap.
+ *
+ * One BitmapShader is created the first time a bitmap is drawn and reused while the bitmap is one
+ * of the last ones drawn. The shader is never modified, the canvas is transformed instead to map
+ * the bitmap area drawn to the destination bounds, so no object is allocated to draw a bitmap
+ * recently drawn. Every BitmapShader keeps a strong reference to its bitmap, so the number of
+ * shaders kept is bounded to a few viewports of NoxItem instances and the bitmaps not drawn
+ * recently can be released by the image loader cache.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class CircularMask {
+
+  static final int DEFAULT_MAX_NUMBER_OF_SHADERS = 128;
+
+  private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+  private final LruCache<Bitmap, BitmapShader> shaders;
+
+  CircularMask() {
+    this(DEFAULT_MAX_NUMBER_OF_SHADERS);
+  }
+
+  CircularMask(int maxNumberOfShaders) {
+    this.shaders = new LruCache<Bitmap, BitmapShader>(maxNumberOfShaders);
+  }
+
+  /**
+   * Draws the whole bitmap passed as argument masked with the circle inscribed in the destination
+   * bounds.
+   */
+  void draw(Canvas canvas, Bitmap bitmap, RectF dst) {
+    draw(canvas, bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), dst);
+  }
+
+  /**
+   * Draws the area of the bitmap passed as argument delimited by the source bounds, like a
+   * BitmapAtlas slot, masked with the circle inscribed in the destination bounds.
+   */
+  void draw(Canvas canvas, Bitmap bitmap, Rect src, RectF dst) {
+    draw(canvas, bitmap, src.left, src.top, src.right, src.bottom, dst);
+  }
+
+  /**
+   * Removes every BitmapShader created.
+   */
+  void release() {
+    shaders.evictAll();
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of BitmapShader instances kept.
+   */
+  int getNumberOfShaders() {
+    return shaders.size();
+  }
+
+  private void draw(Canvas canvas, Bitmap bitmap, int srcLeft, int srcTop, int srcRight,
+      int srcBottom, RectF dst) {
+    int srcWidth = srcRight - srcLeft;
+    int srcHeight = srcBottom - srcTop;
+    if (srcWidth <= 0 || srcHeight <= 0) {
+      return;
+    }
+    paint.setShader(getShader(bitmap));
+    canvas.save();
+    canvas.translate(dst.left, dst.top);
+    canvas.scale(dst.width() / srcWidth, dst.height() / srcHeight);
+    canvas.translate(-srcLeft, -srcTop);
+    float radius = Math.min(srcWidth, srcHeight) / 2f;
+    canvas.drawCircle(srcLeft + srcWidth / 2f, srcTop + srcHeight / 2f, radius, paint);
+    canvas.restore();
+    paint.setShader(null);
+  }
+
+  private BitmapShader getShader(Bitmap bitmap) {
+    BitmapShader shader = shaders.get(bitmap);
+    if (shader == null) {
+      shader = new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+      shaders.put(bitmap, shader);
+    }
+    return shader;
+  }
+}
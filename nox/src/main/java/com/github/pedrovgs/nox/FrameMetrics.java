@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+/**
+ * Statistics collected by NoxView while drawing a frame. Used to know how much work NoxView has
+ * done in a frame: the time spent drawing, how many NoxItem instances have been checked against
+ * the view window, how many of them have been discarded and how every NoxItem drawn has been
+ * rendered. NoxItem instances rendered into the tiles of the tile cache during the frame are
+ * counted as drawn too.
+ *
+ * NoxView reuses the same instance for every frame, so no object is allocated to collect them.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class FrameMetrics {
+
+  private long drawTimeNanos;
+  private int numberOfNoxItemsTested;
+  private int numberOfNoxItemsCulled;
+  private int numberOfBitmapsDrawn;
+  private int numberOfDrawablesDrawn;
+  private int numberOfPlaceholdersDrawn;
+  private int numberOfLoadRequests;
+
+  FrameMetrics() {
+  }
+
+  /**
+   * Returns the time spent in the NoxView onDraw method in nanoseconds.
+   */
+  public long getDrawTimeNanos() {
+    return drawTimeNanos;
+  }
+
+  /**
+   * Returns the number of NoxItem instances checked against the view window, the ones inside it or
+   * closer than one NoxItem to it.
+   */
+  public int getNumberOfNoxItemsTested() {
+    return numberOfNoxItemsTested;
+  }
+
+  /**
+   * Returns the number of NoxItem instances checked against the view window and discarded because
+   * they were outside it.
+   */
+  public int getNumberOfNoxItemsCulled() {
+    return numberOfNoxItemsCulled;
+  }
+
+  /**
+   * Returns the number of NoxItem instances drawn using any kind of resource.
+   */
+  public int getNumberOfNoxItemsDrawn() {
+    return numberOfBitmapsDrawn + numberOfDrawablesDrawn + numberOfPlaceholdersDrawn;
+  }
+
+  /**
+   * Returns the number of NoxItem instances drawn using the bitmap downloaded.
+   */
+  public int getNumberOfBitmapsDrawn() {
+    return numberOfBitmapsDrawn;
+  }
+
+  /**
+   * Returns the number of NoxItem instances drawn using the Drawable loaded from their resource
+   * identifier.
+   */
+  public int getNumberOfDrawablesDrawn() {
+    return numberOfDrawablesDrawn;
+  }
+
+  /**
+   * Returns the number of NoxItem instances drawn using a placeholder because their resources are
+   * not ready.
+   */
+  public int getNumberOfPlaceholdersDrawn() {
+    return numberOfPlaceholdersDrawn;
+  }
+
+  /**
+   * Returns the number of NoxItem resource downloads started.
+   */
+  public int getNumberOfLoadRequests() {
+    return numberOfLoadRequests;
+  }
+
+  @Override public String toString() {
+    return "FrameMetrics{"
+        + "drawTimeNanos=" + drawTimeNanos
+        + ", numberOfNoxItemsTested=" + numberOfNoxItemsTested
+        + ", numberOfNoxItemsCulled=" + numberOfNoxItemsCulled
+        + ", numberOfBitmapsDrawn=" + numberOfBitmapsDrawn
+        + ", numberOfDrawablesDrawn=" + numberOfDrawablesDrawn
+        + ", numberOfPlaceholdersDrawn=" + numberOfPlaceholdersDrawn
+        + ", numberOfLoadRequests=" + numberOfLoadRequests
+        + '}';
+  }
+
+  void reset() {
+    drawTimeNanos = 0;
+    numberOfNoxItemsTested = 0;
+    numberOfNoxItemsCulled = 0;
+    numberOfBitmapsDrawn = 0;
+    numberOfDrawablesDrawn = 0;
+    numberOfPlaceholdersDrawn = 0;
+    numberOfLoadRequests = 0;
+  }
+
+  void setDrawTimeNanos(long drawTimeNanos) {
+    this.drawTimeNanos = drawTimeNanos;
+  }
+
+  void addNoxItemsTested(int numberOfNoxItemsTested, int numberOfNoxItemsCulled) {
+    this.numberOfNoxItemsTested += numberOfNoxItemsTested;
+    this.numberOfNoxItemsCulled += numberOfNoxItemsCulled;
+  }
+
+  void onBitmapDrawn() {
+    numberOfBitmapsDrawn++;
+  }
+
+  void onDrawableDrawn() {
+    numberOfDrawablesDrawn++;
+  }
+
+  void onPlaceholderDrawn() {
+    numberOfPlaceholdersDrawn++;
+  }
+
+  void onLoadRequested() {
+    numberOfLoadRequests++;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+/**
+ * First in, first out queue of primitive int values stored in a circular array. Used to queue the
+ * positions of the NoxItem instances ready to be drawn without boxing them. The array grows when
+ * it is full, so values are never discarded, and it is reused once the values are removed, so
+ * adding and removing values doesn't allocate any object in steady state.
+ *
+ * This class is not thread safe and has to be used from just one thread.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class IntRingBuffer {
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private int[] values;
+  private int head;
+  private int size;
+
+  IntRingBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  IntRingBuffer(int capacity) {
+    validateCapacity(capacity);
+    this.values = new int[capacity];
+  }
+
+  /**
+   * Adds the value passed as argument at the end of the queue.
+   */
+  void add(int value) {
+    if (size == values.length) {
+      grow();
+    }
+    values[(head + size) % values.length] = value;
+    size++;
+  }
+
+  /**
+   * Removes and returns the value at the beginning of the queue. This method has to be invoked
+   * just if the queue is not empty.
+   */
+  int poll() {
+    if (size == 0) {
+      throw new IllegalStateException("You can't poll a value from an empty IntRingBuffer.");
+    }
+    int value = values[head];
+    head = (head + 1) % values.length;
+    size--;
+    return value;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes every value from the queue.
+   */
+  void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of values the queue can store before
+   * growing.
+   */
+  int getCapacity() {
+    return values.length;
+  }
+
+  /**
+   * Doubles the array capacity copying the values in order to the beginning of the new array.
+   */
+  private void grow() {
+    int[] newValues = new int[values.length * 2];
+    for (int i = 0; i < size; i++) {
+      newValues[i] = values[(head + i) % values.length];
+    }
+    values = newValues;
+    head = 0;
+  }
+
+  private void validateCapacity(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The IntRingBuffer capacity has to be greater than 0.");
+    }
+  }
+}
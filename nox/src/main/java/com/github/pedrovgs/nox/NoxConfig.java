@@ -29,6 +29,7 @@ class NoxConfig {
   private float noxItemSize;
   private float noxItemMargin;
   private Drawable placeholder;
+  private int pressedOverlayColor;
 
   /**
    * Returns the size of the NoxItem instance drawn inside NoxView.
@@ -73,4 +74,18 @@ class NoxConfig {
   Drawable getPlaceholder() {
     return placeholder;
   }
+
+  /**
+   * Returns the color drawn over the NoxItem images while the NoxItem is pressed.
+   */
+  int getPressedOverlayColor() {
+    return pressedOverlayColor;
+  }
+
+  /**
+   * Configures the color drawn over the NoxItem images while the NoxItem is pressed.
+   */
+  void setPressedOverlayColor(int pressedOverlayColor) {
+    this.pressedOverlayColor = pressedOverlayColor;
+  }
 }
@@ -21,27 +21,38 @@ import android.graphics.drawable.Drawable;
 import com.github.pedrovgs.nox.imageloader.ImageLoader;
 import java.lang.ref.WeakReference;
 import java.util.List;
-import java.util.Observable;
 
 /**
  * Processes NoxItem instances to download the images or resources associated to a list of NoxItem
- * instances asynchronously. This object notifies the observers previously added when the resource
- * or the image associated to the NoxItem is ready to be used.
+ * instances asynchronously. This object notifies the listener previously configured when the
+ * resource or the image associated to the NoxItem is ready to be used.
+ *
+ * Images can be also loaded as low resolution previews, decoded using a fraction of the NoxItem
+ * size and a cheaper Bitmap.Config. Previews are stored apart from the full size images, so a
+ * NoxItem can be drawn using its preview until its full size image is loaded.
  *
  * @author Pedro Vicente Gomez Sanchez.
  */
-class NoxItemCatalog extends Observable {
+class NoxItemCatalog {
+
+  static final int PREVIEW_SIZE_DIVIDER = 4;
+  static final Bitmap.Config PREVIEW_CONFIG = Bitmap.Config.RGB_565;
 
   private final List<NoxItem> noxItems;
   private final int noxItemSize;
   private final ImageLoader imageLoader;
 
   private WeakReference<Bitmap>[] bitmaps;
+  private WeakReference<Bitmap>[] previews;
   private Drawable[] drawables;
   private Drawable[] placeholders;
   private boolean[] loading;
+  private boolean[] loadingPreviews;
   private ImageLoader.Listener[] listeners;
-  private Drawable defaultPlaceholder;
+  private ImageLoader.Listener[] previewListeners;
+  private SharedPlaceholder defaultPlaceholder;
+  private BitmapAtlas bitmapAtlas;
+  private Listener listener = Listener.EMPTY;
 
   NoxItemCatalog(List<NoxItem> noxItems, int noxItemSize, ImageLoader imageLoader) {
     validateNoxItems(noxItems);
@@ -49,10 +60,13 @@ class NoxItemCatalog extends Observable {
     this.noxItemSize = noxItemSize;
     this.imageLoader = imageLoader;
     this.bitmaps = new WeakReference[noxItems.size()];
+    this.previews = new WeakReference[noxItems.size()];
     this.drawables = new Drawable[noxItems.size()];
     this.placeholders = new Drawable[noxItems.size()];
     this.loading = new boolean[noxItems.size()];
+    this.loadingPreviews = new boolean[noxItems.size()];
     this.listeners = new ImageLoader.Listener[noxItems.size()];
+    this.previewListeners = new ImageLoader.Listener[noxItems.size()];
   }
 
   /**
@@ -73,7 +87,53 @@ class NoxItemCatalog extends Observable {
    * Returns true if the bitmap associated to the NoxItem given a position has been loaded.
    */
   boolean isBitmapReady(int position) {
-    return bitmaps[position] != null && bitmaps[position].get() != null;
+    return isBitmapInAtlas(position)
+        || bitmaps[position] != null && bitmaps[position].get() != null;
+  }
+
+  /**
+   * Returns true if the low resolution preview associated to the NoxItem given a position has been
+   * loaded.
+   */
+  boolean isPreviewReady(int position) {
+    return previews[position] != null && previews[position].get() != null;
+  }
+
+  /**
+   * Returns the low resolution preview associated to a NoxItem instance given a position or null
+   * if the preview wasn't downloaded.
+   */
+  Bitmap getPreview(int position) {
+    return previews[position] != null ? previews[position].get() : null;
+  }
+
+  /**
+   * Returns true if the bitmap associated to the NoxItem given a position has been copied into the
+   * BitmapAtlas configured previously.
+   */
+  boolean isBitmapInAtlas(int position) {
+    return bitmapAtlas != null && bitmapAtlas.contains(position);
+  }
+
+  /**
+   * Returns the BitmapAtlas configured previously or null if the bitmaps are not copied into a
+   * BitmapAtlas.
+   */
+  BitmapAtlas getBitmapAtlas() {
+    return bitmapAtlas;
+  }
+
+  /**
+   * Configures a BitmapAtlas where the bitmaps loaded are copied. The bitmaps copied are not kept
+   * by the catalog nor stored in the ImageLoader memory cache, the atlas is the only copy kept in
+   * memory. Null disables the usage of the
+   * BitmapAtlas, in this case, the BitmapAtlas previously configured is released.
+   */
+  void setBitmapAtlas(BitmapAtlas bitmapAtlas) {
+    if (this.bitmapAtlas != null) {
+      this.bitmapAtlas.release();
+    }
+    this.bitmapAtlas = bitmapAtlas;
   }
 
   /**
@@ -108,41 +168,102 @@ class NoxItemCatalog extends Observable {
   }
 
   /**
-   * Returns the defaultPlaceholder associated to a NoxItem instance given a position or null if
-   * the resource wasn't downloaded or previously configured.
+   * Returns true if the NoxItem given a position has no placeholder loaded and the default
+   * placeholder has been configured, so it has to be drawn using the default placeholder bitmap.
+   */
+  boolean isDefaultPlaceholderUsed(int position) {
+    return placeholders[position] == null && defaultPlaceholder != null;
+  }
+
+  /**
+   * Returns the placeholder associated to a NoxItem instance given a position or null if the
+   * resource wasn't downloaded or previously configured. The default placeholder Drawable is
+   * shared by every NoxItem without its own placeholder.
    */
   Drawable getPlaceholder(int position) {
     Drawable placeholder = placeholders[position];
     if (placeholder == null && defaultPlaceholder != null) {
-      Drawable clone = defaultPlaceholder.getConstantState().newDrawable();
-      placeholders[position] = clone;
-      placeholder = clone;
+      placeholder = defaultPlaceholder.getDrawable();
     }
     return placeholder;
   }
 
+  /**
+   * Returns the default placeholder rendered into a bitmap with the NoxItem size using the pressed
+   * or the not pressed state. The same bitmap is shared by every NoxItem without its own
+   * placeholder. This method has to be invoked just if the default placeholder is configured.
+   */
+  Bitmap getDefaultPlaceholderBitmap(boolean pressed) {
+    return defaultPlaceholder.getBitmap(pressed);
+  }
+
   /**
    * Configures a defaultPlaceholder to be used if the NoxItem has no defaultPlaceholder
-   * configured.
+   * configured. The bitmaps rendered using the previous default placeholder are recycled.
    */
   void setDefaultPlaceholder(Drawable placeholder) {
-    this.defaultPlaceholder = placeholder;
+    if (defaultPlaceholder != null) {
+      defaultPlaceholder.release();
+    }
+    this.defaultPlaceholder =
+        placeholder != null ? new SharedPlaceholder(placeholder, noxItemSize) : null;
   }
 
   /**
    * Given a position associated to a NoxItem starts the NoxItem resources download. This load will
    * download the resources associated to the NoxItem only if wasn't previously downloaded or the
-   * download is not being performed.
+   * download is not being performed. Returns true if the download has been started.
    */
-  void load(int position, boolean useCircularTransformation) {
+  boolean load(int position, boolean useCircularTransformation) {
     if (isDownloading(position)) {
-      return;
+      return false;
     }
     NoxItem noxItem = noxItems.get(position);
     if ((noxItem.hasUrl() && !isBitmapReady(position))
         || noxItem.hasResourceId() && !isDrawableReady(position)) {
       loading[position] = true;
-      loadNoxItem(position, noxItem, useCircularTransformation);
+      loadNoxItem(noxItem, useCircularTransformation, noxItemSize, null, bitmapAtlas == null,
+          getImageLoaderListener(position));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Given a position associated to a NoxItem starts the download of a low resolution preview of
+   * the NoxItem image. The preview is decoded using a fraction of the NoxItem size and a cheaper
+   * Bitmap.Config. The preview is downloaded only if the NoxItem has an url and neither its image
+   * nor its preview were previously downloaded or are being downloaded. Returns true if the
+   * download has been started.
+   */
+  boolean loadPreview(int position, boolean useCircularTransformation) {
+    if (isDownloading(position) || loadingPreviews[position]) {
+      return false;
+    }
+    NoxItem noxItem = noxItems.get(position);
+    if (noxItem.hasUrl() && !isBitmapReady(position) && !isPreviewReady(position)) {
+      loadingPreviews[position] = true;
+      int previewSize = Math.max(1, noxItemSize / PREVIEW_SIZE_DIVIDER);
+      loadNoxItem(noxItem, useCircularTransformation, previewSize, PREVIEW_CONFIG, true,
+          getPreviewImageLoaderListener(position));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Cancels the NoxItem download given a position if the download is being performed. The NoxItem
+   * will be downloaded again the next time load is invoked for the same position. The download of
+   * the NoxItem preview is also cancelled.
+   */
+  void cancel(int position) {
+    if (isDownloading(position)) {
+      imageLoader.cancel(getImageLoaderListener(position));
+      loading[position] = false;
+    }
+    if (loadingPreviews[position]) {
+      imageLoader.cancel(getPreviewImageLoaderListener(position));
+      loadingPreviews[position] = false;
     }
   }
 
@@ -166,6 +287,16 @@ class NoxItemCatalog extends Observable {
   void release() {
     imageLoader.cancelPendingRequests();
     loading = new boolean[noxItems.size()];
+    loadingPreviews = new boolean[noxItems.size()];
+  }
+
+  /**
+   * Configures a Listener instance to be notified when a NoxItem is ready to be used. Use
+   * Listener.EMPTY to stop receiving notifications.
+   */
+  void setListener(Listener listener) {
+    validateListener(listener);
+    this.listener = listener;
   }
 
   /**
@@ -173,15 +304,28 @@ class NoxItemCatalog extends Observable {
    * NoxItemCatalogImageLoaderListener when a NoxItem is ready to be used.
    */
   void notifyNoxItemReady(int position) {
-    setChanged();
-    notifyObservers(position);
+    listener.onNoxItemReady(position);
   }
 
   /**
-   * Configures the bitmap associated to a NoxItem given a position.
+   * Configures the bitmap associated to a NoxItem given a position. If a BitmapAtlas has been
+   * configured, the bitmap is copied into it and the reference to the bitmap is not kept.
    */
   void setBitmap(int position, Bitmap image) {
-    bitmaps[position] = new WeakReference<Bitmap>(image);
+    if (bitmapAtlas != null) {
+      bitmapAtlas.put(position, image);
+      bitmaps[position] = null;
+    } else {
+      bitmaps[position] = new WeakReference<Bitmap>(image);
+    }
+  }
+
+  /**
+   * Configures the low resolution preview associated to a NoxItem given a position. Previews are
+   * never copied into the BitmapAtlas.
+   */
+  void setPreview(int position, Bitmap preview) {
+    previews[position] = new WeakReference<Bitmap>(preview);
   }
 
   /**
@@ -198,6 +342,13 @@ class NoxItemCatalog extends Observable {
     loading[position] = isLoading;
   }
 
+  /**
+   * Indicates the preview of a NoxItem is being loaded given a position.
+   */
+  void setLoadingPreview(int position, boolean isLoading) {
+    loadingPreviews[position] = isLoading;
+  }
+
   /**
    * Configures the default placeholder associated to a NoxItem given a position.
    */
@@ -212,35 +363,52 @@ class NoxItemCatalog extends Observable {
   public void recreate() {
     int newSize = noxItems.size();
     WeakReference<Bitmap> newBitmaps[] = new WeakReference[newSize];
+    WeakReference<Bitmap> newPreviews[] = new WeakReference[newSize];
     Drawable newDrawables[] = new Drawable[newSize];
     Drawable newPlaceholders[] = new Drawable[newSize];
     boolean newLoadings[] = new boolean[newSize];
+    boolean newLoadingPreviews[] = new boolean[newSize];
     ImageLoader.Listener newListeners[] = new ImageLoader.Listener[newSize];
+    ImageLoader.Listener newPreviewListeners[] = new ImageLoader.Listener[newSize];
     float length = Math.min(bitmaps.length, newSize);
     for (int i = 0; i < length; i++) {
       newBitmaps[i] = bitmaps[i];
+      newPreviews[i] = previews[i];
       newDrawables[i] = drawables[i];
       newPlaceholders[i] = placeholders[i];
       newLoadings[i] = loading[i];
+      newLoadingPreviews[i] = loadingPreviews[i];
       newListeners[i] = listeners[i];
+      newPreviewListeners[i] = previewListeners[i];
+    }
+    if (bitmapAtlas != null) {
+      bitmapAtlas.resize(newSize);
     }
     bitmaps = newBitmaps;
+    previews = newPreviews;
     drawables = newDrawables;
     placeholders = newPlaceholders;
     loading = newLoadings;
+    loadingPreviews = newLoadingPreviews;
     listeners = newListeners;
+    previewListeners = newPreviewListeners;
   }
 
   /**
-   * Starts the resource download given a NoxItem instance and a given position.
+   * Starts the resource download given a NoxItem instance, the size and Bitmap.Config used to
+   * decode the image, if the image has to be stored in the ImageLoader memory cache and the
+   * listener to notify.
    */
-  private void loadNoxItem(final int position, NoxItem noxItem, boolean useCircularTransformation) {
+  private void loadNoxItem(NoxItem noxItem, boolean useCircularTransformation, int size,
+      Bitmap.Config config, boolean useMemoryCache, ImageLoader.Listener listener) {
     imageLoader.load(noxItem.getUrl())
         .load(noxItem.getResourceId())
         .withPlaceholder(noxItem.getPlaceholderId())
-        .size(noxItemSize)
+        .size(size)
+        .config(config)
+        .useMemoryCache(useMemoryCache)
         .useCircularTransformation(useCircularTransformation)
-        .notify(getImageLoaderListener(position));
+        .notify(listener);
   }
 
   /**
@@ -254,6 +422,17 @@ class NoxItemCatalog extends Observable {
     return listeners[position];
   }
 
+  /**
+   * Returns the ImageLoader.Listener used to load the preview associated to a NoxItem given a
+   * position. If the ImageLoader.Listener wasn't previously created, creates a new instance.
+   */
+  private ImageLoader.Listener getPreviewImageLoaderListener(final int position) {
+    if (previewListeners[position] == null) {
+      previewListeners[position] = new NoxItemCatalogImageLoaderListener(position, this, true);
+    }
+    return previewListeners[position];
+  }
+
   /**
    * Returns true if a NoxItem is being downloaded given a NoxItem position.
    */
@@ -266,4 +445,26 @@ class NoxItemCatalog extends Observable {
       throw new NullPointerException("The list of NoxItem can't be null");
     }
   }
+
+  private void validateListener(Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException(
+          "You can't configure a null instance of Listener as NoxItemCatalog listener.");
+    }
+  }
+
+  /**
+   * Declares the method invoked when a NoxItem is ready to be used. The NoxItem position is passed
+   * as a primitive to avoid allocating any object for every notification.
+   */
+  interface Listener {
+
+    Listener EMPTY = new Listener() {
+      @Override public void onNoxItemReady(int position) {
+
+      }
+    };
+
+    void onNoxItemReady(int position);
+  }
 }
@@ -22,7 +22,8 @@ import com.github.pedrovgs.nox.imageloader.ImageLoader;
 
 /**
  * ImageLoader.Listener implementation used to notify NoxItemcCatalog when a NoxItem is ready to be
- * used.
+ * used. Listeners used to load the low resolution preview of a NoxItem store the image loaded as
+ * the NoxItem preview instead of as the NoxItem bitmap.
  *
  * @author Pedro Vicente Gomez Sanchez.
  */
@@ -30,10 +31,17 @@ class NoxItemCatalogImageLoaderListener implements ImageLoader.Listener {
 
   private final int position;
   private final NoxItemCatalog noxItemCatalog;
+  private final boolean isPreview;
 
   NoxItemCatalogImageLoaderListener(int position, NoxItemCatalog noxItemCatalog) {
+    this(position, noxItemCatalog, false);
+  }
+
+  NoxItemCatalogImageLoaderListener(int position, NoxItemCatalog noxItemCatalog,
+      boolean isPreview) {
     this.position = position;
     this.noxItemCatalog = noxItemCatalog;
+    this.isPreview = isPreview;
   }
 
   @Override public void onPlaceholderLoaded(Drawable placeholder) {
@@ -42,13 +50,22 @@ class NoxItemCatalogImageLoaderListener implements ImageLoader.Listener {
   }
 
   @Override public void onImageLoaded(Bitmap image) {
-    noxItemCatalog.setBitmap(position, image);
-    noxItemCatalog.setLoading(position, false);
+    if (isPreview) {
+      noxItemCatalog.setPreview(position, image);
+      noxItemCatalog.setLoadingPreview(position, false);
+    } else {
+      noxItemCatalog.setBitmap(position, image);
+      noxItemCatalog.setLoading(position, false);
+    }
     noxItemCatalog.notifyNoxItemReady(position);
   }
 
   @Override public void onError() {
-    noxItemCatalog.setLoading(position, false);
+    if (isPreview) {
+      noxItemCatalog.setLoadingPreview(position, false);
+    } else {
+      noxItemCatalog.setLoading(position, false);
+    }
   }
 
   @Override public void onDrawableLoaded(Drawable drawable) {
@@ -67,10 +84,10 @@ class NoxItemCatalogImageLoaderListener implements ImageLoader.Listener {
 
     NoxItemCatalogImageLoaderListener that = (NoxItemCatalogImageLoaderListener) o;
 
-    return position == that.position;
+    return position == that.position && isPreview == that.isPreview;
   }
 
   @Override public int hashCode() {
-    return position;
+    return 31 * position + (isPreview ? 1 : 0);
   }
 }
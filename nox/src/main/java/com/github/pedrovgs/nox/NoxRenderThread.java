@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thread used by NoxSurfaceView to render frames out of the UI thread. Frames are rendered only
+ * when requested and paced by the display vsync using a Choreographer created for this thread, so
+ * the UI thread keeps handling input events even if a frame is expensive. Choreographer is not
+ * available before Jelly Bean, in this case frames are rendered at most every 16 milliseconds.
+ *
+ * Every frame requested while another one is pending is merged into the pending frame.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class NoxRenderThread extends HandlerThread {
+
+  private static final String THREAD_NAME = "NoxRenderThread";
+  private static final long FRAME_INTERVAL_IN_MILLIS = 16;
+
+  private final Renderer renderer;
+  private final AtomicBoolean isFrameRequested = new AtomicBoolean();
+  private Handler handler;
+  private FrameScheduler frameScheduler;
+
+  NoxRenderThread(Renderer renderer) {
+    super(THREAD_NAME);
+    validateRenderer(renderer);
+    this.renderer = renderer;
+  }
+
+  /**
+   * Starts the thread. Frames can be requested once this method returns.
+   */
+  void startRendering() {
+    start();
+    handler = new Handler(getLooper());
+  }
+
+  /**
+   * Requests a new frame. This method has to be invoked from the UI thread and does nothing if a
+   * frame has been already requested and not rendered yet or the thread has been stopped.
+   */
+  void requestRender() {
+    if (handler != null && isFrameRequested.compareAndSet(false, true)) {
+      handler.post(scheduleFrame);
+    }
+  }
+
+  /**
+   * Stops the thread and waits until the frame being rendered, if any, has been finished. No frame
+   * is rendered once this method returns.
+   */
+  void stopRendering() {
+    handler = null;
+    quit();
+    try {
+      join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final Runnable scheduleFrame = new Runnable() {
+    @Override public void run() {
+      if (frameScheduler == null) {
+        frameScheduler = createFrameScheduler();
+      }
+      frameScheduler.scheduleFrame();
+    }
+  };
+
+  private final Runnable renderFrame = new Runnable() {
+    @Override public void run() {
+      isFrameRequested.set(false);
+      renderer.onRenderFrame();
+    }
+  };
+
+  /**
+   * Creates the FrameScheduler used to pace the frames. This method has to be invoked from this
+   * thread because Choreographer instances are associated to the thread creating them.
+   */
+  private FrameScheduler createFrameScheduler() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      return new ChoreographerFrameScheduler();
+    }
+    return new HandlerFrameScheduler();
+  }
+
+  private void validateRenderer(Renderer renderer) {
+    if (renderer == null) {
+      throw new NullPointerException("You can't pass a null Renderer to NoxRenderThread.");
+    }
+  }
+
+  /**
+   * Declares the method invoked from the render thread to render every frame requested.
+   */
+  interface Renderer {
+
+    void onRenderFrame();
+  }
+
+  private interface FrameScheduler {
+
+    void scheduleFrame();
+  }
+
+  /**
+   * FrameScheduler rendering the frames on the next vsync signal.
+   */
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private class ChoreographerFrameScheduler implements FrameScheduler, Choreographer.FrameCallback {
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+
+    @Override public void scheduleFrame() {
+      choreographer.postFrameCallback(this);
+    }
+
+    @Override public void doFrame(long frameTimeNanos) {
+      renderFrame.run();
+    }
+  }
+
+  /**
+   * FrameScheduler rendering the frames at most once every FRAME_INTERVAL_IN_MILLIS.
+   */
+  private class HandlerFrameScheduler implements FrameScheduler {
+
+    private final Handler frameHandler = new Handler(Looper.myLooper());
+    private long lastFrameTime;
+
+    @Override public void scheduleFrame() {
+      long frameTime =
+          Math.max(SystemClock.uptimeMillis(), lastFrameTime + FRAME_INTERVAL_IN_MILLIS);
+      lastFrameTime = frameTime;
+      frameHandler.postAtTime(renderFrame, frameTime);
+    }
+  }
+}
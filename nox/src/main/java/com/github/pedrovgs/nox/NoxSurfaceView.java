@@ -0,0 +1,617 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.support.v4.view.GestureDetectorCompat;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.GestureDetector.SimpleOnGestureListener;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import android.view.View;
+import com.github.pedrovgs.nox.imageloader.ImageLoader;
+import com.github.pedrovgs.nox.imageloader.ImageLoaderFactory;
+import com.github.pedrovgs.nox.shape.Shape;
+import com.github.pedrovgs.nox.shape.ShapeConfig;
+import com.github.pedrovgs.nox.shape.ShapeFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alternative to NoxView rendering the NoxItem instances into a Surface from a dedicated thread
+ * instead of drawing them from the UI thread. Frames are rendered by a NoxRenderThread paced by
+ * the display vsync, so touch events, scroll and resource loading keep being handled in the UI
+ * thread even if a frame is expensive. Use this view to show very large catalogs.
+ *
+ * NoxSurfaceView reuses the Shape, NoxItemCatalog and Scroller used by NoxView. Shape instances
+ * calculate their positions lazily and NoxItemCatalog can be recreated, so both are accessed
+ * while holding a lock. The render thread holds the lock just to copy the position and the
+ * resource of the NoxItem instances inside the view into its own arrays and draws them once the
+ * lock has been released. NoxItemCatalog instances replaced while the render thread is running
+ * could still be drawn, so they are released once the render thread has started a new frame.
+ *
+ * The tile cache, the bitmap atlas, the edge scaling and the pressed state supported by NoxView
+ * are not supported by this view.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class NoxSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+  private final Object renderLock = new Object();
+  private NoxConfig noxConfig;
+  private Shape shape;
+  private NoxItemCatalog noxItemCatalog;
+  private Scroller scroller;
+  private int defaultShapeKey;
+  private boolean useCircularTransformation;
+  private final ShapeCalculator shapeCalculator = new ShapeCalculator(this);
+  private OnNoxItemClickListener listener = OnNoxItemClickListener.EMPTY;
+  private GestureDetectorCompat gestureDetector;
+  private NoxRenderThread renderThread;
+  private volatile int offsetX;
+  private volatile int offsetY;
+  private volatile int surfaceColor = Color.WHITE;
+  private int[] noxItemsToLoad = new int[0];
+  private boolean isLoadScheduled;
+
+  private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final RectF noxItemBounds = new RectF();
+  private int[] noxItemsToDraw = new int[0];
+  private float[] noxItemsLeft = new float[0];
+  private float[] noxItemsTop = new float[0];
+  private Bitmap[] noxItemsBitmap = new Bitmap[0];
+  private Drawable[] noxItemsDrawable = new Drawable[0];
+  private int numberOfNoxItemsToDraw;
+  private final List<NoxItemCatalog> replacedNoxItemCatalogs = new ArrayList<NoxItemCatalog>();
+  private final List<NoxItemCatalog> noxItemCatalogsToRelease = new ArrayList<NoxItemCatalog>();
+
+  public NoxSurfaceView(Context context) {
+    super(context);
+    initializeNoxSurfaceViewConfig(context, null, 0);
+  }
+
+  public NoxSurfaceView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    initializeNoxSurfaceViewConfig(context, attrs, 0);
+  }
+
+  public NoxSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    initializeNoxSurfaceViewConfig(context, attrs, defStyleAttr);
+  }
+
+  /**
+   * Configures a of List<NoxItem> instances to draw this items.
+   */
+  public void showNoxItems(final List<NoxItem> noxItems) {
+    this.post(new Runnable() {
+      @Override public void run() {
+        publishNoxItems(createNoxItemCatalog(noxItems));
+      }
+    });
+  }
+
+  /**
+   * Used to notify when the data source has changed and is necessary to re draw the view.
+   */
+  public void notifyDataSetChanged() {
+    if (noxItemCatalog != null) {
+      publishNoxItems(noxItemCatalog);
+    }
+  }
+
+  /**
+   * Changes the Shape used to the one passed as argument. The Shape is calculated in the UI thread
+   * before being published to the render thread. This method will refresh the view.
+   */
+  public void setShape(Shape shape) {
+    validateShape(shape);
+    shapeCalculator.calculateSynchronously(shape);
+    synchronized (renderLock) {
+      publishShape(shape);
+    }
+  }
+
+  /**
+   * Returns the Shape used to draw the NoxItem instances.
+   */
+  public Shape getShape() {
+    return shape;
+  }
+
+  /**
+   * Configures the color used to clear the surface before rendering every frame. The surface is
+   * drawn behind the window, so the color should be opaque.
+   */
+  public void setSurfaceColor(int surfaceColor) {
+    this.surfaceColor = surfaceColor;
+    requestRender();
+  }
+
+  /**
+   * Configures a OnNoxItemClickListener instance to be notified when a NoxItem is clicked.
+   */
+  public void setOnNoxItemClickListener(OnNoxItemClickListener listener) {
+    validateListener(listener);
+    this.listener = listener;
+  }
+
+  /**
+   * Delegates touch events to the scroller instance and checks if any NoxItem has been clicked to
+   * notify the OnNoxItemClickListener configured previously.
+   */
+  @Override public boolean onTouchEvent(MotionEvent event) {
+    super.onTouchEvent(event);
+    boolean scrollCaptured = scroller != null && scroller.onTouchEvent(event);
+    boolean singleTapCaptured = getGestureDetectorCompat().onTouchEvent(event);
+    return scrollCaptured || singleTapCaptured;
+  }
+
+  /**
+   * Delegates computeScroll method to the scroller instance to implement the scroll effect. Once
+   * the fast scroll after a fling gesture finishes, the full size images of the NoxItem instances
+   * inside the view are loaded.
+   */
+  @Override public void computeScroll() {
+    super.computeScroll();
+    if (scroller != null) {
+      boolean wasScrollingFast = scroller.isScrollingFast();
+      scroller.computeScroll();
+      if (wasScrollingFast && !scroller.isScrollingFast()) {
+        scheduleLoadNoxItems();
+      }
+    }
+  }
+
+  /**
+   * Publishes the new scroll offset to the render thread and requests a new frame.
+   */
+  @Override protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+    super.onScrollChanged(l, t, oldl, oldt);
+    offsetX = -l;
+    offsetY = -t;
+    scheduleLoadNoxItems();
+    requestRender();
+  }
+
+  @Override public void surfaceCreated(SurfaceHolder holder) {
+    renderThread = new NoxRenderThread(renderer);
+    renderThread.startRendering();
+    requestRender();
+  }
+
+  @Override public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+    requestRender();
+  }
+
+  @Override public void surfaceDestroyed(SurfaceHolder holder) {
+    if (renderThread != null) {
+      renderThread.stopRendering();
+      renderThread = null;
+    }
+    synchronized (renderLock) {
+      noxItemCatalogsToRelease.addAll(replacedNoxItemCatalogs);
+      replacedNoxItemCatalogs.clear();
+    }
+    releaseNoxItemCatalogs.run();
+  }
+
+  /**
+   * Controls visibility changes to pause or resume this custom view and avoid performance
+   * problems.
+   */
+  @Override protected void onVisibilityChanged(View changedView, int visibility) {
+    super.onVisibilityChanged(changedView, visibility);
+    if (changedView != this || noxItemCatalog == null) {
+      return;
+    }
+
+    if (visibility == View.VISIBLE) {
+      noxItemCatalog.setListener(catalogListener);
+      noxItemCatalog.resume();
+    } else {
+      noxItemCatalog.pause();
+      noxItemCatalog.setListener(NoxItemCatalog.Listener.EMPTY);
+    }
+  }
+
+  /**
+   * Releases the NoxItemCatalog pending downloads once the view is detached from the window.
+   */
+  @Override protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (noxItemCatalog != null) {
+      noxItemCatalog.release();
+      noxItemCatalog.setListener(NoxItemCatalog.Listener.EMPTY);
+    }
+    removeCallbacks(loadNoxItems);
+    isLoadScheduled = false;
+    removeCallbacks(releaseNoxItemCatalogs);
+    releaseNoxItemCatalogs.run();
+  }
+
+  /**
+   * Renders the frames requested from the render thread.
+   */
+  private final NoxRenderThread.Renderer renderer = new NoxRenderThread.Renderer() {
+    @Override public void onRenderFrame() {
+      renderFrame();
+    }
+  };
+
+  /**
+   * Requests a new frame when a NoxItem is ready to be drawn. The lock is acquired once the
+   * NoxItem resource has been stored, so the render thread sees the resource in the next frame.
+   */
+  private final NoxItemCatalog.Listener catalogListener = new NoxItemCatalog.Listener() {
+    @Override public void onNoxItemReady(int position) {
+      synchronized (renderLock) {
+        requestRender();
+      }
+    }
+  };
+
+  /**
+   * Loads the resources of the NoxItem instances inside the view from the UI thread.
+   */
+  private final Runnable loadNoxItems = new Runnable() {
+    @Override public void run() {
+      isLoadScheduled = false;
+      loadNoxItemsInsideView();
+    }
+  };
+
+  /**
+   * Releases from the UI thread the replaced NoxItemCatalog instances the render thread is not
+   * drawing anymore.
+   */
+  private final Runnable releaseNoxItemCatalogs = new Runnable() {
+    @Override public void run() {
+      synchronized (renderLock) {
+        for (int i = 0; i < noxItemCatalogsToRelease.size(); i++) {
+          noxItemCatalogsToRelease.get(i).release();
+        }
+        noxItemCatalogsToRelease.clear();
+      }
+    }
+  };
+
+  private void requestRender() {
+    if (renderThread != null) {
+      renderThread.requestRender();
+    }
+  }
+
+  private void scheduleLoadNoxItems() {
+    if (!isLoadScheduled) {
+      isLoadScheduled = true;
+      post(loadNoxItems);
+    }
+  }
+
+  /**
+   * Starts the download of the NoxItem instances inside the view. Just low resolution previews
+   * are downloaded while the view is performing a fast scroll after a fling gesture.
+   */
+  private void loadNoxItemsInsideView() {
+    if (noxItemCatalog == null || shape == null) {
+      return;
+    }
+    int numberOfNoxItemsToLoad;
+    synchronized (renderLock) {
+      shape.setOffset(offsetX, offsetY);
+      numberOfNoxItemsToLoad = shape.getItemsInsideView(noxItemsToLoad);
+      if (numberOfNoxItemsToLoad > noxItemsToLoad.length) {
+        noxItemsToLoad = new int[numberOfNoxItemsToLoad];
+        numberOfNoxItemsToLoad = shape.getItemsInsideView(noxItemsToLoad);
+      }
+    }
+    boolean isScrollingFast = scroller.isScrollingFast();
+    for (int i = 0; i < numberOfNoxItemsToLoad; i++) {
+      int position = noxItemsToLoad[i];
+      if (isScrollingFast) {
+        noxItemCatalog.loadPreview(position, useCircularTransformation);
+      } else {
+        noxItemCatalog.load(position, useCircularTransformation);
+      }
+    }
+  }
+
+  /**
+   * Renders a new frame into the surface. Invoked from the render thread.
+   */
+  private void renderFrame() {
+    if (!copyNoxItemsToDraw()) {
+      return;
+    }
+    SurfaceHolder holder = getHolder();
+    Canvas canvas = holder.lockCanvas();
+    if (canvas == null) {
+      return;
+    }
+    try {
+      canvas.drawColor(surfaceColor);
+      canvas.translate(offsetX, offsetY);
+      drawNoxItems(canvas);
+    } finally {
+      holder.unlockCanvasAndPost(canvas);
+    }
+  }
+
+  /**
+   * Copies the position and the resource of every NoxItem inside the view into the arrays used by
+   * the render thread while holding the lock. Returns false if there is nothing to draw.
+   *
+   * The previous frame has already been drawn, so the NoxItemCatalog instances replaced before
+   * this invocation are not referenced by the render thread anymore and can be released.
+   */
+  private boolean copyNoxItemsToDraw() {
+    synchronized (renderLock) {
+      if (!replacedNoxItemCatalogs.isEmpty()) {
+        noxItemCatalogsToRelease.addAll(replacedNoxItemCatalogs);
+        replacedNoxItemCatalogs.clear();
+        post(releaseNoxItemCatalogs);
+      }
+      if (noxItemCatalog == null || shape == null) {
+        return false;
+      }
+      shape.setOffset(offsetX, offsetY);
+      numberOfNoxItemsToDraw = shape.getItemsInsideView(noxItemsToDraw);
+      if (numberOfNoxItemsToDraw > noxItemsToDraw.length) {
+        resizeNoxItemsToDraw(numberOfNoxItemsToDraw);
+        numberOfNoxItemsToDraw = shape.getItemsInsideView(noxItemsToDraw);
+      }
+      for (int i = 0; i < numberOfNoxItemsToDraw; i++) {
+        int position = noxItemsToDraw[i];
+        noxItemsLeft[i] = shape.getXForItemAtPosition(position);
+        noxItemsTop[i] = shape.getYForItemAtPosition(position);
+        noxItemsBitmap[i] = getNoxItemBitmap(position);
+        noxItemsDrawable[i] = noxItemsBitmap[i] == null ? getNoxItemDrawable(position) : null;
+      }
+    }
+    return true;
+  }
+
+  private Bitmap getNoxItemBitmap(int position) {
+    if (noxItemCatalog.isBitmapReady(position)) {
+      return noxItemCatalog.getBitmap(position);
+    } else if (noxItemCatalog.isPreviewReady(position)) {
+      return noxItemCatalog.getPreview(position);
+    } else if (!noxItemCatalog.isDrawableReady(position)
+        && noxItemCatalog.isDefaultPlaceholderUsed(position)) {
+      return noxItemCatalog.getDefaultPlaceholderBitmap(false);
+    }
+    return null;
+  }
+
+  private Drawable getNoxItemDrawable(int position) {
+    if (noxItemCatalog.isDrawableReady(position)) {
+      return noxItemCatalog.getDrawable(position);
+    }
+    return noxItemCatalog.getPlaceholder(position);
+  }
+
+  /**
+   * Draws the NoxItem instances copied from the render thread without holding the lock. The
+   * references to the resources drawn are cleared once drawn.
+   */
+  private void drawNoxItems(Canvas canvas) {
+    float itemSize = noxConfig.getNoxItemSize();
+    for (int i = 0; i < numberOfNoxItemsToDraw; i++) {
+      float left = noxItemsLeft[i];
+      float top = noxItemsTop[i];
+      Bitmap bitmap = noxItemsBitmap[i];
+      Drawable drawable = noxItemsDrawable[i];
+      if (bitmap != null) {
+        noxItemBounds.set(left, top, left + itemSize, top + itemSize);
+        canvas.drawBitmap(bitmap, null, noxItemBounds, paint);
+      } else if (drawable != null) {
+        drawable.setBounds((int) left, (int) top, (int) (left + itemSize),
+            (int) (top + itemSize));
+        drawable.draw(canvas);
+      }
+      noxItemsBitmap[i] = null;
+      noxItemsDrawable[i] = null;
+    }
+  }
+
+  private void resizeNoxItemsToDraw(int numberOfNoxItems) {
+    noxItemsToDraw = new int[numberOfNoxItems];
+    noxItemsLeft = new float[numberOfNoxItems];
+    noxItemsTop = new float[numberOfNoxItems];
+    noxItemsBitmap = new Bitmap[numberOfNoxItems];
+    noxItemsDrawable = new Drawable[numberOfNoxItems];
+  }
+
+  /**
+   * Creates a NoxItemCatalog instance used to load the NoxItem resources.
+   */
+  private NoxItemCatalog createNoxItemCatalog(List<NoxItem> noxItems) {
+    ImageLoader imageLoader = ImageLoaderFactory.getPicassoImageLoader(getContext());
+    NoxItemCatalog noxItemCatalog =
+        new NoxItemCatalog(noxItems, (int) noxConfig.getNoxItemSize(), imageLoader);
+    noxItemCatalog.setDefaultPlaceholder(noxConfig.getPlaceholder());
+    noxItemCatalog.setListener(catalogListener);
+    return noxItemCatalog;
+  }
+
+  /**
+   * Publishes the NoxItemCatalog passed as argument to the render thread together with a Shape
+   * with the same number of elements, so the render thread never uses a Shape and a
+   * NoxItemCatalog with a different size. Shape instances created by the library are created
+   * again and calculated before acquiring the lock, custom Shape implementations are recalculated
+   * while holding the lock. Only the layout of the first Shape created is kept in memory.
+   */
+  private void publishNoxItems(NoxItemCatalog noxItemCatalog) {
+    Shape lastShape = shape;
+    int shapeKey = lastShape == null ? defaultShapeKey : ShapeFactory.getShapeKey(lastShape);
+    int numberOfElements = noxItemCatalog.size();
+    if (shapeKey != ShapeFactory.UNKNOWN_SHAPE_KEY) {
+      ShapeConfig shapeConfig = createShapeConfig(lastShape, numberOfElements);
+      Shape newShape = ShapeFactory.getShapeByKey(shapeKey, shapeConfig);
+      if (lastShape == null) {
+        shapeCalculator.calculateSynchronously(newShape);
+      } else {
+        shapeCalculator.recalculateSynchronously(newShape);
+      }
+      synchronized (renderLock) {
+        publishNoxItemCatalog(noxItemCatalog);
+        publishShape(newShape);
+      }
+    } else {
+      synchronized (renderLock) {
+        publishNoxItemCatalog(noxItemCatalog);
+        lastShape.setNumberOfElements(numberOfElements);
+        shapeCalculator.recalculateSynchronously(lastShape);
+        publishShape(lastShape);
+      }
+    }
+  }
+
+  /**
+   * Replaces the NoxItemCatalog used or recreates it if it is the same instance. The render thread
+   * could be drawing the resources of the replaced NoxItemCatalog, so it is released once the
+   * render thread starts a new frame. This method has to be invoked while holding the lock.
+   */
+  private void publishNoxItemCatalog(NoxItemCatalog noxItemCatalog) {
+    if (this.noxItemCatalog == noxItemCatalog) {
+      noxItemCatalog.recreate();
+      return;
+    }
+    if (this.noxItemCatalog != null) {
+      this.noxItemCatalog.setListener(NoxItemCatalog.Listener.EMPTY);
+      if (renderThread != null) {
+        replacedNoxItemCatalogs.add(this.noxItemCatalog);
+      } else {
+        this.noxItemCatalog.release();
+      }
+    }
+    this.noxItemCatalog = noxItemCatalog;
+  }
+
+  private ShapeConfig createShapeConfig(Shape shape, int numberOfElements) {
+    if (shape == null) {
+      return new ShapeConfig(numberOfElements, getMeasuredWidth(), getMeasuredHeight(),
+          noxConfig.getNoxItemSize(), noxConfig.getNoxItemMargin());
+    }
+    ShapeConfig shapeConfig = shape.getShapeConfig();
+    return new ShapeConfig(numberOfElements, shapeConfig.getViewWidth(),
+        shapeConfig.getViewHeight(), shapeConfig.getItemSize(), shapeConfig.getItemMargin());
+  }
+
+  /**
+   * Publishes the Shape passed as argument to the render thread. This method has to be invoked
+   * while holding the lock.
+   */
+  private void publishShape(Shape shape) {
+    this.shape = shape;
+    this.scroller =
+        new Scroller(this, shape.getMinX(), shape.getMaxX(), shape.getMinY(), shape.getMaxY(),
+            shape.getOverSize());
+    scheduleLoadNoxItems();
+    requestRender();
+  }
+
+  private GestureDetectorCompat getGestureDetectorCompat() {
+    if (gestureDetector == null) {
+      GestureDetector.OnGestureListener gestureListener = new SimpleOnGestureListener() {
+
+        @Override public boolean onSingleTapUp(MotionEvent e) {
+          int position = getNoxItemHit(e.getX(), e.getY());
+          if (position < 0) {
+            return false;
+          }
+          listener.onNoxItemClicked(position, noxItemCatalog.getNoxItem(position));
+          return true;
+        }
+      };
+      gestureDetector = new GestureDetectorCompat(getContext(), gestureListener);
+    }
+    return gestureDetector;
+  }
+
+  /**
+   * Returns the position of the NoxItem hit or -1 if there is no any NoxItem hit.
+   */
+  private int getNoxItemHit(float x, float y) {
+    synchronized (renderLock) {
+      if (noxItemCatalog == null || shape == null) {
+        return -1;
+      }
+      shape.setOffset(offsetX, offsetY);
+      int position = shape.getNoxItemHit(x, y);
+      boolean isNoxItemAvailable = position >= 0 && position < noxItemCatalog.size();
+      return isNoxItemAvailable ? position : -1;
+    }
+  }
+
+  /**
+   * Initializes the view configuration using the same XML styleable attributes used by NoxView.
+   */
+  private void initializeNoxSurfaceViewConfig(Context context, AttributeSet attrs,
+      int defStyleAttr) {
+    getHolder().addCallback(this);
+    setWillNotDraw(false);
+    noxConfig = new NoxConfig();
+    TypedArray attributes =
+        context.getTheme().obtainStyledAttributes(attrs, R.styleable.nox, defStyleAttr, 0);
+    float noxItemSize = attributes.getDimension(R.styleable.nox_item_size,
+        getResources().getDimension(R.dimen.default_nox_item_size));
+    noxConfig.setNoxItemSize(noxItemSize);
+    float noxItemMargin = attributes.getDimension(R.styleable.nox_item_margin,
+        getResources().getDimension(R.dimen.default_nox_item_margin));
+    noxConfig.setNoxItemMargin(noxItemMargin);
+    Drawable placeholder = attributes.getDrawable(R.styleable.nox_item_placeholder);
+    if (placeholder == null) {
+      placeholder = getResources().getDrawable(R.drawable.ic_nox);
+    }
+    noxConfig.setPlaceholder(placeholder);
+    useCircularTransformation =
+        attributes.getBoolean(R.styleable.nox_use_circular_transformation, true);
+    defaultShapeKey =
+        attributes.getInteger(R.styleable.nox_shape, ShapeFactory.FIXED_CIRCULAR_SHAPE_KEY);
+    attributes.recycle();
+  }
+
+  private void validateShape(Shape shape) {
+    if (shape == null) {
+      throw new NullPointerException("You can't pass a null Shape instance as argument.");
+    }
+    if (noxItemCatalog != null && shape.getNumberOfElements() != noxItemCatalog.size()) {
+      throw new IllegalArgumentException(
+          "The number of items in the Shape instance passed as argument doesn't match with "
+              + "the current number of NoxItems.");
+    }
+  }
+
+  private void validateListener(OnNoxItemClickListener listener) {
+    if (listener == null) {
+      throw new NullPointerException(
+          "You can't configure a null instance of OnNoxItemClickListener as NoxSurfaceView "
+              + "listener.");
+    }
+  }
+}
@@ -22,9 +22,12 @@ import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.support.v4.view.GestureDetectorCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
 import android.view.GestureDetector.SimpleOnGestureListener;
@@ -35,9 +38,8 @@ import com.github.pedrovgs.nox.imageloader.ImageLoaderFactory;
 import com.github.pedrovgs.nox.shape.Shape;
 import com.github.pedrovgs.nox.shape.ShapeConfig;
 import com.github.pedrovgs.nox.shape.ShapeFactory;
+import com.github.pedrovgs.nox.shape.ShapeLayoutCache;
 import java.util.List;
-import java.util.Observable;
-import java.util.Observer;
 
 /**
  * Main library component. This custom view receives a List of Nox objects and creates a awesome
@@ -51,16 +53,48 @@ import java.util.Observer;
  */
 public class NoxView extends View {
 
+  private static final int NO_NOX_ITEM = -1;
+  private static final int[] NO_NOX_ITEMS = new int[0];
+  static final int[] PRESSED_STATE_SET =
+      { android.R.attr.state_pressed, android.R.attr.state_enabled };
+  static final int[] NOT_PRESSED_STATE_SET =
+      { -android.R.attr.state_pressed, android.R.attr.state_enabled };
+
   private NoxConfig noxConfig;
   private Shape shape;
   private Scroller scroller;
   private NoxItemCatalog noxItemCatalog;
   private Paint paint = new Paint();
+  private final Paint pressedOverlayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint previewPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
   private boolean wasInvalidatedBefore;
   private OnNoxItemClickListener listener = OnNoxItemClickListener.EMPTY;
   private GestureDetectorCompat gestureDetector;
   private int defaultShapeKey;
   private boolean useCircularTransformation;
+  private boolean useCircularMask;
+  private final CircularMask circularMask = new CircularMask();
+  private OnNoxItemVisibilityListener visibilityListener = OnNoxItemVisibilityListener.EMPTY;
+  private int[] visibleNoxItems = new int[0];
+  private int numberOfVisibleNoxItems;
+  private int[] previousVisibleNoxItems = new int[0];
+  private int numberOfPreviousVisibleNoxItems;
+  private boolean calculateShapeInBackground;
+  private ShapeCalculator shapeCalculator = new ShapeCalculator(this);
+  private boolean edgeScaling;
+  private float[] visibleNoxItemScales = new float[0];
+  private final RectF scaledNoxItemBounds = new RectF();
+  private TileCache tileCache;
+  private boolean useBitmapAtlas;
+  private final Rect atlasSlotBounds = new Rect();
+  private final RectF noxItemBounds = new RectF();
+  private int[] tileNoxItems = new int[0];
+  private int pressedNoxItem = NO_NOX_ITEM;
+  private OnFrameMetricsListener frameMetricsListener = OnFrameMetricsListener.EMPTY;
+  private FrameMetrics frameMetrics;
+  private final Rect dirtyNoxItemsBounds = new Rect();
+  private final IntRingBuffer readyNoxItems = new IntRingBuffer();
+  private boolean isProcessingReadyNoxItemsScheduled;
 
   public NoxView(Context context) {
     super(context);
@@ -89,21 +123,52 @@ public class NoxView extends View {
    */
   @Override protected void onDraw(Canvas canvas) {
     super.onDraw(canvas);
-    if (noxItemCatalog == null) {
+    if (noxItemCatalog == null || shape == null) {
       wasInvalidatedBefore = false;
+      dirtyNoxItemsBounds.setEmpty();
       return;
     }
+    long frameStartTime = 0;
+    if (frameMetrics != null) {
+      frameStartTime = System.nanoTime();
+      frameMetrics.reset();
+    }
     updateShapeOffset();
-    for (int i = 0; i < noxItemCatalog.size(); i++) {
-      if (shape.isItemInsideView(i)) {
-        loadNoxItem(i);
-        float left = shape.getXForItemAtPosition(i);
-        float top = shape.getYForItemAtPosition(i);
-        drawNoxItem(canvas, i, left, top);
+    swapVisibleNoxItems();
+    updateVisibleNoxItems();
+    if (frameMetrics != null) {
+      addNoxItemsTested();
+    }
+    notifyVisibilityChanges();
+    updateVisibleNoxItemScales();
+    boolean isDrawingTiles = isTileCacheActive();
+    for (int i = 0; i < numberOfVisibleNoxItems; i++) {
+      int position = visibleNoxItems[i];
+      if (!isNoxItemAvailable(position)) {
+        break;
+      }
+      boolean isLoadRequested = loadNoxItem(position);
+      if (isLoadRequested && frameMetrics != null) {
+        frameMetrics.onLoadRequested();
       }
+      if (!isDrawingTiles) {
+        float left = shape.getXForItemAtPosition(position);
+        float top = shape.getYForItemAtPosition(position);
+        drawNoxItem(canvas, position, left, top, visibleNoxItemScales[i]);
+      }
+    }
+    if (isDrawingTiles) {
+      int scrollX = getScrollX();
+      int scrollY = getScrollY();
+      tileCache.draw(canvas, scrollX, scrollY, scrollX + getWidth(), scrollY + getHeight());
     }
     canvas.restore();
     wasInvalidatedBefore = false;
+    dirtyNoxItemsBounds.setEmpty();
+    if (frameMetrics != null) {
+      frameMetrics.setDrawTimeNanos(System.nanoTime() - frameStartTime);
+      frameMetricsListener.onFrameDrawn(frameMetrics);
+    }
   }
 
   /**
@@ -114,34 +179,127 @@ public class NoxView extends View {
       @Override public void run() {
         initializeNoxItemCatalog(noxItems);
         createShape();
-        initializeScroller();
-        refreshView();
       }
     });
   }
 
   /**
-   * Used to notify when the data source has changed and is necessary to re draw the view.
+   * Used to notify when the data source has changed and is necessary to re draw the view. If the
+   * Shape is calculated in background the previous Shape will be drawn until the new one is ready.
    */
   public void notifyDataSetChanged() {
     if (noxItemCatalog != null) {
       noxItemCatalog.recreate();
       createShape();
-      initializeScroller();
-      refreshView();
     }
   }
 
   /**
-   * Changes the Shape used to the one passed as argument. This method will refresh the view.
+   * Changes the Shape used to the one passed as argument. This method will refresh the view. If the
+   * Shape is calculated in background the previous Shape will be drawn until the new one is ready.
    */
   public void setShape(Shape shape) {
     validateShape(shape);
 
-    this.shape = shape;
-    this.shape.calculate();
-    initializeScroller();
-    resetScroll();
+    if (calculateShapeInBackground) {
+      shapeCalculator.calculate(shape, onNewShapeCalculated);
+    } else {
+      shapeCalculator.cancelAndWait();
+      shapeCalculator.calculateSynchronously(shape);
+      publishNewShape(shape);
+    }
+  }
+
+  /**
+   * Configures NoxView to calculate the Shape positions in a worker thread. Shape instances created
+   * by the library are recalculated in background when the data source changes too, custom Shape
+   * implementations are recalculated in the UI thread because NoxView can't create a new instance
+   * of them.
+   */
+  public void setCalculateShapeInBackground(boolean calculateShapeInBackground) {
+    this.calculateShapeInBackground = calculateShapeInBackground;
+  }
+
+  /**
+   * Configures a ShapeLayoutCache used to persist the Shape layouts calculated and restore them
+   * instead of calculating the Shape again, for example, after a cold start. Null disables the
+   * persistence of Shape layouts.
+   */
+  public void setShapeLayoutCache(ShapeLayoutCache shapeLayoutCache) {
+    shapeCalculator.setLayoutCache(shapeLayoutCache);
+  }
+
+  /**
+   * Configures NoxView to scale down the NoxItem instances close to the view edges, like in a
+   * fisheye lens. NoxItem clicks are detected using the scaled NoxItem bounds. This method will
+   * refresh the view.
+   */
+  public void setEdgeScaling(boolean edgeScaling) {
+    this.edgeScaling = edgeScaling;
+    if (shape != null) {
+      shape.setEdgeScalingEnabled(edgeScaling);
+      refreshView();
+    }
+  }
+
+  /**
+   * Configures NoxView to render the NoxItem instances into tiles drawn while the view is
+   * scrolled instead of drawing every NoxItem in every frame. Tiles are rendered again just when
+   * a NoxItem inside them is loaded or its state changes. The tile cache is not used while the
+   * edge scaling mode is enabled because NoxItem scales change with the scroll. This method will
+   * refresh the view.
+   */
+  public void setTileCacheEnabled(boolean tileCacheEnabled) {
+    if (tileCacheEnabled && tileCache == null) {
+      tileCache = new TileCache(tileRenderer);
+    } else if (!tileCacheEnabled && tileCache != null) {
+      tileCache.release();
+      tileCache = null;
+    }
+    refreshView();
+  }
+
+  /**
+   * Configures NoxView to copy the bitmaps loaded into a few big bitmaps shared by every NoxItem
+   * instead of drawing one bitmap per NoxItem. Just the bitmaps loaded once this method has been
+   * invoked are copied.
+   */
+  public void setBitmapAtlasEnabled(boolean bitmapAtlasEnabled) {
+    this.useBitmapAtlas = bitmapAtlasEnabled;
+    boolean isUsingBitmapAtlas = noxItemCatalog != null && noxItemCatalog.getBitmapAtlas() != null;
+    if (noxItemCatalog == null || bitmapAtlasEnabled == isUsingBitmapAtlas) {
+      return;
+    }
+    int noxItemSize = (int) noxConfig.getNoxItemSize();
+    BitmapAtlas bitmapAtlas =
+        bitmapAtlasEnabled ? BitmapAtlas.create(getContext(), noxItemSize) : null;
+    noxItemCatalog.setBitmapAtlas(bitmapAtlas);
+    invalidateTiles();
+    refreshView();
+  }
+
+  /**
+   * Configures NoxView to draw the NoxItem images as circles masking them while drawn instead of
+   * applying a circular transformation once loaded. The images loaded while this mode is enabled
+   * are kept as plain bitmaps, so they can be drawn as squares or circles using the same bitmap.
+   * Images already loaded are not loaded again. This method will refresh the view.
+   */
+  public void setCircularMaskEnabled(boolean circularMaskEnabled) {
+    this.useCircularMask = circularMaskEnabled;
+    invalidateTiles();
+    refreshView();
+  }
+
+  /**
+   * Configures the color drawn over the image of the NoxItem pressed. NoxItem instances drawn
+   * using a Drawable show their pressed state instead.
+   */
+  public void setPressedOverlayColor(int pressedOverlayColor) {
+    noxConfig.setPressedOverlayColor(pressedOverlayColor);
+    pressedOverlayPaint.setColor(pressedOverlayColor);
+    if (pressedNoxItem != NO_NOX_ITEM && isNoxItemAvailable(pressedNoxItem)) {
+      refreshNoxItemState(pressedNoxItem);
+    }
   }
 
   /**
@@ -158,12 +316,18 @@ public class NoxView extends View {
   }
 
   /**
-   * Delegates computeScroll method to the scroller instance to implement the scroll effect.
+   * Delegates computeScroll method to the scroller instance to implement the scroll effect. Once
+   * the fast scroll after a fling gesture finishes, the view is drawn again to load the full size
+   * images of the NoxItem instances drawn using their previews.
    */
   @Override public void computeScroll() {
     super.computeScroll();
     if (scroller != null) {
+      boolean wasScrollingFast = scroller.isScrollingFast();
       scroller.computeScroll();
+      if (wasScrollingFast && !scroller.isScrollingFast()) {
+        ViewCompat.postInvalidateOnAnimation(this);
+      }
     }
   }
 
@@ -215,6 +379,30 @@ public class NoxView extends View {
     this.listener = listener;
   }
 
+  /**
+   * Configures a OnNoxItemVisibilityListener instance to be notified when a NoxItem instance enters
+   * or exits the view window.
+   */
+  public void setOnNoxItemVisibilityListener(OnNoxItemVisibilityListener visibilityListener) {
+    validateVisibilityListener(visibilityListener);
+    this.visibilityListener = visibilityListener;
+  }
+
+  /**
+   * Configures a OnFrameMetricsListener instance to be notified with the statistics collected
+   * every time a frame is drawn. Statistics are collected only while a listener other than
+   * OnFrameMetricsListener.EMPTY is configured.
+   */
+  public void setFrameMetricsListener(OnFrameMetricsListener frameMetricsListener) {
+    validateFrameMetricsListener(frameMetricsListener);
+    this.frameMetricsListener = frameMetricsListener;
+    if (frameMetricsListener == OnFrameMetricsListener.EMPTY) {
+      frameMetrics = null;
+    } else if (frameMetrics == null) {
+      frameMetrics = new FrameMetrics();
+    }
+  }
+
   /**
    * Resets the scroll position to the 0,0.
    */
@@ -251,52 +439,103 @@ public class NoxView extends View {
   }
 
   /**
-   * Given a NoxItem position try to load this NoxItem if the view is not performing a fast scroll
-   * after a fling gesture.
+   * Given a NoxItem position try to load this NoxItem. If the view is performing a fast scroll
+   * after a fling gesture just a low resolution preview is loaded, the full size image will be
+   * loaded once the scroll finishes. Returns true if the NoxItem download has been started.
+   *
+   * Previews are never transformed into circles, the transformation would copy the RGB_565
+   * preview into a new ARGB_8888 bitmap. They are masked with a circle while drawn instead.
    */
-  private void loadNoxItem(int position) {
-    if (!scroller.isScrollingFast()) {
-      noxItemCatalog.load(position, useCircularTransformation);
+  private boolean loadNoxItem(int position) {
+    if (scroller.isScrollingFast()) {
+      return noxItemCatalog.loadPreview(position, false);
     }
+    boolean transformIntoCircle = useCircularTransformation && !useCircularMask;
+    return noxItemCatalog.load(position, transformIntoCircle);
   }
 
   /**
-   * Resumes NoxItemCatalog and adds a observer to be notified when a NoxItem is ready to be drawn.
+   * Resumes NoxItemCatalog and configures a listener to be notified when a NoxItem is ready to be
+   * drawn.
    */
   private void resume() {
-    noxItemCatalog.addObserver(catalogObserver);
+    noxItemCatalog.setListener(catalogListener);
     noxItemCatalog.resume();
   }
 
   /**
-   * Pauses NoxItemCatalog and removes the observer previously configured.
+   * Pauses NoxItemCatalog and removes the listener previously configured.
    */
   private void pause() {
     noxItemCatalog.pause();
-    noxItemCatalog.deleteObserver(catalogObserver);
+    noxItemCatalog.setListener(NoxItemCatalog.Listener.EMPTY);
   }
 
   /**
-   * Releases NoxItemCatalog and removes the observer previously configured.
+   * Releases NoxItemCatalog and removes the listener previously configured.
    */
   private void release() {
+    shapeCalculator.cancel();
+    if (tileCache != null) {
+      tileCache.release();
+    }
     noxItemCatalog.release();
-    noxItemCatalog.deleteObserver(catalogObserver);
+    noxItemCatalog.setListener(NoxItemCatalog.Listener.EMPTY);
+    removeCallbacks(processReadyNoxItems);
+    isProcessingReadyNoxItemsScheduled = false;
+    readyNoxItems.clear();
+    circularMask.release();
   }
 
   /**
-   * Observer implementation used to be notified when a NoxItem has been loaded.
+   * NoxItemCatalog listener used to be notified when a NoxItem has been loaded. NoxItem positions
+   * are queued and processed together once per frame, so a burst of NoxItem instances loaded at
+   * the same time invalidates the view just once.
    */
-  private Observer catalogObserver = new Observer() {
-    @Override public void update(Observable observable, Object data) {
-      Integer position = (Integer) data;
-      boolean isNoxItemLoadedInsideTheView = shape != null && shape.isItemInsideView(position);
-      if (isNoxItemLoadedInsideTheView) {
-        refreshView();
+  private final NoxItemCatalog.Listener catalogListener = new NoxItemCatalog.Listener() {
+    @Override public void onNoxItemReady(int position) {
+      readyNoxItems.add(position);
+      if (!isProcessingReadyNoxItemsScheduled) {
+        isProcessingReadyNoxItemsScheduled = true;
+        ViewCompat.postOnAnimation(NoxView.this, processReadyNoxItems);
       }
     }
   };
 
+  /**
+   * Runnable executed on the next animation frame, before the frame is drawn, to process the
+   * NoxItem instances loaded since the previous frame.
+   */
+  private final Runnable processReadyNoxItems = new Runnable() {
+    @Override public void run() {
+      processReadyNoxItems();
+    }
+  };
+
+  /**
+   * Invalidates the tiles of every NoxItem loaded since the last invocation and the area of the
+   * view where the ones inside the view are drawn, merged into a single invalidation. This method
+   * is package-private to be able to process the queued NoxItem instances in test time.
+   */
+  void processReadyNoxItems() {
+    isProcessingReadyNoxItemsScheduled = false;
+    boolean isAnyNoxItemInsideTheView = false;
+    while (!readyNoxItems.isEmpty()) {
+      int position = readyNoxItems.poll();
+      if (shape == null || !isNoxItemAvailable(position)) {
+        continue;
+      }
+      invalidateNoxItemTiles(position);
+      if (shape.isItemInsideView(position)) {
+        addDirtyNoxItemBounds(position);
+        isAnyNoxItemInsideTheView = true;
+      }
+    }
+    if (isAnyNoxItemInsideTheView) {
+      invalidateDirtyNoxItemsBounds();
+    }
+  }
+
   /**
    * Tries to post a invalidate() event if another one was previously posted.
    */
@@ -307,12 +546,157 @@ public class NoxView extends View {
     }
   }
 
+  /**
+   * Invalidates just the area of the view where the NoxItem passed as argument is drawn.
+   */
+  private void refreshNoxItem(int position) {
+    addDirtyNoxItemBounds(position);
+    invalidateDirtyNoxItemsBounds();
+  }
+
+  /**
+   * Adds the area of the view where the NoxItem passed as argument is drawn to the area to redraw.
+   * The areas of every NoxItem refreshed before the next frame is drawn are merged into a single
+   * rectangle, so the next frame redraws only the part of the view containing them.
+   */
+  private void addDirtyNoxItemBounds(int position) {
+    float left = shape.getXForItemAtPosition(position);
+    float top = shape.getYForItemAtPosition(position);
+    float itemSize = noxConfig.getNoxItemSize();
+    dirtyNoxItemsBounds.union((int) Math.floor(left), (int) Math.floor(top),
+        (int) Math.ceil(left + itemSize), (int) Math.ceil(top + itemSize));
+  }
+
+  /**
+   * Invalidates the area of the view containing the NoxItem instances refreshed since the last
+   * frame. Nothing is invalidated if the whole view was previously invalidated.
+   */
+  private void invalidateDirtyNoxItemsBounds() {
+    if (!wasInvalidatedBefore && !dirtyNoxItemsBounds.isEmpty()) {
+      invalidate(dirtyNoxItemsBounds.left, dirtyNoxItemsBounds.top, dirtyNoxItemsBounds.right,
+          dirtyNoxItemsBounds.bottom);
+    }
+  }
+
   private void initializeNoxItemCatalog(List<NoxItem> noxItems) {
+    if (noxItemCatalog != null) {
+      noxItemCatalog.setBitmapAtlas(null);
+      noxItemCatalog.setDefaultPlaceholder(null);
+    }
     ImageLoader imageLoader = ImageLoaderFactory.getPicassoImageLoader(getContext());
     this.noxItemCatalog =
         new NoxItemCatalog(noxItems, (int) noxConfig.getNoxItemSize(), imageLoader);
     this.noxItemCatalog.setDefaultPlaceholder(noxConfig.getPlaceholder());
-    this.noxItemCatalog.addObserver(catalogObserver);
+    if (useBitmapAtlas) {
+      int noxItemSize = (int) noxConfig.getNoxItemSize();
+      this.noxItemCatalog.setBitmapAtlas(BitmapAtlas.create(getContext(), noxItemSize));
+    }
+    this.noxItemCatalog.setListener(catalogListener);
+    this.numberOfVisibleNoxItems = 0;
+    this.pressedNoxItem = NO_NOX_ITEM;
+  }
+
+  /**
+   * ShapeCalculator listener used to show a new Shape configured by the user once it has been
+   * calculated.
+   */
+  private ShapeCalculator.Listener onNewShapeCalculated = new ShapeCalculator.Listener() {
+    @Override public void onShapeCalculated(Shape shape) {
+      publishNewShape(shape);
+    }
+  };
+
+  /**
+   * ShapeCalculator listener used to show a Shape recalculated after a data source change once
+   * it has been calculated.
+   */
+  private ShapeCalculator.Listener onShapeRecalculated = new ShapeCalculator.Listener() {
+    @Override public void onShapeCalculated(Shape shape) {
+      publishShape(shape);
+    }
+  };
+
+  /**
+   * Replaces the Shape drawn with the one passed as argument keeping the scroll position.
+   */
+  private void publishShape(Shape shape) {
+    shape.setEdgeScalingEnabled(edgeScaling);
+    this.shape = shape;
+    invalidateTiles();
+    initializeScroller();
+    refreshView();
+  }
+
+  /**
+   * Replaces the Shape drawn with the one passed as argument resetting the scroll position.
+   */
+  private void publishNewShape(Shape shape) {
+    shape.setEdgeScalingEnabled(edgeScaling);
+    this.shape = shape;
+    invalidateTiles();
+    initializeScroller();
+    resetScroll();
+  }
+
+  /**
+   * Returns true if the NoxItem instances have to be drawn using the tile cache.
+   */
+  private boolean isTileCacheActive() {
+    return tileCache != null && !edgeScaling;
+  }
+
+  /**
+   * TileCache renderer used to draw the NoxItem instances intersecting a tile. NoxItem instances
+   * are drawn without scale because the tile cache is not used in the edge scaling mode.
+   */
+  private final TileCache.Renderer tileRenderer = new TileCache.Renderer() {
+    @Override public void render(Canvas canvas, int left, int top, int right, int bottom) {
+      int numberOfNoxItems = shape.getItemsInsideRect(left, top, right, bottom, tileNoxItems);
+      if (numberOfNoxItems > tileNoxItems.length) {
+        tileNoxItems = new int[numberOfNoxItems];
+        numberOfNoxItems = shape.getItemsInsideRect(left, top, right, bottom, tileNoxItems);
+      }
+      for (int i = 0; i < numberOfNoxItems; i++) {
+        int position = tileNoxItems[i];
+        if (!isNoxItemAvailable(position)) {
+          break;
+        }
+        float noxItemLeft = shape.getXForItemAtPosition(position);
+        float noxItemTop = shape.getYForItemAtPosition(position);
+        drawNoxItem(canvas, position, noxItemLeft, noxItemTop, 1);
+      }
+    }
+  };
+
+  /**
+   * Invalidates every tile rendered previously if the tile cache is enabled.
+   */
+  private void invalidateTiles() {
+    if (tileCache != null) {
+      tileCache.invalidateAll();
+    }
+  }
+
+  /**
+   * Invalidates the tiles containing the NoxItem passed as argument if the tile cache is enabled.
+   */
+  private void invalidateNoxItemTiles(int position) {
+    if (tileCache != null) {
+      float left = shape.getXForItemAtPosition(position);
+      float top = shape.getYForItemAtPosition(position);
+      float itemSize = noxConfig.getNoxItemSize();
+      tileCache.invalidate(left, top, left + itemSize, top + itemSize);
+    }
+  }
+
+  /**
+   * Returns true if the NoxItem position passed as argument exists in the NoxItemCatalog and in the
+   * Shape drawn. Both could temporarily differ while a new Shape is calculated in background.
+   */
+  private boolean isNoxItemAvailable(int position) {
+    return position >= 0
+        && position < noxItemCatalog.size()
+        && position < shape.getNumberOfElements();
   }
 
   private void initializeScroller() {
@@ -331,51 +715,352 @@ public class NoxView extends View {
   }
 
   /**
-   * Draws a NoxItem during the onDraw method.
+   * Asks the Shape for the NoxItem instances inside the view and stores their positions into the
+   * visibleNoxItems array. The array is only reallocated if the number of NoxItem instances inside
+   * the view is bigger than the array capacity.
+   */
+  private void updateVisibleNoxItems() {
+    numberOfVisibleNoxItems = shape.getItemsInsideView(visibleNoxItems);
+    if (numberOfVisibleNoxItems > visibleNoxItems.length) {
+      visibleNoxItems = new int[numberOfVisibleNoxItems];
+      numberOfVisibleNoxItems = shape.getItemsInsideView(visibleNoxItems);
+    }
+  }
+
+  /**
+   * Adds to the frame metrics the NoxItem instances checked against the view window and the ones
+   * culled because they were outside it. The Shape checks the NoxItem instances stored in the grid
+   * cells intersecting the view window, so the NoxItem instances closer than one NoxItem to the
+   * view window are counted as tested. Invoked just if there is a OnFrameMetricsListener
+   * configured, the Shape is not modified while counting them.
+   */
+  private void addNoxItemsTested() {
+    float distance = noxConfig.getNoxItemSize() + noxConfig.getNoxItemMargin();
+    ShapeConfig shapeConfig = shape.getShapeConfig();
+    float left = -scroller.getOffsetX() - distance;
+    float top = -scroller.getOffsetY() - distance;
+    float right = left + shapeConfig.getViewWidth() + distance * 2;
+    float bottom = top + shapeConfig.getViewHeight() + distance * 2;
+    int numberOfNoxItemsTested = shape.getItemsInsideRect(left, top, right, bottom, NO_NOX_ITEMS);
+    int numberOfNoxItemsCulled = Math.max(0, numberOfNoxItemsTested - numberOfVisibleNoxItems);
+    frameMetrics.addNoxItemsTested(numberOfNoxItemsTested, numberOfNoxItemsCulled);
+  }
+
+  /**
+   * Asks the Shape for the scale factor of every NoxItem inside the view and stores them into the
+   * visibleNoxItemScales array. The array is only reallocated if it can't hold the scale factor of
+   * every NoxItem inside the view.
+   */
+  private void updateVisibleNoxItemScales() {
+    if (visibleNoxItemScales.length < numberOfVisibleNoxItems) {
+      visibleNoxItemScales = new float[visibleNoxItems.length];
+    }
+    shape.getScalesForItems(visibleNoxItems, numberOfVisibleNoxItems, visibleNoxItemScales);
+  }
+
+  /**
+   * Keeps the NoxItem instances inside the view during the previous frame to be able to compare
+   * them with the ones inside the view in the current frame. The arrays are swapped to avoid any
+   * allocation.
+   */
+  private void swapVisibleNoxItems() {
+    int[] noxItems = previousVisibleNoxItems;
+    previousVisibleNoxItems = visibleNoxItems;
+    numberOfPreviousVisibleNoxItems = numberOfVisibleNoxItems;
+    visibleNoxItems = noxItems;
+    numberOfVisibleNoxItems = 0;
+  }
+
+  /**
+   * Compares the NoxItem instances inside the view in the previous and the current frame to
+   * notify which ones have entered or exited the view window. Both arrays are sorted, so they can
+   * be compared in just one pass.
+   */
+  private void notifyVisibilityChanges() {
+    int previous = 0;
+    int current = 0;
+    while (previous < numberOfPreviousVisibleNoxItems || current < numberOfVisibleNoxItems) {
+      int previousPosition = previous < numberOfPreviousVisibleNoxItems
+          ? previousVisibleNoxItems[previous] : Integer.MAX_VALUE;
+      int currentPosition =
+          current < numberOfVisibleNoxItems ? visibleNoxItems[current] : Integer.MAX_VALUE;
+      if (previousPosition == currentPosition) {
+        previous++;
+        current++;
+      } else if (previousPosition < currentPosition) {
+        onNoxItemExited(previousPosition);
+        previous++;
+      } else {
+        onNoxItemEntered(currentPosition);
+        current++;
+      }
+    }
+  }
+
+  /**
+   * Notifies the OnNoxItemVisibilityListener a NoxItem has entered the view window.
    */
-  private void drawNoxItem(Canvas canvas, int position, float left, float top) {
-    if (noxItemCatalog.isBitmapReady(position)) {
+  private void onNoxItemEntered(int position) {
+    if (isNoxItemAvailable(position)
+        && visibilityListener != OnNoxItemVisibilityListener.EMPTY) {
+      visibilityListener.onNoxItemEntered(position, noxItemCatalog.getNoxItem(position));
+    }
+  }
+
+  /**
+   * Cancels the download of a NoxItem which has exited the view window and notifies the
+   * OnNoxItemVisibilityListener. NoxItem instances removed from the catalog are ignored.
+   */
+  private void onNoxItemExited(int position) {
+    if (position >= noxItemCatalog.size()) {
+      return;
+    }
+    noxItemCatalog.cancel(position);
+    if (visibilityListener != OnNoxItemVisibilityListener.EMPTY) {
+      visibilityListener.onNoxItemExited(position, noxItemCatalog.getNoxItem(position));
+    }
+  }
+
+  /**
+   * Draws a NoxItem during the onDraw method. NoxItem instances with a scale factor lower than 1
+   * are drawn scaled down around their center.
+   */
+  private void drawNoxItem(Canvas canvas, int position, float left, float top, float scale) {
+    if (noxItemCatalog.isBitmapInAtlas(position)) {
+      drawNoxItemFromAtlas(canvas, position, left, top, scale);
+      drawPressedOverlayIfNeeded(canvas, position, left, top, scale);
+      if (frameMetrics != null) {
+        frameMetrics.onBitmapDrawn();
+      }
+    } else if (noxItemCatalog.isBitmapReady(position)) {
       Bitmap bitmap = noxItemCatalog.getBitmap(position);
-      canvas.drawBitmap(bitmap, left, top, paint);
+      drawNoxItemImage(canvas, bitmap, left, top, scale);
+      drawPressedOverlayIfNeeded(canvas, position, left, top, scale);
+      if (frameMetrics != null) {
+        frameMetrics.onBitmapDrawn();
+      }
+    } else if (noxItemCatalog.isPreviewReady(position)) {
+      Bitmap preview = noxItemCatalog.getPreview(position);
+      drawNoxItemPreview(canvas, preview, left, top, scale);
+      drawPressedOverlayIfNeeded(canvas, position, left, top, scale);
+      if (frameMetrics != null) {
+        frameMetrics.onBitmapDrawn();
+      }
     } else if (noxItemCatalog.isDrawableReady(position)) {
       Drawable drawable = noxItemCatalog.getDrawable(position);
-      drawNoxItemDrawable(canvas, (int) left, (int) top, drawable);
+      drawNoxItemDrawable(canvas, position, left, top, scale, drawable);
+      if (frameMetrics != null) {
+        frameMetrics.onDrawableDrawn();
+      }
+    } else if (noxItemCatalog.isDefaultPlaceholderUsed(position)) {
+      Bitmap placeholder = noxItemCatalog.getDefaultPlaceholderBitmap(position == pressedNoxItem);
+      drawNoxItemBitmap(canvas, placeholder, left, top, scale);
+      if (frameMetrics != null) {
+        frameMetrics.onPlaceholderDrawn();
+      }
     } else if (noxItemCatalog.isPlaceholderReady(position)) {
       Drawable drawable = noxItemCatalog.getPlaceholder(position);
-      drawNoxItemDrawable(canvas, (int) left, (int) top, drawable);
+      drawNoxItemDrawable(canvas, position, left, top, scale, drawable);
+      if (frameMetrics != null) {
+        frameMetrics.onPlaceholderDrawn();
+      }
+    }
+  }
+
+  /**
+   * Draws a NoxItem bitmap during the onDraw method. Bitmaps are drawn scaled down around the
+   * NoxItem center if the scale factor is lower than 1.
+   */
+  private void drawNoxItemBitmap(Canvas canvas, Bitmap bitmap, float left, float top,
+      float scale) {
+    if (scale < 1) {
+      updateScaledNoxItemBounds(left, top, scale);
+      canvas.drawBitmap(bitmap, null, scaledNoxItemBounds, paint);
+    } else {
+      canvas.drawBitmap(bitmap, left, top, paint);
+    }
+  }
+
+  /**
+   * Draws the image loaded for a NoxItem masked with a circle if the circular mask mode is enabled
+   * or as a plain bitmap otherwise.
+   */
+  private void drawNoxItemImage(Canvas canvas, Bitmap bitmap, float left, float top,
+      float scale) {
+    if (useCircularMask) {
+      updateScaledNoxItemBounds(left, top, scale);
+      circularMask.draw(canvas, bitmap, scaledNoxItemBounds);
+    } else {
+      drawNoxItemBitmap(canvas, bitmap, left, top, scale);
+    }
+  }
+
+  /**
+   * Draws the low resolution preview of a NoxItem scaled up to the NoxItem size. The preview is
+   * filtered while scaled to avoid a pixelated look and masked with a circle if NoxItem images are
+   * shown as circles, because previews are not transformed while loaded.
+   */
+  private void drawNoxItemPreview(Canvas canvas, Bitmap preview, float left, float top,
+      float scale) {
+    updateScaledNoxItemBounds(left, top, scale);
+    if (useCircularTransformation || useCircularMask) {
+      circularMask.draw(canvas, preview, scaledNoxItemBounds);
+    } else {
+      canvas.drawBitmap(preview, null, scaledNoxItemBounds, previewPaint);
+    }
+  }
+
+  /**
+   * Draws the pressed overlay color over the image of a NoxItem if the NoxItem is the one pressed.
+   * Images have no pressed state, so the pressed feedback is drawn over them. The overlay is a
+   * circle if the images are transformed into circles.
+   */
+  private void drawPressedOverlayIfNeeded(Canvas canvas, int position, float left, float top,
+      float scale) {
+    if (position != pressedNoxItem) {
+      return;
+    }
+    float itemSize = noxConfig.getNoxItemSize() * scale;
+    float centerX = left + noxConfig.getNoxItemSize() / 2;
+    float centerY = top + noxConfig.getNoxItemSize() / 2;
+    if (useCircularTransformation || useCircularMask) {
+      canvas.drawCircle(centerX, centerY, itemSize / 2, pressedOverlayPaint);
+    } else {
+      canvas.drawRect(centerX - itemSize / 2, centerY - itemSize / 2, centerX + itemSize / 2,
+          centerY + itemSize / 2, pressedOverlayPaint);
+    }
+  }
+
+  /**
+   * Draws a NoxItem bitmap copied into the BitmapAtlas during the onDraw method. Every NoxItem is
+   * drawn from the same atlas pages, so consecutive draws can be batched.
+   */
+  private void drawNoxItemFromAtlas(Canvas canvas, int position, float left, float top,
+      float scale) {
+    Bitmap page = noxItemCatalog.getBitmapAtlas().getPage(position, atlasSlotBounds);
+    if (useCircularMask) {
+      updateScaledNoxItemBounds(left, top, scale);
+      circularMask.draw(canvas, page, atlasSlotBounds, scaledNoxItemBounds);
+    } else if (scale < 1) {
+      updateScaledNoxItemBounds(left, top, scale);
+      canvas.drawBitmap(page, atlasSlotBounds, scaledNoxItemBounds, paint);
+    } else {
+      float itemSize = noxConfig.getNoxItemSize();
+      noxItemBounds.set(left, top, left + itemSize, top + itemSize);
+      canvas.drawBitmap(page, atlasSlotBounds, noxItemBounds, paint);
     }
   }
 
   /**
    * Draws a NoxItem drawable during the onDraw method given a canvas object and all the
-   * information needed to draw the Drawable passed as parameter.
+   * information needed to draw the Drawable passed as parameter. Drawables can be shared between
+   * NoxItem instances, like the default placeholder, so the state is configured just before
+   * drawing them using state sets created once.
    */
-  private void drawNoxItemDrawable(Canvas canvas, int left, int top, Drawable drawable) {
+  private void drawNoxItemDrawable(Canvas canvas, int position, float left, float top,
+      float scale, Drawable drawable) {
     if (drawable != null) {
-      int itemSize = (int) noxConfig.getNoxItemSize();
-      drawable.setBounds(left, top, left + itemSize, top + itemSize);
+      if (scale < 1) {
+        updateScaledNoxItemBounds(left, top, scale);
+        updateDrawableBounds(drawable, (int) scaledNoxItemBounds.left,
+            (int) scaledNoxItemBounds.top, (int) scaledNoxItemBounds.right,
+            (int) scaledNoxItemBounds.bottom);
+      } else {
+        int itemSize = (int) noxConfig.getNoxItemSize();
+        updateDrawableBounds(drawable, (int) left, (int) top, (int) left + itemSize,
+            (int) top + itemSize);
+      }
+      drawable.setState(position == pressedNoxItem ? PRESSED_STATE_SET : NOT_PRESSED_STATE_SET);
       drawable.draw(canvas);
     }
   }
 
+  /**
+   * Configures the bounds passed as argument into the Drawable only if they have changed. NoxItem
+   * instances are drawn in content coordinates, so the bounds of a Drawable used by just one
+   * NoxItem don't change while the view is scrolled.
+   */
+  private void updateDrawableBounds(Drawable drawable, int left, int top, int right,
+      int bottom) {
+    Rect bounds = drawable.getBounds();
+    if (bounds.left != left || bounds.top != top || bounds.right != right
+        || bounds.bottom != bottom) {
+      drawable.setBounds(left, top, right, bottom);
+    }
+  }
+
+  /**
+   * Updates the bounds, reused between NoxItems to avoid allocations during the onDraw method,
+   * used to draw a NoxItem scaled down around its center.
+   */
+  private void updateScaledNoxItemBounds(float left, float top, float scale) {
+    float itemSize = noxConfig.getNoxItemSize();
+    float scaledItemSize = itemSize * scale;
+    float scaledLeft = left + (itemSize - scaledItemSize) / 2;
+    float scaledTop = top + (itemSize - scaledItemSize) / 2;
+    scaledNoxItemBounds.set(scaledLeft, scaledTop, scaledLeft + scaledItemSize,
+        scaledTop + scaledItemSize);
+  }
+
   /**
    * Initializes a Shape instance given the NoxView configuration provided programmatically or
-   * using XML styleable attributes.
+   * using XML styleable attributes. If the Shape is calculated in background a new Shape instance
+   * is created and calculated in a worker thread while the previous one is still drawn. Only the
+   * layout of the first Shape created is kept in memory, the following ones are recalculated
+   * because the number of NoxItem instances changed.
    */
   private void createShape() {
+    Shape lastShape = getLastShape();
+    boolean isFirstShape = lastShape == null;
+    int shapeKey = isFirstShape ? defaultShapeKey : ShapeFactory.getShapeKey(lastShape);
+    if (calculateShapeInBackground && shapeKey != ShapeFactory.UNKNOWN_SHAPE_KEY) {
+      ShapeConfig shapeConfig = createShapeConfig(lastShape);
+      Shape newShape = ShapeFactory.getShapeByKey(shapeKey, shapeConfig);
+      if (isFirstShape) {
+        shapeCalculator.calculate(newShape, onShapeRecalculated);
+      } else {
+        shapeCalculator.recalculate(newShape, onShapeRecalculated);
+      }
+    } else {
+      shapeCalculator.cancelAndWait();
+      if (isFirstShape) {
+        lastShape = ShapeFactory.getShapeByKey(defaultShapeKey, createShapeConfig(null));
+        shapeCalculator.calculateSynchronously(lastShape);
+      } else {
+        lastShape.setNumberOfElements(noxItemCatalog.size());
+        shapeCalculator.recalculateSynchronously(lastShape);
+      }
+      publishShape(lastShape);
+    }
+  }
+
+  /**
+   * Returns the last Shape configured, the one pending to be calculated in background or the one
+   * drawn if there is no pending calculation.
+   */
+  private Shape getLastShape() {
+    Shape pendingShape = shapeCalculator.getPendingShape();
+    return pendingShape != null ? pendingShape : shape;
+  }
+
+  /**
+   * Creates a ShapeConfig instance for the current number of NoxItem instances using the
+   * configuration of the Shape passed as argument or the NoxView configuration if the Shape is
+   * null.
+   */
+  private ShapeConfig createShapeConfig(Shape shape) {
+    int numberOfElements = noxItemCatalog.size();
     if (shape == null) {
       float firstItemMargin = noxConfig.getNoxItemMargin();
       float firstItemSize = noxConfig.getNoxItemSize();
       int viewHeight = getMeasuredHeight();
       int viewWidth = getMeasuredWidth();
-      int numberOfElements = noxItemCatalog.size();
-      ShapeConfig shapeConfig =
-          new ShapeConfig(numberOfElements, viewWidth, viewHeight, firstItemSize, firstItemMargin);
-      shape = ShapeFactory.getShapeByKey(defaultShapeKey, shapeConfig);
-    } else {
-      shape.setNumberOfElements(noxItemCatalog.size());
+      return new ShapeConfig(numberOfElements, viewWidth, viewHeight, firstItemSize,
+          firstItemMargin);
     }
-    shape.calculate();
+    ShapeConfig shapeConfig = shape.getShapeConfig();
+    return new ShapeConfig(numberOfElements, shapeConfig.getViewWidth(),
+        shapeConfig.getViewHeight(), shapeConfig.getItemSize(), shapeConfig.getItemMargin());
   }
 
   /**
@@ -390,8 +1075,13 @@ public class NoxView extends View {
     initializeNoxItemSize(attributes);
     initializeNoxItemMargin(attributes);
     initializeNoxItemPlaceholder(attributes);
+    initializeNoxItemPressedOverlay(attributes);
     initializeShapeConfig(attributes);
     initializeTransformationConfig(attributes);
+    initializeShapeCalculationConfig(attributes);
+    initializeEdgeScalingConfig(attributes);
+    initializeTileCacheConfig(attributes);
+    initializeBitmapAtlasConfig(attributes);
     attributes.recycle();
   }
 
@@ -428,6 +1118,18 @@ public class NoxView extends View {
     noxConfig.setPlaceholder(placeholder);
   }
 
+  /**
+   * Configures the color drawn over the image of the NoxItem pressed.
+   */
+  private void initializeNoxItemPressedOverlay(TypedArray attributes) {
+    int pressedOverlayDefaultColor =
+        getResources().getColor(R.color.default_nox_item_pressed_overlay);
+    int pressedOverlayColor =
+        attributes.getColor(R.styleable.nox_item_pressed_overlay, pressedOverlayDefaultColor);
+    noxConfig.setPressedOverlayColor(pressedOverlayColor);
+    pressedOverlayPaint.setColor(pressedOverlayColor);
+  }
+
   /**
    * Configures the Shape used to show the list of NoxItems.
    */
@@ -438,11 +1140,44 @@ public class NoxView extends View {
 
   /**
    * Configures the visual transformation applied to the NoxItem resources loaded, images
-   * downloaded from the internet and resources loaded from the system.
+   * downloaded from the internet and resources loaded from the system, and if the images are
+   * masked with a circle while drawn instead.
    */
   private void initializeTransformationConfig(TypedArray attributes) {
     useCircularTransformation =
         attributes.getBoolean(R.styleable.nox_use_circular_transformation, true);
+    useCircularMask = attributes.getBoolean(R.styleable.nox_use_circular_mask, false);
+  }
+
+  /**
+   * Configures if the Shape positions are calculated in a worker thread.
+   */
+  private void initializeShapeCalculationConfig(TypedArray attributes) {
+    calculateShapeInBackground =
+        attributes.getBoolean(R.styleable.nox_calculate_shape_in_background, false);
+  }
+
+  /**
+   * Configures if the NoxItem instances close to the view edges are scaled down.
+   */
+  private void initializeEdgeScalingConfig(TypedArray attributes) {
+    edgeScaling = attributes.getBoolean(R.styleable.nox_edge_scaling, false);
+  }
+
+  /**
+   * Configures if the bitmaps loaded are copied into a BitmapAtlas.
+   */
+  private void initializeBitmapAtlasConfig(TypedArray attributes) {
+    useBitmapAtlas = attributes.getBoolean(R.styleable.nox_use_bitmap_atlas, false);
+  }
+
+  /**
+   * Configures if the NoxItem instances are drawn using a tile cache.
+   */
+  private void initializeTileCacheConfig(TypedArray attributes) {
+    if (attributes.getBoolean(R.styleable.nox_tile_cache, false)) {
+      tileCache = new TileCache(tileRenderer);
+    }
   }
 
   private void validateShape(Shape shape) {
@@ -463,6 +1198,20 @@ public class NoxView extends View {
     }
   }
 
+  private void validateVisibilityListener(OnNoxItemVisibilityListener visibilityListener) {
+    if (visibilityListener == null) {
+      throw new NullPointerException("You can't configure a null instance of "
+          + "OnNoxItemVisibilityListener as NoxView listener.");
+    }
+  }
+
+  private void validateFrameMetricsListener(OnFrameMetricsListener frameMetricsListener) {
+    if (frameMetricsListener == null) {
+      throw new NullPointerException("You can't configure a null instance of "
+          + "OnFrameMetricsListener as NoxView listener.");
+    }
+  }
+
   /**
    * Returns a GestureDetectorCompat lazy instantiated created to handle single tap events and
    * detect if a NoxItem has been clicked to notify the previously configured listener.
@@ -474,7 +1223,7 @@ public class NoxView extends View {
         @Override public boolean onSingleTapUp(MotionEvent e) {
           boolean handled = false;
           int position = shape.getNoxItemHit(e.getX(), e.getY());
-          if (position >= 0) {
+          if (isNoxItemAvailable(position)) {
             handled = true;
             NoxItem noxItem = noxItemCatalog.getNoxItem(position);
             listener.onNoxItemClicked(position, noxItem);
@@ -496,7 +1245,7 @@ public class NoxView extends View {
     float x = event.getX();
     float y = event.getY();
     int noxItemHit = shape.getNoxItemHit(x, y);
-    boolean isNoxItemHit = noxItemHit >= 0;
+    boolean isNoxItemHit = isNoxItemAvailable(noxItemHit);
     switch (event.getAction()) {
       case MotionEvent.ACTION_DOWN:
         if (isNoxItemHit) {
@@ -506,11 +1255,9 @@ public class NoxView extends View {
         break;
       case MotionEvent.ACTION_CANCEL:
       case MotionEvent.ACTION_UP:
-        for (int i = 0; i < noxItemCatalog.size(); i++) {
-          if (shape.isItemInsideView(i)) {
-            changeNoxItemStateToNotPressed(i);
-            handled = true;
-          }
+        if (pressedNoxItem != NO_NOX_ITEM) {
+          changeNoxItemStateToNotPressed();
+          handled = true;
         }
         break;
       default:
@@ -518,36 +1265,35 @@ public class NoxView extends View {
     return handled;
   }
 
+  /**
+   * Keeps the position of the NoxItem pressed. The pressed state is applied when the NoxItem is
+   * drawn, so no state set is created and no Drawable has to be copied for every NoxItem.
+   */
   private void changeNoxItemStateToPressed(int noxItemPosition) {
-    int[] stateSet = new int[2];
-    stateSet[0] = android.R.attr.state_pressed;
-    stateSet[1] = android.R.attr.state_enabled;
-    setNoxItemState(noxItemPosition, stateSet);
-  }
-
-  private void changeNoxItemStateToNotPressed(int noxItemPosition) {
-    int[] stateSet = new int[2];
-    stateSet[0] = -android.R.attr.state_pressed;
-    stateSet[1] = android.R.attr.state_enabled;
-    setNoxItemState(noxItemPosition, stateSet);
-  }
-
-  private void setNoxItemState(int noxItemPosition, int[] stateSet) {
-    boolean refreshView = false;
-    if (noxItemCatalog.isDrawableReady(noxItemPosition)) {
-      Drawable drawable = noxItemCatalog.getDrawable(noxItemPosition);
-      drawable.setState(stateSet);
-      refreshView = true;
-    } else if (noxItemCatalog.isPlaceholderReady(noxItemPosition)) {
-      Drawable drawable = noxItemCatalog.getPlaceholder(noxItemPosition);
-      drawable.setState(stateSet);
-      refreshView = true;
-    }
-    if (refreshView) {
-      refreshView();
+    if (pressedNoxItem != NO_NOX_ITEM) {
+      changeNoxItemStateToNotPressed();
+    }
+    pressedNoxItem = noxItemPosition;
+    refreshNoxItemState(noxItemPosition);
+  }
+
+  private void changeNoxItemStateToNotPressed() {
+    int noxItemPosition = pressedNoxItem;
+    pressedNoxItem = NO_NOX_ITEM;
+    if (isNoxItemAvailable(noxItemPosition)) {
+      refreshNoxItemState(noxItemPosition);
     }
   }
 
+  /**
+   * Draws again just the NoxItem passed as argument to show its new pressed state. Drawables are
+   * drawn using their pressed state and images are drawn with the pressed overlay over them.
+   */
+  private void refreshNoxItemState(int noxItemPosition) {
+    invalidateNoxItemTiles(noxItemPosition);
+    refreshNoxItem(noxItemPosition);
+  }
+
   /**
    * Method created for testing purposes. Configures the Scroller to be used by NoxView.
    * This method is needed because we don't have access to the view constructor.
@@ -556,6 +1302,14 @@ public class NoxView extends View {
     this.scroller = scroller;
   }
 
+  /**
+   * Method created for testing purposes. Configures the ShapeCalculator to be used by NoxView.
+   * This method is needed because we don't have access to the view constructor.
+   */
+  void setShapeCalculator(ShapeCalculator shapeCalculator) {
+    this.shapeCalculator = shapeCalculator;
+  }
+
   /**
    * Method created for testing purposes. Configures the NoxItemCatalog to be used by NoxView.
    * This method is needed because we don't have access to the view constructor.
@@ -564,6 +1318,14 @@ public class NoxView extends View {
     this.noxItemCatalog = noxItemCatalog;
   }
 
+  /**
+   * Method created for testing purposes. Returns the area of the view invalidated because of the
+   * NoxItem instances refreshed since the last frame was drawn.
+   */
+  Rect getDirtyNoxItemsBounds() {
+    return dirtyNoxItemsBounds;
+  }
+
   /**
    * Method created for testing purposes. Returns the NoxItemCatalog to be used by NoxView.
    * This method is needed because we don't have access to the view constructor.
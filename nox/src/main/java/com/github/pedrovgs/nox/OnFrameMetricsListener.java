@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+/**
+ * Interface created to be implemented by NoxView clients. Interface implementations will be
+ * notified every time NoxView draws a frame with the statistics collected while drawing it.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public interface OnFrameMetricsListener {
+
+  OnFrameMetricsListener EMPTY = new OnFrameMetricsListener() {
+    @Override public void onFrameDrawn(FrameMetrics frameMetrics) {
+
+    }
+  };
+
+  /**
+   * Invoked from the UI thread once a frame has been drawn. The FrameMetrics instance is reused
+   * for every frame, so its values have to be copied if they are needed after this invocation.
+   */
+  void onFrameDrawn(FrameMetrics frameMetrics);
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+/**
+ * Interface created to be implemented by NoxView clients. Interface implementations will be
+ * notified when a NoxItem enters or exits the view window because of a scroll or a data set
+ * change.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public interface OnNoxItemVisibilityListener {
+
+  OnNoxItemVisibilityListener EMPTY = new OnNoxItemVisibilityListener() {
+    @Override public void onNoxItemEntered(int position, NoxItem noxItem) {
+
+    }
+
+    @Override public void onNoxItemExited(int position, NoxItem noxItem) {
+
+    }
+  };
+
+  void onNoxItemEntered(int position, NoxItem noxItem);
+
+  void onNoxItemExited(int position, NoxItem noxItem);
+}
@@ -179,18 +179,26 @@ class Scroller {
 
         @Override
         public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-          resetOverScroller();
-          int startX = view.getScrollX();
-          int startY = view.getScrollY();
-          int velX = (int) -velocityX / VELOCITY_SCALE;
-          int velY = (int) -velocityY / VELOCITY_SCALE;
-          overScroller.fling(startX, startY, velX, velY, minX, maxX, minY, maxY, overSize,
-              overSize);
-          ViewCompat.postInvalidateOnAnimation(view);
+          fling(velocityX, velocityY);
           return false;
         }
       };
 
+  /**
+   * Starts a fast scroll using the velocity passed as argument. The view is flagged as scrolling
+   * fast until the OverScroller finishes or a new touch event stops the scroll.
+   */
+  void fling(float velocityX, float velocityY) {
+    resetOverScroller();
+    int startX = view.getScrollX();
+    int startY = view.getScrollY();
+    int velX = (int) -velocityX / VELOCITY_SCALE;
+    int velY = (int) -velocityY / VELOCITY_SCALE;
+    overScroller.fling(startX, startY, velX, velY, minX, maxX, minY, maxY, overSize, overSize);
+    isScrollingFast = true;
+    ViewCompat.postInvalidateOnAnimation(view);
+  }
+
   /**
    * Returns the distance in the X axes to perform the scroll taking into account the view
    * boundary.
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.view.View;
+import com.github.pedrovgs.nox.shape.Shape;
+import com.github.pedrovgs.nox.shape.ShapeLayoutCache;
+import com.github.pedrovgs.nox.shape.ShapeLayoutMemoryCache;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Calculates Shape instances in a worker thread. The Shape being calculated works as a back buffer
+ * of the Shape drawn by NoxView: the view keeps drawing the previous Shape while the new one is
+ * calculated and the new Shape is published in the UI thread, before the next frame, once every
+ * position and boundary has been calculated. Only the last Shape requested is published, the
+ * result of any previous calculation still in progress is discarded.
+ *
+ * The last layouts calculated on a Shape switch are kept in a ShapeLayoutMemoryCache, so switching
+ * back to a Shape used previously restores its layout instead of calculating it again. Layouts
+ * recalculated because the number of NoxItem instances changed are not kept, because they differ
+ * from the previous one just in a few NoxItem instances and copying them would cost more than the
+ * incremental calculation. If a ShapeLayoutCache is configured, layouts calculated on a Shape
+ * switch are restored from it if they were persisted previously or persisted once calculated.
+ * Recalculated layouts are not persisted for the same reason.
+ *
+ * Every method but the calculation itself has to be invoked from the UI thread.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class ShapeCalculator {
+
+  private static ExecutorService defaultExecutor;
+
+  private final View view;
+  private final Executor executor;
+  private final Object calculationLock = new Object();
+  private volatile int lastCalculation;
+  private Shape pendingShape;
+  private final ShapeLayoutMemoryCache memoryCache = new ShapeLayoutMemoryCache();
+  private volatile ShapeLayoutCache layoutCache;
+
+  ShapeCalculator(View view) {
+    this(view, getDefaultExecutor());
+  }
+
+  ShapeCalculator(View view, Executor executor) {
+    this.view = view;
+    this.executor = executor;
+  }
+
+  /**
+   * Calculates the Shape passed as argument in a worker thread and notifies the listener in the UI
+   * thread once the calculation has finished. The listener is not notified if another Shape is
+   * calculated or the calculation is cancelled before the publication.
+   */
+  void calculate(Shape shape, Listener listener) {
+    calculateInBackground(shape, listener, true);
+  }
+
+  /**
+   * Recalculates the Shape passed as argument, whose number of elements has changed, in a worker
+   * thread. The layout calculated is neither kept in memory nor persisted. The listener is notified like in
+   * calculate(Shape, Listener).
+   */
+  void recalculate(Shape shape, Listener listener) {
+    calculateInBackground(shape, listener, false);
+  }
+
+  /**
+   * Calculates the Shape passed as argument in the current thread. Any calculation in progress
+   * using the same Shape has to be cancelled before invoking this method.
+   */
+  void calculateSynchronously(Shape shape) {
+    calculateShape(shape, true);
+  }
+
+  /**
+   * Recalculates the Shape passed as argument, whose number of elements has changed, in the
+   * current thread. The layout calculated is neither kept in memory nor persisted. Any calculation in progress using
+   * the same Shape has to be cancelled before invoking this method.
+   */
+  void recalculateSynchronously(Shape shape) {
+    calculateShape(shape, false);
+  }
+
+  /**
+   * Configures the ShapeLayoutCache used to restore and persist Shape layouts. Null disables the
+   * persistence of Shape layouts.
+   */
+  void setLayoutCache(ShapeLayoutCache layoutCache) {
+    this.layoutCache = layoutCache;
+  }
+
+  /**
+   * Returns the last Shape requested to be calculated if it has not been published yet or null
+   * if there is no pending calculation.
+   */
+  Shape getPendingShape() {
+    return pendingShape;
+  }
+
+  /**
+   * Discards the result of the calculation in progress without waiting for it.
+   */
+  void cancel() {
+    cancelPendingCalculation();
+  }
+
+  /**
+   * Discards the result of the calculation in progress and waits until the worker thread stops
+   * using the pending Shape, so it can be modified safely from the UI thread.
+   */
+  void cancelAndWait() {
+    cancelPendingCalculation();
+    synchronized (calculationLock) {
+      // Acquiring the lock is enough to wait for the calculation in progress.
+    }
+  }
+
+  private void calculateInBackground(final Shape shape, final Listener listener,
+      final boolean isShapeSwitch) {
+    final int calculation = ++lastCalculation;
+    pendingShape = shape;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        synchronized (calculationLock) {
+          if (!isLastCalculation(calculation)) {
+            return;
+          }
+          calculateShape(shape, isShapeSwitch);
+        }
+        view.post(new Runnable() {
+          @Override public void run() {
+            if (isLastCalculation(calculation)) {
+              pendingShape = null;
+              listener.onShapeCalculated(shape);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void calculateShape(Shape shape, boolean isShapeSwitch) {
+    if (memoryCache.load(shape)) {
+      return;
+    }
+    ShapeLayoutCache layoutCache = this.layoutCache;
+    if (isShapeSwitch && layoutCache != null) {
+      layoutCache.calculate(shape);
+    } else {
+      shape.calculate();
+    }
+    if (isShapeSwitch) {
+      memoryCache.save(shape);
+    }
+  }
+
+  private void cancelPendingCalculation() {
+    lastCalculation++;
+    pendingShape = null;
+  }
+
+  private boolean isLastCalculation(int calculation) {
+    return calculation == lastCalculation;
+  }
+
+  private static synchronized ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "NoxShapeCalculator");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Listener used to notify when a Shape has been calculated and is ready to be drawn.
+   */
+  interface Listener {
+
+    void onShapeCalculated(Shape shape);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Renders the default placeholder Drawable once into a bitmap with the NoxItem size. The same
+ * bitmap is drawn for every NoxItem without its own placeholder, so the memory used by the
+ * placeholders doesn't grow with the number of NoxItem instances drawn. A second bitmap is
+ * rendered using the pressed state if the Drawable changes with its state.
+ *
+ * Bitmaps are rendered the first time they are requested.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class SharedPlaceholder {
+
+  private final Drawable drawable;
+  private final int size;
+
+  private Bitmap bitmap;
+  private Bitmap pressedBitmap;
+
+  SharedPlaceholder(Drawable drawable, int size) {
+    this.drawable = drawable;
+    this.size = Math.max(1, size);
+  }
+
+  /**
+   * Returns the Drawable rendered into the bitmaps.
+   */
+  Drawable getDrawable() {
+    return drawable;
+  }
+
+  /**
+   * Returns the bitmap rendered using the pressed or the not pressed state. If the Drawable
+   * doesn't change with its state, the same bitmap is returned for both states.
+   */
+  Bitmap getBitmap(boolean pressed) {
+    if (pressed && drawable.isStateful()) {
+      if (pressedBitmap == null) {
+        pressedBitmap = render(NoxView.PRESSED_STATE_SET);
+      }
+      return pressedBitmap;
+    }
+    if (bitmap == null) {
+      bitmap = render(NoxView.NOT_PRESSED_STATE_SET);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Recycles the bitmaps rendered. They will be rendered again if requested.
+   */
+  void release() {
+    if (bitmap != null) {
+      bitmap.recycle();
+      bitmap = null;
+    }
+    if (pressedBitmap != null) {
+      pressedBitmap.recycle();
+      pressedBitmap = null;
+    }
+  }
+
+  private Bitmap render(int[] stateSet) {
+    Bitmap renderedBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(renderedBitmap);
+    drawable.setBounds(0, 0, size, size);
+    drawable.setState(stateSet);
+    drawable.draw(canvas);
+    return renderedBitmap;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the NoxView content in square tiles of a fixed size rendered once into bitmaps. Frames
+ * drawn while the view is scrolled just draw the bitmaps of the tiles intersecting the view window
+ * instead of drawing every NoxItem again. Tiles are rendered again only once they have been
+ * invalidated, for example, because a NoxItem inside them has been loaded or its state has
+ * changed.
+ *
+ * Tiles leaving the view window are moved to a pool and their bitmaps are reused by the next
+ * tiles entering the view window, so the number of bitmaps allocated is bounded by the number of
+ * tiles needed to cover the view window. Drawing tiles already created doesn't allocate any
+ * object.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class TileCache {
+
+  static final int DEFAULT_TILE_SIZE = 256;
+
+  private final int tileSize;
+  private final Renderer renderer;
+  private final List<Tile> tiles = new ArrayList<Tile>();
+  private final List<Tile> pool = new ArrayList<Tile>();
+  private final Canvas tileCanvas = new Canvas();
+
+  TileCache(Renderer renderer) {
+    this(DEFAULT_TILE_SIZE, renderer);
+  }
+
+  TileCache(int tileSize, Renderer renderer) {
+    this.tileSize = tileSize;
+    this.renderer = renderer;
+  }
+
+  /**
+   * Draws the tiles intersecting the view window passed as argument, in content coordinates,
+   * rendering the tiles not rendered before or invalidated since the last frame.
+   */
+  void draw(Canvas canvas, int left, int top, int right, int bottom) {
+    int firstColumn = getTileIndex(left);
+    int lastColumn = getTileIndex(right - 1);
+    int firstRow = getTileIndex(top);
+    int lastRow = getTileIndex(bottom - 1);
+    releaseTilesOutside(firstColumn, firstRow, lastColumn, lastRow);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        Tile tile = getTile(column, row);
+        if (tile.isDirty) {
+          render(tile);
+        }
+        canvas.drawBitmap(tile.bitmap, column * tileSize, row * tileSize, null);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the tiles intersecting the rectangle passed as argument, in content coordinates,
+   * to render them again the next time they are drawn.
+   */
+  void invalidate(float left, float top, float right, float bottom) {
+    int firstColumn = getTileIndex(left);
+    int lastColumn = getTileIndex(right);
+    int firstRow = getTileIndex(top);
+    int lastRow = getTileIndex(bottom);
+    for (int i = 0; i < tiles.size(); i++) {
+      Tile tile = tiles.get(i);
+      if (tile.isInside(firstColumn, firstRow, lastColumn, lastRow)) {
+        tile.isDirty = true;
+      }
+    }
+  }
+
+  /**
+   * Invalidates every tile to render them again the next time they are drawn.
+   */
+  void invalidateAll() {
+    for (int i = 0; i < tiles.size(); i++) {
+      tiles.get(i).isDirty = true;
+    }
+  }
+
+  /**
+   * Recycles the bitmap of every tile, the ones being drawn and the ones in the pool.
+   */
+  void release() {
+    pool.addAll(tiles);
+    tiles.clear();
+    for (int i = 0; i < pool.size(); i++) {
+      pool.get(i).bitmap.recycle();
+    }
+    pool.clear();
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of tiles being drawn.
+   */
+  int getNumberOfTiles() {
+    return tiles.size();
+  }
+
+  /**
+   * Method created for testing purposes. Returns the number of tiles in the pool.
+   */
+  int getNumberOfPooledTiles() {
+    return pool.size();
+  }
+
+  private void render(Tile tile) {
+    int left = tile.column * tileSize;
+    int top = tile.row * tileSize;
+    tile.bitmap.eraseColor(Color.TRANSPARENT);
+    tileCanvas.setBitmap(tile.bitmap);
+    tileCanvas.save();
+    tileCanvas.translate(-left, -top);
+    renderer.render(tileCanvas, left, top, left + tileSize, top + tileSize);
+    tileCanvas.restore();
+    tile.isDirty = false;
+  }
+
+  /**
+   * Returns the tile drawn at the column and row passed as argument. If the tile is not being
+   * drawn, a tile from the pool or a new one if the pool is empty is used.
+   */
+  private Tile getTile(int column, int row) {
+    for (int i = 0; i < tiles.size(); i++) {
+      Tile tile = tiles.get(i);
+      if (tile.column == column && tile.row == row) {
+        return tile;
+      }
+    }
+    Tile tile;
+    if (pool.isEmpty()) {
+      tile = new Tile(Bitmap.createBitmap(tileSize, tileSize, Bitmap.Config.ARGB_8888));
+    } else {
+      tile = pool.remove(pool.size() - 1);
+    }
+    tile.column = column;
+    tile.row = row;
+    tile.isDirty = true;
+    tiles.add(tile);
+    return tile;
+  }
+
+  private void releaseTilesOutside(int firstColumn, int firstRow, int lastColumn, int lastRow) {
+    for (int i = tiles.size() - 1; i >= 0; i--) {
+      Tile tile = tiles.get(i);
+      if (!tile.isInside(firstColumn, firstRow, lastColumn, lastRow)) {
+        pool.add(tiles.remove(i));
+      }
+    }
+  }
+
+  private int getTileIndex(float coordinate) {
+    return (int) Math.floor(coordinate / tileSize);
+  }
+
+  /**
+   * Square area of the NoxView content rendered into a bitmap.
+   */
+  private static class Tile {
+
+    private final Bitmap bitmap;
+    private int column;
+    private int row;
+    private boolean isDirty;
+
+    Tile(Bitmap bitmap) {
+      this.bitmap = bitmap;
+    }
+
+    boolean isInside(int firstColumn, int firstRow, int lastColumn, int lastRow) {
+      return column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow;
+    }
+  }
+
+  /**
+   * Draws the NoxItem instances intersecting a tile. The canvas passed as argument is translated,
+   * so NoxItem instances have to be drawn using content coordinates.
+   */
+  interface Renderer {
+
+    void render(Canvas canvas, int left, int top, int right, int bottom);
+  }
+}
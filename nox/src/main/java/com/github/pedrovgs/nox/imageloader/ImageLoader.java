@@ -55,6 +55,18 @@ public interface ImageLoader {
    */
   ImageLoader size(int size);
 
+  /**
+   * Configures the Bitmap.Config used to decode the external resource. If null or not configured,
+   * the default one is used.
+   */
+  ImageLoader config(Bitmap.Config config);
+
+  /**
+   * Configures if the image loaded is stored in the ImageLoader memory cache. Images are stored by
+   * default.
+   */
+  ImageLoader useMemoryCache(boolean useMemoryCache);
+
   /**
    * Configures a listener where the ImageLoader will notify once the resource be loaded. This
    * method has to be called to start the resource download. The listener used can't be null.
@@ -76,6 +88,12 @@ public interface ImageLoader {
    */
   void cancelPendingRequests();
 
+  /**
+   * Cancels the pending request to download a resource previously configured with the listener
+   * passed as argument. The listener will not be notified once the request is cancelled.
+   */
+  void cancel(Listener listener);
+
   /**
    * Declares some methods which will be called during the resource download process implemented by
    * the ImageLoader. Use this interface to be notified when the placeholder and the final resource
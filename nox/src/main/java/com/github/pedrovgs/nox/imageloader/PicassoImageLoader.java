@@ -18,8 +18,10 @@ package com.github.pedrovgs.nox.imageloader;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import com.github.pedrovgs.nox.imageloader.transformation.CircleTransformation;
+import com.squareup.picasso.MemoryPolicy;
 import com.squareup.picasso.Picasso;
 import com.squareup.picasso.RequestCreator;
 import com.squareup.picasso.Transformation;
@@ -45,9 +47,12 @@ class PicassoImageLoader implements ImageLoader {
   private Integer placeholderId;
   private boolean useCircularTransformation;
   private int size;
+  private Bitmap.Config config;
+  private boolean useMemoryCache = true;
   private Listener listener;
   private final Map<Listener, ListenerTarget> targets;
-  private List<Transformation> transformations;
+  private List<Transformation> noTransformations;
+  private List<Transformation> circularTransformations;
 
   PicassoImageLoader(Context context) {
     this.context = context;
@@ -80,6 +85,16 @@ class PicassoImageLoader implements ImageLoader {
     return this;
   }
 
+  @Override public ImageLoader config(Bitmap.Config config) {
+    this.config = config;
+    return this;
+  }
+
+  @Override public ImageLoader useMemoryCache(boolean useMemoryCache) {
+    this.useMemoryCache = useMemoryCache;
+    return this;
+  }
+
   @Override public void notify(Listener listener) {
     validateListener(listener);
     this.listener = listener;
@@ -98,6 +113,13 @@ class PicassoImageLoader implements ImageLoader {
     Picasso.with(context).cancelTag(PICASSO_IMAGE_LOADER_TAG);
   }
 
+  @Override public void cancel(Listener listener) {
+    ListenerTarget target = targets.get(listener);
+    if (target != null) {
+      Picasso.with(context).cancelRequest(target);
+    }
+  }
+
   /**
    * Uses the configuration previously applied using this ImageLoader builder to download a
    * resource asynchronously and notify the result to the listener.
@@ -110,7 +132,7 @@ class PicassoImageLoader implements ImageLoader {
     ListenerTarget listenerTarget = getLinearTarget(listener);
     if (hasUrl) {
       RequestCreator bitmapRequest = Picasso.with(context).load(url).tag(PICASSO_IMAGE_LOADER_TAG);
-      applyPlaceholder(bitmapRequest).resize(size, size)
+      applyMemoryPolicy(applyConfig(applyPlaceholder(bitmapRequest))).resize(size, size)
           .transform(transformations)
           .into(listenerTarget);
     } else if (hasResourceId || hasPlaceholder) {
@@ -156,19 +178,38 @@ class PicassoImageLoader implements ImageLoader {
     return bitmapRequest;
   }
 
+  private RequestCreator applyConfig(RequestCreator bitmapRequest) {
+    if (config != null) {
+      bitmapRequest.config(config);
+    }
+    return bitmapRequest;
+  }
+
+  private RequestCreator applyMemoryPolicy(RequestCreator bitmapRequest) {
+    if (!useMemoryCache) {
+      bitmapRequest.memoryPolicy(MemoryPolicy.NO_STORE);
+    }
+    return bitmapRequest;
+  }
+
   /**
-   * Lazy instantiation of the list of transformations used during the image download. This method
-   * returns a List<Transformation> because Picasso doesn't support a null instance as
-   * transformation.
+   * Returns the list of transformations used during the image download based on the circular
+   * transformation configured for the current request. Both lists are lazily created once and
+   * reused by every request. This method returns a List<Transformation> because Picasso doesn't
+   * support a null instance as transformation.
    */
   private List<Transformation> getTransformations() {
-    if (transformations == null) {
-      transformations = new LinkedList<Transformation>();
-      if (useCircularTransformation) {
-        transformations.add(new CircleTransformation());
+    if (useCircularTransformation) {
+      if (circularTransformations == null) {
+        circularTransformations = new LinkedList<Transformation>();
+        circularTransformations.add(new CircleTransformation());
       }
+      return circularTransformations;
+    }
+    if (noTransformations == null) {
+      noTransformations = new LinkedList<Transformation>();
     }
-    return transformations;
+    return noTransformations;
   }
 
   private void validateListener(Listener listener) {
@@ -17,41 +17,137 @@
 package com.github.pedrovgs.nox.imageloader.transformation;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.os.Build;
 import com.squareup.picasso.Transformation;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Picasso Transformation implementation created to transform the source bitmap into a circular
  * bitmap.
  *
+ * NoxItem images are loaded with a few different sizes, like the full size image and its preview,
+ * so an anti-aliased circular alpha mask is rendered once per size and applied to every image
+ * using PorterDuff DST_IN. The masks of the last sizes used are kept. Square and mutable ARGB_8888
+ * source bitmaps are masked in place, so no bitmap is created. Any other source is copied once
+ * into a new square output bitmap, without creating an intermediate squared bitmap. The Canvas,
+ * Paint and Rect instances used are reused, so this is the only object allocated per
+ * transformation. Output bitmaps are not taken from a pool because Picasso keeps them in its
+ * memory cache and shares them between requests once returned.
+ *
+ * Picasso transforms bitmaps in different worker threads at the same time. Masks are never
+ * modified once rendered, so they are shared between threads, but every thread uses its own
+ * Canvas, Paint and Rect instances. The Canvas is detached from the bitmap transformed before
+ * returning it, so it doesn't keep the last bitmap transformed by every thread in memory.
+ *
  * @author Pedro Vicente Gomez Sanchez
  */
 public class CircleTransformation implements Transformation {
 
+  private static final int MAX_NUMBER_OF_MASKS = 4;
+
+  private final ThreadLocal<TransformationState> states = new ThreadLocal<TransformationState>() {
+    @Override protected TransformationState initialValue() {
+      return new TransformationState();
+    }
+  };
+  private final AtomicReferenceArray<Bitmap> masks =
+      new AtomicReferenceArray<Bitmap>(MAX_NUMBER_OF_MASKS);
+  private final AtomicInteger nextMaskIndex = new AtomicInteger();
+
   @Override public Bitmap transform(Bitmap source) {
+    TransformationState state = states.get();
+    Canvas canvas = state.canvas;
     int size = Math.min(source.getWidth(), source.getHeight());
-    int x = (source.getWidth() - size) / 2;
-    int y = (source.getHeight() - size) / 2;
-    Bitmap squaredBitmap = Bitmap.createBitmap(source, x, y, size, size);
-    if (squaredBitmap != source) {
+    Bitmap bitmap;
+    if (canBeMaskedInPlace(source)) {
+      bitmap = source;
+    } else {
+      bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+      int x = (source.getWidth() - size) / 2;
+      int y = (source.getHeight() - size) / 2;
+      state.srcBounds.set(x, y, x + size, y + size);
+      state.dstBounds.set(0, 0, size, size);
+      canvas.setBitmap(bitmap);
+      canvas.drawBitmap(source, state.srcBounds, state.dstBounds, state.paint);
       source.recycle();
     }
-    Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-    Canvas canvas = new Canvas(bitmap);
-    Paint paint = new Paint();
-    BitmapShader shader =
-        new BitmapShader(squaredBitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP);
-    paint.setShader(shader);
-    paint.setAntiAlias(true);
-    float r = size / 2f;
-    canvas.drawCircle(r, r, r, paint);
-    squaredBitmap.recycle();
+    canvas.setBitmap(bitmap);
+    canvas.drawBitmap(getMask(size), 0, 0, state.maskPaint);
+    detachBitmap(canvas);
     return bitmap;
   }
 
   @Override public String key() {
     return "Circle_Transformation";
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns true if the mask can be applied directly over the source bitmap because it is already
+   * a square bitmap with an alpha channel which can be modified.
+   */
+  private boolean canBeMaskedInPlace(Bitmap source) {
+    return source.isMutable()
+        && source.getWidth() == source.getHeight()
+        && source.getConfig() == Bitmap.Config.ARGB_8888;
+  }
+
+  /**
+   * Detaches the bitmap drawn from the Canvas passed as argument. Canvas doesn't accept a null
+   * bitmap before Honeycomb, so the Canvas keeps the last bitmap in older versions.
+   */
+  private void detachBitmap(Canvas canvas) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+      canvas.setBitmap(null);
+    }
+  }
+
+  /**
+   * Returns the anti-aliased circular alpha mask for the size passed as argument. Masks are
+   * rendered once per size and looked up without acquiring any lock. Once MAX_NUMBER_OF_MASKS
+   * sizes have been used, the new masks replace the oldest ones. Replaced masks are not recycled
+   * because other threads could be still drawing them.
+   */
+  Bitmap getMask(int size) {
+    for (int i = 0; i < MAX_NUMBER_OF_MASKS; i++) {
+      Bitmap mask = masks.get(i);
+      if (mask != null && mask.getWidth() == size) {
+        return mask;
+      }
+    }
+    Bitmap mask = createMask(size);
+    int index = (nextMaskIndex.getAndIncrement() & Integer.MAX_VALUE) % MAX_NUMBER_OF_MASKS;
+    masks.set(index, mask);
+    return mask;
+  }
+
+  private Bitmap createMask(int size) {
+    Bitmap mask = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+    Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    float radius = size / 2f;
+    Canvas canvas = new Canvas(mask);
+    canvas.drawCircle(radius, radius, radius, circlePaint);
+    return mask;
+  }
+
+  /**
+   * Canvas, Paint and Rect instances used by one thread to transform bitmaps.
+   */
+  private static class TransformationState {
+
+    private final Canvas canvas = new Canvas();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint maskPaint = new Paint();
+    private final Rect srcBounds = new Rect();
+    private final Rect dstBounds = new Rect();
+
+    TransformationState() {
+      maskPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
+    }
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.github.pedrovgs.nox.shape;
 
+import java.util.Arrays;
+
 /**
  * Circular Shape implementation used to place NoxItem objects in a circle inside NoxView starting
  * from the center of the view. NoxItem instances in this Shape will have the same size and the
@@ -28,6 +30,13 @@ class CircularShape extends Shape {
 
   private static final double RAD = Math.PI / 180;
   private static final int BASE = 6;
+  private static final double HALF_DIAGONAL = 0.7072;
+  private static final float TOLERANCE = 1;
+
+  private int[] ringFirstItems = new int[0];
+  private int[] ringSizes = new int[0];
+  private float[] ringRadii = new float[0];
+  private int numberOfRings;
 
   CircularShape(ShapeConfig shapeConfig) {
     super(shapeConfig);
@@ -38,15 +47,212 @@ class CircularShape extends Shape {
     int numberOfItems = pc.getNumberOfElements();
     final float centerX = getCenterX();
     final float centerY = getCenterY();
-    float radius = getDistance();
-    int item = 0;
-    int iteration = 0;
-    while (item < numberOfItems) {
-      int numberOfElementsPerIteration =
-          calculatePositionsForIteration(item, radius, iteration, centerX, centerY);
-      item += numberOfElementsPerIteration;
-      iteration++;
+    boolean isCalculatingLazily = startLazyCalculation();
+    if (isCalculatingLazily) {
+      numberOfRings = 0;
+    }
+    int firstPosition = isCalculatingLazily ? 0
+        : Math.min(getFirstItemAfterRings(), startIncrementalCalculation());
+    float maxRingRadius = calculateRings();
+    if (isCalculatingLazily) {
+      updateBoundaries(centerX - maxRingRadius, centerX + maxRingRadius, centerY - maxRingRadius,
+          centerY + maxRingRadius);
+    } else if (!calculatePositionsInParallel(firstPosition)) {
+      calculatePositionsInRange(firstPosition, numberOfItems);
+    }
+  }
+
+  /**
+   * Calculates the circle levels again because they are not part of the persisted layout.
+   */
+  @Override protected void onLayoutRestored() {
+    numberOfRings = 0;
+    calculateRings();
+  }
+
+  @Override protected boolean isLazyCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isIncrementalCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isParallelCalculationSupported() {
+    return true;
+  }
+
+  /**
+   * Calculates the positions of every NoxItem inside the circle level containing the position
+   * passed as argument.
+   */
+  @Override protected void calculatePositionsAround(int position) {
+    int ring = getRing(position);
+    int firstItem = ringFirstItems[ring];
+    calculatePositionsForRing(ring, firstItem, firstItem + ringSizes[ring], getCenterX(),
+        getCenterY());
+  }
+
+  /**
+   * Calculates the positions between the first position, inclusive, and the last one, exclusive,
+   * using the circle levels calculated previously. Every circle level is independent once its
+   * first position and radius are known, so ranges can be calculated in parallel.
+   */
+  @Override protected void calculatePositionsInRange(int firstPosition, int lastPosition) {
+    float centerX = getCenterX();
+    float centerY = getCenterY();
+    int position = firstPosition;
+    int ring = getRing(firstPosition);
+    while (position < lastPosition) {
+      int lastPositionInRing = Math.min(ringFirstItems[ring] + ringSizes[ring], lastPosition);
+      calculatePositionsForRing(ring, position, lastPositionInRing, centerX, centerY);
+      position = lastPositionInRing;
+      ring++;
+    }
+  }
+
+  /**
+   * Calculates the circle levels placed between the minimum and the maximum distance from the
+   * center of the shape to the rectangle passed as argument.
+   */
+  @Override protected void calculatePositionsInsideRect(float left, float top, float right,
+      float bottom) {
+    if (numberOfRings == 0) {
+      super.calculatePositionsInsideRect(left, top, right, bottom);
+      return;
+    }
+
+    float centerX = getCenterX();
+    float centerY = getCenterY();
+    double minDistance = getMinDistanceToRect(centerX, centerY, left - TOLERANCE, top - TOLERANCE,
+        right + TOLERANCE, bottom + TOLERANCE);
+    double maxDistance = getMaxDistanceToRect(centerX, centerY, left - TOLERANCE, top - TOLERANCE,
+        right + TOLERANCE, bottom + TOLERANCE);
+    for (int ring = 0; ring < numberOfRings; ring++) {
+      float ringRadius = ringRadii[ring];
+      if (ringRadius + TOLERANCE >= minDistance && ringRadius - TOLERANCE <= maxDistance) {
+        calculatePositionIfNeeded(ringFirstItems[ring]);
+      }
+    }
+  }
+
+  /**
+   * Returns the NoxItem instances inside the view checking circle levels instead of NoxItem
+   * instances. Circle levels not intersecting the view are discarded, circle levels completely
+   * inside the view are added without checking their NoxItem instances and, for the rest of the
+   * circle levels, just the NoxItem instances inside the angle covered by the view are checked.
+   */
+  @Override public int getItemsInsideView(int[] out) {
+    if (numberOfRings == 0) {
+      return super.getItemsInsideView(out);
+    }
+
+    ShapeConfig pc = getShapeConfig();
+    float itemSize = pc.getItemSize();
+    float left = -itemSize / 2;
+    float top = -itemSize / 2;
+    float right = pc.getViewWidth() + itemSize / 2;
+    float bottom = pc.getViewHeight() + itemSize / 2;
+    float centerX = getCenterX() + itemSize / 2 + getOffsetX();
+    float centerY = getCenterY() + itemSize / 2 + getOffsetY();
+    double minDistance = getMinDistanceToRect(centerX, centerY, left - TOLERANCE, top - TOLERANCE,
+        right + TOLERANCE, bottom + TOLERANCE);
+    double maxDistance = getMaxDistanceToRect(centerX, centerY, left - TOLERANCE, top - TOLERANCE,
+        right + TOLERANCE, bottom + TOLERANCE);
+    double minDistanceToBorder = Math.min(Math.min(centerX - left, right - centerX),
+        Math.min(centerY - top, bottom - centerY)) - TOLERANCE;
+
+    int count = 0;
+    for (int ring = 0; ring < numberOfRings; ring++) {
+      float ringRadius = ringRadii[ring];
+      if (ringRadius + TOLERANCE < minDistance || ringRadius - TOLERANCE > maxDistance) {
+        continue;
+      }
+      int firstItem = ringFirstItems[ring];
+      int ringSize = ringSizes[ring];
+      if (ringRadius + TOLERANCE <= minDistanceToBorder) {
+        for (int position = firstItem; position < firstItem + ringSize; position++) {
+          count = addItemInsideView(out, count, position);
+        }
+      } else {
+        count = addItemsInsideViewInRing(out, count, ring, centerX, centerY, left - TOLERANCE,
+            top - TOLERANCE, right + TOLERANCE, bottom + TOLERANCE);
+      }
+    }
+    Arrays.sort(out, 0, Math.min(count, out.length));
+    return count;
+  }
+
+  /**
+   * Discards the circle levels containing positions not kept from the previous calculation. The
+   * circle level containing the last position kept is discarded too because the number of NoxItem
+   * instances in the last circle level depends on the number of elements. Discarded circle levels
+   * will be calculated again with the new number of elements once calculate() is invoked.
+   */
+  @Override public void setNumberOfElements(int numberOfElements) {
+    super.setNumberOfElements(numberOfElements);
+    int numberOfCalculatedElements = getNumberOfCalculatedElements();
+    numberOfRings = numberOfCalculatedElements == 0 ? 0 : getRing(numberOfCalculatedElements - 1);
+  }
+
+  /**
+   * Returns the number of circle levels calculated.
+   */
+  int getNumberOfRings() {
+    return numberOfRings;
+  }
+
+  /**
+   * Returns the position of the first NoxItem inside a circle level.
+   */
+  int getRingFirstItem(int ring) {
+    return ringFirstItems[ring];
+  }
+
+  /**
+   * Returns the number of NoxItem instances inside a circle level.
+   */
+  int getRingSize(int ring) {
+    return ringSizes[ring];
+  }
+
+  /**
+   * Returns the distance between the center of the shape and the center of the NoxItem instances
+   * inside a circle level.
+   */
+  float getRingRadius(int ring) {
+    return ringRadii[ring];
+  }
+
+  /**
+   * Calculates the NoxItem hit using the polar coordinates of the point passed as argument. The
+   * distance to the center of the shape is used to find the circle levels the point can be in and
+   * the angle to find the NoxItem instances inside these circle levels close to the point.
+   */
+  @Override public int getNoxItemHit(float x, float y) {
+    float distance = getDistance();
+    if (numberOfRings == 0 || distance <= 0) {
+      return super.getNoxItemHit(x, y);
+    }
+
+    float itemSize = getShapeConfig().getItemSize();
+    double dx = x - getOffsetX() - getCenterX() - itemSize / 2;
+    double dy = y - getOffsetY() - getCenterY() - itemSize / 2;
+    double distanceToCenter = Math.sqrt(dx * dx + dy * dy);
+    double maxDistanceToItemCenter = itemSize * HALF_DIAGONAL + 1;
+    double angle = Math.atan2(dx, dy);
+    int firstRing =
+        (int) Math.max(0, Math.floor((distanceToCenter - maxDistanceToItemCenter) / distance));
+    int lastRing = (int) Math.min(numberOfRings - 1,
+        Math.ceil((distanceToCenter + maxDistanceToItemCenter) / distance));
+    for (int ring = firstRing; ring <= lastRing; ring++) {
+      int noxItemHit =
+          getNoxItemHitInRing(ring, x, y, angle, distanceToCenter, maxDistanceToItemCenter);
+      if (noxItemHit >= 0) {
+        return noxItemHit;
+      }
     }
+    return getNoxItemHitInLastRingIfCentered(lastRing, x, y);
   }
 
   protected int getNumberOfElementsPerIteration(int item, int iteration) {
@@ -56,6 +262,173 @@ class CircularShape extends Shape {
     return numberOfElementsPerIteration;
   }
 
+  /**
+   * Adds the NoxItem instances of a circle level partially inside the view. If the center of the
+   * shape is outside the view, the view covers less than half of the circle and just the NoxItem
+   * instances inside the angle covered by the view corners are checked.
+   */
+  private int addItemsInsideViewInRing(int[] out, int count, int ring, float centerX,
+      float centerY, float left, float top, float right, float bottom) {
+    int firstItem = ringFirstItems[ring];
+    int ringSize = ringSizes[ring];
+    float ringRadius = ringRadii[ring];
+    int firstSlot = 0;
+    int lastSlot = ringSize - 1;
+    boolean isCenterInsideView =
+        centerX >= left && centerX <= right && centerY >= top && centerY <= bottom;
+    if (!isCenterInsideView && ringRadius > TOLERANCE) {
+      double viewAngle = Math.atan2((left + right) / 2 - centerX, (top + bottom) / 2 - centerY);
+      double angleToTopLeft = getAngleToCorner(centerX, centerY, left, top, viewAngle);
+      double angleToTopRight = getAngleToCorner(centerX, centerY, right, top, viewAngle);
+      double angleToBottomLeft = getAngleToCorner(centerX, centerY, left, bottom, viewAngle);
+      double angleToBottomRight = getAngleToCorner(centerX, centerY, right, bottom, viewAngle);
+      double minAngle = Math.min(Math.min(angleToTopLeft, angleToTopRight),
+          Math.min(angleToBottomLeft, angleToBottomRight));
+      double maxAngle = Math.max(Math.max(angleToTopLeft, angleToTopRight),
+          Math.max(angleToBottomLeft, angleToBottomRight));
+      double tolerance = Math.asin(Math.min(1, TOLERANCE / ringRadius));
+      double angleBetweenItems = RAD * 360 / ringSize;
+      firstSlot = (int) Math.floor((viewAngle + minAngle - tolerance) / angleBetweenItems);
+      lastSlot = (int) Math.ceil((viewAngle + maxAngle + tolerance) / angleBetweenItems);
+      if (lastSlot - firstSlot + 1 >= ringSize) {
+        firstSlot = 0;
+        lastSlot = ringSize - 1;
+      }
+    }
+    for (int slot = firstSlot; slot <= lastSlot; slot++) {
+      int position = firstItem + ((slot % ringSize) + ringSize) % ringSize;
+      if (isItemInsideView(position)) {
+        count = addItemInsideView(out, count, position);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the angle between the view center and a view corner seen from the center of the shape
+   * normalized between -PI and PI.
+   */
+  private static double getAngleToCorner(float centerX, float centerY, float cornerX,
+      float cornerY, double viewAngle) {
+    double angle = Math.atan2(cornerX - centerX, cornerY - centerY) - viewAngle;
+    return Math.atan2(Math.sin(angle), Math.cos(angle));
+  }
+
+  private static double getMinDistanceToRect(float x, float y, float left, float top,
+      float right, float bottom) {
+    double dx = Math.max(Math.max(left - x, 0), x - right);
+    double dy = Math.max(Math.max(top - y, 0), y - bottom);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  private static double getMaxDistanceToRect(float x, float y, float left, float top,
+      float right, float bottom) {
+    double dx = Math.max(Math.abs(x - left), Math.abs(x - right));
+    double dy = Math.max(Math.abs(y - top), Math.abs(y - bottom));
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * Returns the lowest NoxItem position hit inside a circle level checking just the NoxItem
+   * instances whose angle is close to the angle of the point passed as argument.
+   */
+  private int getNoxItemHitInRing(int ring, float x, float y, double angle,
+      double distanceToCenter, double maxDistanceToItemCenter) {
+    int firstItem = ringFirstItems[ring];
+    int ringSize = ringSizes[ring];
+    double angleBetweenItems = RAD * 360 / ringSize;
+    double maxAngleToItemCenter = Math.PI;
+    if (distanceToCenter > maxDistanceToItemCenter) {
+      maxAngleToItemCenter = Math.asin(maxDistanceToItemCenter / distanceToCenter);
+    }
+    int firstSlot = (int) Math.floor((angle - maxAngleToItemCenter) / angleBetweenItems);
+    int lastSlot = (int) Math.ceil((angle + maxAngleToItemCenter) / angleBetweenItems);
+    if (lastSlot - firstSlot + 1 >= ringSize) {
+      firstSlot = 0;
+      lastSlot = ringSize - 1;
+    }
+    int noxItemHit = -1;
+    for (int slot = firstSlot; slot <= lastSlot; slot++) {
+      int position = firstItem + ((slot % ringSize) + ringSize) % ringSize;
+      boolean isFirstHit = noxItemHit == -1 || position < noxItemHit;
+      if (isFirstHit && isNoxItemHit(position, x, y)) {
+        noxItemHit = position;
+      }
+    }
+    return noxItemHit;
+  }
+
+  /**
+   * A last circle level with just one NoxItem is placed in the center of the view instead of
+   * following the circle. This NoxItem has to be checked if it was not checked before.
+   */
+  private int getNoxItemHitInLastRingIfCentered(int lastCheckedRing, float x, float y) {
+    int lastRing = numberOfRings - 1;
+    boolean isLastRingCentered = lastRing > 0 && ringSizes[lastRing] == 1;
+    if (isLastRingCentered && lastCheckedRing < lastRing) {
+      int position = ringFirstItems[lastRing];
+      if (isNoxItemHit(position, x, y)) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Stores the first NoxItem position, the number of NoxItem instances and the radius of a circle
+   * level.
+   */
+  private void addRing(int firstItem, int ringSize, float ringRadius) {
+    if (numberOfRings == ringFirstItems.length) {
+      int capacity = Math.max(1, numberOfRings * 2);
+      int[] newRingFirstItems = new int[capacity];
+      int[] newRingSizes = new int[capacity];
+      float[] newRingRadii = new float[capacity];
+      System.arraycopy(ringFirstItems, 0, newRingFirstItems, 0, numberOfRings);
+      System.arraycopy(ringSizes, 0, newRingSizes, 0, numberOfRings);
+      System.arraycopy(ringRadii, 0, newRingRadii, 0, numberOfRings);
+      ringFirstItems = newRingFirstItems;
+      ringSizes = newRingSizes;
+      ringRadii = newRingRadii;
+    }
+    ringFirstItems[numberOfRings] = firstItem;
+    ringSizes[numberOfRings] = ringSize;
+    ringRadii[numberOfRings] = ringRadius;
+    numberOfRings++;
+  }
+
+  /**
+   * Calculates the first position, size and radius of the circle levels after the ones calculated
+   * previously. Returns the radius of the biggest circle level calculated.
+   */
+  private float calculateRings() {
+    int numberOfItems = getShapeConfig().getNumberOfElements();
+    float radius = getDistance();
+    float maxRingRadius = 0;
+    int item = getFirstItemAfterRings();
+    int iteration = numberOfRings;
+    while (item < numberOfItems) {
+      int numberOfElementsPerIteration = getNumberOfElementsPerIteration(item, iteration);
+      float ringRadius = numberOfElementsPerIteration == 1 ? 0 : radius * iteration;
+      addRing(item, numberOfElementsPerIteration, ringRadius);
+      maxRingRadius = Math.max(maxRingRadius, ringRadius);
+      item += numberOfElementsPerIteration;
+      iteration++;
+    }
+    return maxRingRadius;
+  }
+
+  /**
+   * Returns the position of the first NoxItem not contained in the circle levels calculated.
+   */
+  private int getFirstItemAfterRings() {
+    if (numberOfRings == 0) {
+      return 0;
+    }
+    int lastRing = numberOfRings - 1;
+    return ringFirstItems[lastRing] + ringSizes[lastRing];
+  }
+
   private float getCenterY() {
     ShapeConfig pc = getShapeConfig();
     return pc.getViewHeight() / 2 - pc.getItemSize() / 2 - pc.getItemMargin() / 2;
@@ -71,27 +444,50 @@ class CircularShape extends Shape {
     return pc.getItemSize() + pc.getItemMargin();
   }
 
-  private int calculatePositionsForIteration(int item, float radius, int iteration, float centerX,
-      float centerY) {
-    int numberOfElementsPerIteration = getNumberOfElementsPerIteration(item, iteration);
+  /**
+   * Returns the circle level containing the position passed as argument using a binary search
+   * over the first position of every circle level.
+   */
+  private int getRing(int position) {
+    int low = 0;
+    int high = numberOfRings - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (ringFirstItems[middle] <= position) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Calculates the positions of a circle level between the first position, inclusive, and the
+   * last one, exclusive. The angle of every NoxItem is obtained using a RotationKernel instead of
+   * calculating the sine and cosine of every angle.
+   */
+  private void calculatePositionsForRing(int ring, int firstPosition, int lastPosition,
+      float centerX, float centerY) {
+    int firstItem = ringFirstItems[ring];
+    int numberOfElementsPerIteration = ringSizes[ring];
     if (numberOfElementsPerIteration == 1) {
-      setNoxItemXPosition(item, centerX);
-      setNoxItemYPosition(item, centerY);
-      return 1;
+      setNoxItemXPosition(firstItem, centerX);
+      setNoxItemYPosition(firstItem, centerY);
+      return;
     }
 
-    float distance = radius * iteration;
+    float distance = ringRadii[ring];
     double fullCircleInRads = RAD * 360;
-    for (int i = 0; i < numberOfElementsPerIteration; i++) {
-      double angle = fullCircleInRads / numberOfElementsPerIteration * i;
-      double sin = Math.sin(angle);
-      double cos = Math.cos(angle);
-      float x = (float) (centerX + (sin * distance));
-      float y = (float) (centerY + (cos * distance));
+    RotationKernel rotationKernel = new RotationKernel();
+    rotationKernel.start(0, fullCircleInRads / numberOfElementsPerIteration,
+        firstPosition - firstItem);
+    for (int item = firstPosition; item < lastPosition; item++) {
+      float x = (float) (centerX + (rotationKernel.getSin() * distance));
+      float y = (float) (centerY + (rotationKernel.getCos() * distance));
       setNoxItemXPosition(item, x);
       setNoxItemYPosition(item, y);
-      item++;
+      rotationKernel.next();
     }
-    return numberOfElementsPerIteration;
   }
 }
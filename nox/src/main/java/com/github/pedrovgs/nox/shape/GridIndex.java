@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+/**
+ * Uniform grid used by Shape to index the position of every NoxItem calculated. The area covered
+ * by the Shape is split into square cells and every NoxItem is stored in the cell containing its
+ * top left corner, so the NoxItem instances inside a rectangle can be found visiting just the cells
+ * intersecting that rectangle instead of checking every NoxItem.
+ *
+ * Cells are stored in a compressed format: cellStarts[cell] points to the first NoxItem of a cell
+ * inside cellItems and cellStarts[cell + 1] to the first NoxItem of the next one.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class GridIndex {
+
+  private static final int MAX_CELLS_PER_ITEM = 4;
+
+  private float originX;
+  private float originY;
+  private float maxX;
+  private float maxY;
+  private float cellSize;
+  private int columns;
+  private int rows;
+  private int[] cellStarts = new int[1];
+  private int[] cellItems = new int[0];
+  private boolean isBuilt;
+
+  /**
+   * Returns true if the index has been built and no NoxItem position has changed since then.
+   */
+  boolean isBuilt() {
+    return isBuilt;
+  }
+
+  /**
+   * Marks the index as outdated. The index will be built again before the next query.
+   */
+  void invalidate() {
+    isBuilt = false;
+  }
+
+  /**
+   * Indexes the positions passed as argument. The cell size is never smaller than the minimum
+   * cell size passed as argument and grows for sparse shapes to keep the number of cells close to
+   * the number of NoxItem instances. If the indexed positions array is not null, just the
+   * positions marked as true are indexed, like the ones calculated so far by a Shape calculating
+   * positions on demand.
+   */
+  void build(float[] xPositions, float[] yPositions, int numberOfElements,
+      boolean[] indexedPositions, float minCellSize) {
+    columns = 0;
+    rows = 0;
+    isBuilt = true;
+    int numberOfIndexedElements =
+        calculateBounds(xPositions, yPositions, numberOfElements, indexedPositions);
+    if (numberOfIndexedElements == 0) {
+      cellStarts = new int[1];
+      cellItems = new int[0];
+      return;
+    }
+
+    calculateCellSize(numberOfIndexedElements, minCellSize);
+    fillCells(xPositions, yPositions, numberOfElements, indexedPositions,
+        numberOfIndexedElements);
+  }
+
+  /**
+   * Returns true if the rectangle passed as argument intersects the area covered by the index.
+   */
+  boolean intersects(float left, float top, float right, float bottom) {
+    return columns > 0 && right >= originX && left <= maxX && bottom >= originY && top <= maxY;
+  }
+
+  /**
+   * Returns the column containing the X coordinate passed as argument clamped to the grid bounds.
+   */
+  int getColumn(float x) {
+    return clamp((int) ((x - originX) / cellSize), columns);
+  }
+
+  /**
+   * Returns the row containing the Y coordinate passed as argument clamped to the grid bounds.
+   */
+  int getRow(float y) {
+    return clamp((int) ((y - originY) / cellSize), rows);
+  }
+
+  /**
+   * Returns the index of the first NoxItem stored in the cell passed as argument.
+   */
+  int getCellStart(int column, int row) {
+    return cellStarts[row * columns + column];
+  }
+
+  /**
+   * Returns the index after the last NoxItem stored in the cell passed as argument.
+   */
+  int getCellEnd(int column, int row) {
+    return cellStarts[row * columns + column + 1];
+  }
+
+  /**
+   * Returns the NoxItem position stored in the index passed as argument.
+   */
+  int getItem(int index) {
+    return cellItems[index];
+  }
+
+  /**
+   * Calculates the area covered by the positions indexed and returns the number of positions
+   * indexed.
+   */
+  private int calculateBounds(float[] xPositions, float[] yPositions, int numberOfElements,
+      boolean[] indexedPositions) {
+    int numberOfIndexedElements = 0;
+    for (int i = 0; i < numberOfElements; i++) {
+      if (!isIndexed(indexedPositions, i)) {
+        continue;
+      }
+      if (numberOfIndexedElements == 0) {
+        originX = xPositions[i];
+        originY = yPositions[i];
+        maxX = originX;
+        maxY = originY;
+      } else {
+        originX = Math.min(originX, xPositions[i]);
+        originY = Math.min(originY, yPositions[i]);
+        maxX = Math.max(maxX, xPositions[i]);
+        maxY = Math.max(maxY, yPositions[i]);
+      }
+      numberOfIndexedElements++;
+    }
+    return numberOfIndexedElements;
+  }
+
+  private void calculateCellSize(int numberOfElements, float minCellSize) {
+    float width = maxX - originX;
+    float height = maxY - originY;
+    float size = Math.max(minCellSize, 1);
+    double area = ((double) width + size) * ((double) height + size);
+    size = (float) Math.max(size, Math.sqrt(area / numberOfElements));
+    long maxCells = (long) MAX_CELLS_PER_ITEM * numberOfElements + 1;
+    while (getNumberOfCells(width, height, size) > maxCells) {
+      size *= 2;
+    }
+    cellSize = size;
+    columns = (int) (width / size) + 1;
+    rows = (int) (height / size) + 1;
+  }
+
+  private void fillCells(float[] xPositions, float[] yPositions, int numberOfElements,
+      boolean[] indexedPositions, int numberOfIndexedElements) {
+    int numberOfCells = columns * rows;
+    cellStarts = new int[numberOfCells + 1];
+    cellItems = new int[numberOfIndexedElements];
+    for (int i = 0; i < numberOfElements; i++) {
+      if (isIndexed(indexedPositions, i)) {
+        cellStarts[getCell(xPositions[i], yPositions[i]) + 1]++;
+      }
+    }
+    for (int cell = 0; cell < numberOfCells; cell++) {
+      cellStarts[cell + 1] += cellStarts[cell];
+    }
+    int[] nextItemInCell = new int[numberOfCells];
+    System.arraycopy(cellStarts, 0, nextItemInCell, 0, numberOfCells);
+    for (int i = 0; i < numberOfElements; i++) {
+      if (isIndexed(indexedPositions, i)) {
+        int cell = getCell(xPositions[i], yPositions[i]);
+        cellItems[nextItemInCell[cell]++] = i;
+      }
+    }
+  }
+
+  private int getCell(float x, float y) {
+    return getRow(y) * columns + getColumn(x);
+  }
+
+  private static boolean isIndexed(boolean[] indexedPositions, int position) {
+    return indexedPositions == null || indexedPositions[position];
+  }
+
+  private static long getNumberOfCells(float width, float height, float size) {
+    return ((long) (width / size) + 1) * ((long) (height / size) + 1);
+  }
+
+  private static int clamp(int value, int length) {
+    return Math.max(0, Math.min(value, length - 1));
+  }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import java.util.Arrays;
+
+/**
+ * Hexagonal Shape implementation used to place NoxItem objects in a honeycomb starting from the
+ * center of the view, like the Apple Watch main menu. NoxItem instances in this Shape will have
+ * the same size and every hexagonal level "k" will contain "6 * k" NoxItem instances around one
+ * element in the middle of the view.
+ *
+ * Every NoxItem is identified by its axial coordinates "q" and "r" in the hexagonal grid. The
+ * center of the NoxItem is placed at "q + r / 2" columns and "r" rows from the center of the
+ * view. Axial coordinates and NoxItem positions can be transformed into each other in closed
+ * form, so the NoxItem instances inside the view and the NoxItem hit are calculated from the
+ * grid cells covering the view or the point instead of checking every NoxItem.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class HexagonalShape extends Shape {
+
+  private static final double ROW_HEIGHT_RATIO = Math.sqrt(3) / 2;
+  private static final int NUMBER_OF_SIDES = 6;
+  private static final int[] CORNER_Q = { 1, 0, -1, -1, 0, 1 };
+  private static final int[] CORNER_R = { 0, 1, 1, 0, -1, -1 };
+  private static final int[] DIRECTION_Q = { -1, -1, 0, 1, 1, 0 };
+  private static final int[] DIRECTION_R = { 1, 0, -1, -1, 0, 1 };
+
+  HexagonalShape(ShapeConfig shapeConfig) {
+    super(shapeConfig);
+  }
+
+  @Override public void calculate() {
+    int numberOfItems = getShapeConfig().getNumberOfElements();
+    if (startLazyCalculation()) {
+      int lastLevel = numberOfItems == 0 ? 0 : getLevel(numberOfItems - 1);
+      float maxDistanceX = getDistance() * lastLevel;
+      float maxDistanceY = getRowHeight() * lastLevel;
+      updateBoundaries(getCenterX() - maxDistanceX, getCenterX() + maxDistanceX,
+          getCenterY() - maxDistanceY, getCenterY() + maxDistanceY);
+      return;
+    }
+    int firstPosition = startIncrementalCalculation();
+    if (!calculatePositionsInParallel(firstPosition)) {
+      calculatePositionsInRange(firstPosition, numberOfItems);
+    }
+  }
+
+  @Override protected boolean isLazyCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isIncrementalCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isParallelCalculationSupported() {
+    return true;
+  }
+
+  /**
+   * Calculates the chunk of positions containing the position passed as argument.
+   */
+  @Override protected void calculatePositionsAround(int position) {
+    int firstPosition = position - position % LAZY_CALCULATION_CHUNK_SIZE;
+    int lastPosition =
+        Math.min(firstPosition + LAZY_CALCULATION_CHUNK_SIZE, getNumberOfElements());
+    calculatePositionsInRange(firstPosition, lastPosition);
+  }
+
+  /**
+   * Calculates the positions between the first position, inclusive, and the last one, exclusive.
+   * The axial coordinates of the first position are calculated in closed form and the rest of
+   * them walking the sides of every hexagonal level.
+   */
+  @Override protected void calculatePositionsInRange(int firstPosition, int lastPosition) {
+    int position = firstPosition;
+    if (position == 0 && position < lastPosition) {
+      setPosition(0, 0, 0);
+      position++;
+    }
+    if (position >= lastPosition) {
+      return;
+    }
+
+    int level = getLevel(position);
+    int indexInLevel = position - getFirstPositionInLevel(level);
+    int side = indexInLevel / level;
+    int step = indexInLevel % level;
+    int q = CORNER_Q[side] * level + DIRECTION_Q[side] * step;
+    int r = CORNER_R[side] * level + DIRECTION_R[side] * step;
+    for (; position < lastPosition; position++) {
+      setPosition(position, q, r);
+      q += DIRECTION_Q[side];
+      r += DIRECTION_R[side];
+      step++;
+      if (step == level) {
+        step = 0;
+        side++;
+        if (side == NUMBER_OF_SIDES) {
+          side = 0;
+          level++;
+          q = level;
+          r = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Calculates the chunks of positions of the grid cells intersecting the rectangle passed as
+   * argument. Every cell is transformed into a NoxItem position in closed form.
+   */
+  @Override protected void calculatePositionsInsideRect(float left, float top, float right,
+      float bottom) {
+    int numberOfElements = getNumberOfElements();
+    if (numberOfElements == 0 || getDistance() <= 0) {
+      super.calculatePositionsInsideRect(left, top, right, bottom);
+      return;
+    }
+
+    float centerX = getCenterX();
+    float centerY = getCenterY();
+    int maxLevel = getLevel(numberOfElements - 1);
+    int lastRow = getLastRow(bottom - centerY, maxLevel);
+    for (int r = getFirstRow(top - centerY, maxLevel); r <= lastRow; r++) {
+      int lastColumn = getLastColumn(right - centerX, r, maxLevel);
+      for (int q = getFirstColumn(left - centerX, r, maxLevel); q <= lastColumn; q++) {
+        if (Math.abs(q + r) > maxLevel) {
+          continue;
+        }
+        int position = getPosition(q, r);
+        if (position < numberOfElements) {
+          calculatePositionIfNeeded(position);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the NoxItem instances inside the view visiting just the grid cells intersecting the
+   * view. Every cell is transformed into a NoxItem position in closed form.
+   */
+  @Override public int getItemsInsideView(int[] out) {
+    int numberOfElements = getNumberOfElements();
+    float distance = getDistance();
+    if (numberOfElements == 0 || distance <= 0) {
+      return super.getItemsInsideView(out);
+    }
+
+    ShapeConfig pc = getShapeConfig();
+    float itemSize = pc.getItemSize();
+    float left = -getOffsetX() - getCenterX() - itemSize;
+    float top = -getOffsetY() - getCenterY() - itemSize;
+    float right = pc.getViewWidth() - getOffsetX() - getCenterX();
+    float bottom = pc.getViewHeight() - getOffsetY() - getCenterY();
+    int maxLevel = getLevel(numberOfElements - 1);
+    int count = 0;
+    int lastRow = getLastRow(bottom, maxLevel);
+    for (int r = getFirstRow(top, maxLevel); r <= lastRow; r++) {
+      int lastColumn = getLastColumn(right, r, maxLevel);
+      for (int q = getFirstColumn(left, r, maxLevel); q <= lastColumn; q++) {
+        if (Math.abs(q + r) > maxLevel) {
+          continue;
+        }
+        int position = getPosition(q, r);
+        if (position < numberOfElements && isItemInsideView(position)) {
+          count = addItemInsideView(out, count, position);
+        }
+      }
+    }
+    Arrays.sort(out, 0, Math.min(count, out.length));
+    return count;
+  }
+
+  /**
+   * Calculates the NoxItem hit visiting just the grid cells around the point passed as argument.
+   */
+  @Override public int getNoxItemHit(float x, float y) {
+    int numberOfElements = getNumberOfElements();
+    float distance = getDistance();
+    if (numberOfElements == 0 || distance <= 0) {
+      return super.getNoxItemHit(x, y);
+    }
+
+    float itemSize = getShapeConfig().getItemSize();
+    float left = x - getOffsetX() - getCenterX() - itemSize;
+    float top = y - getOffsetY() - getCenterY() - itemSize;
+    float right = x - getOffsetX() - getCenterX();
+    float bottom = y - getOffsetY() - getCenterY();
+    int maxLevel = getLevel(numberOfElements - 1);
+    int noxItemHit = -1;
+    int lastRow = getLastRow(bottom, maxLevel);
+    for (int r = getFirstRow(top, maxLevel); r <= lastRow; r++) {
+      int lastColumn = getLastColumn(right, r, maxLevel);
+      for (int q = getFirstColumn(left, r, maxLevel); q <= lastColumn; q++) {
+        if (Math.abs(q + r) > maxLevel) {
+          continue;
+        }
+        int position = getPosition(q, r);
+        boolean isFirstHit = noxItemHit == -1 || position < noxItemHit;
+        if (position < numberOfElements && isFirstHit && isNoxItemHit(position, x, y)) {
+          noxItemHit = position;
+        }
+      }
+    }
+    return noxItemHit;
+  }
+
+  /**
+   * Returns the NoxItem position of the grid cell at the axial coordinates passed as argument.
+   * The hexagonal level of the cell is its distance to the center of the grid and the side of
+   * the level containing the cell is found checking which one of the level edges contains it.
+   */
+  static int getPosition(int q, int r) {
+    int s = -q - r;
+    int level = Math.max(Math.abs(q), Math.max(Math.abs(r), Math.abs(s)));
+    if (level == 0) {
+      return 0;
+    }
+    int side;
+    int step;
+    if (s == -level && r >= 0 && r < level) {
+      side = 0;
+      step = r;
+    } else if (r == level && q <= 0 && q > -level) {
+      side = 1;
+      step = -q;
+    } else if (q == -level && r > 0) {
+      side = 2;
+      step = level - r;
+    } else if (s == level && r <= 0 && r > -level) {
+      side = 3;
+      step = -r;
+    } else if (r == -level && q >= 0 && q < level) {
+      side = 4;
+      step = q;
+    } else {
+      side = 5;
+      step = r + level;
+    }
+    return getFirstPositionInLevel(level) + side * level + step;
+  }
+
+  /**
+   * Returns the hexagonal level containing the NoxItem position passed as argument. The level
+   * "k" starts at the position "1 + 3 * k * (k - 1)", so the level is the solution of a quadratic
+   * equation corrected to avoid rounding errors.
+   */
+  static int getLevel(int position) {
+    if (position == 0) {
+      return 0;
+    }
+    int level = (int) ((3 + Math.sqrt(12.0 * position - 3)) / 6);
+    while (getFirstPositionInLevel(level + 1) <= position) {
+      level++;
+    }
+    while (level > 1 && getFirstPositionInLevel(level) > position) {
+      level--;
+    }
+    return level;
+  }
+
+  private static int getFirstPositionInLevel(int level) {
+    return level == 0 ? 0 : (int) (1 + 3L * level * (level - 1));
+  }
+
+  /**
+   * Returns the first row, clamped to the grid, whose NoxItem top could be placed after the
+   * distance to the center passed as argument.
+   */
+  private int getFirstRow(float top, int maxLevel) {
+    return clamp(Math.floor(top / getRowHeight()) - 1, maxLevel);
+  }
+
+  /**
+   * Returns the last row, clamped to the grid, whose NoxItem top could be placed before the
+   * distance to the center passed as argument.
+   */
+  private int getLastRow(float bottom, int maxLevel) {
+    return clamp(Math.ceil(bottom / getRowHeight()) + 1, maxLevel);
+  }
+
+  /**
+   * Returns the first column of a row, clamped to the grid, whose NoxItem left could be placed
+   * after the distance to the center passed as argument.
+   */
+  private int getFirstColumn(float left, int r, int maxLevel) {
+    return clamp(Math.floor(left / getDistance() - r / 2f) - 1, maxLevel);
+  }
+
+  /**
+   * Returns the last column of a row, clamped to the grid, whose NoxItem left could be placed
+   * before the distance to the center passed as argument.
+   */
+  private int getLastColumn(float right, int r, int maxLevel) {
+    return clamp(Math.ceil(right / getDistance() - r / 2f) + 1, maxLevel);
+  }
+
+  private static int clamp(double value, int maxLevel) {
+    return (int) Math.max(-maxLevel, Math.min(maxLevel, value));
+  }
+
+  private void setPosition(int position, int q, int r) {
+    setNoxItemXPosition(position, getCenterX() + getDistance() * (q + r / 2f));
+    setNoxItemYPosition(position, getCenterY() + getRowHeight() * r);
+  }
+
+  private float getCenterX() {
+    ShapeConfig pc = getShapeConfig();
+    return pc.getViewWidth() / 2 - pc.getItemSize() / 2 - pc.getItemMargin() / 2;
+  }
+
+  private float getCenterY() {
+    ShapeConfig pc = getShapeConfig();
+    return pc.getViewHeight() / 2 - pc.getItemSize() / 2 - pc.getItemMargin() / 2;
+  }
+
+  private float getDistance() {
+    ShapeConfig pc = getShapeConfig();
+    return pc.getItemSize() + pc.getItemMargin();
+  }
+
+  private float getRowHeight() {
+    return (float) (getDistance() * ROW_HEIGHT_RATIO);
+  }
+}
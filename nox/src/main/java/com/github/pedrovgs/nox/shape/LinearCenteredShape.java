@@ -28,6 +28,14 @@ class LinearCenteredShape extends LinearShape {
     super(shapeConfig);
   }
 
+  /**
+   * Every NoxItem position depends on the number of NoxItem instances because the line is
+   * centered, so positions can't be calculated incrementally.
+   */
+  @Override protected boolean isIncrementalCalculationSupported() {
+    return false;
+  }
+
   @Override protected float getFirstItemLeftPosition() {
     float itemSize = getShapeConfig().getItemSize();
     float itemMargin = getShapeConfig().getItemMargin();
@@ -30,20 +30,122 @@ class LinearShape extends Shape {
 
   @Override public void calculate() {
     int numberOfItems = getShapeConfig().getNumberOfElements();
-    float height = (getShapeConfig().getViewHeight() / 2) - (getShapeConfig().getItemSize() / 2);
+    if (startLazyCalculation()) {
+      float height = getItemsTopPosition();
+      float firstItemLeftPosition = getFirstItemLeftPosition();
+      float lastItemLeftPosition = firstItemLeftPosition + (numberOfItems - 1) * getDistance();
+      updateBoundaries(Math.min(firstItemLeftPosition, lastItemLeftPosition),
+          Math.max(firstItemLeftPosition, lastItemLeftPosition), height, height);
+      return;
+    }
+    calculatePositions(startIncrementalCalculation(), numberOfItems);
+  }
+
+  @Override protected boolean isIncrementalCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isLazyCalculationSupported() {
+    return true;
+  }
+
+  /**
+   * Calculates the chunk of positions containing the position passed as argument.
+   */
+  @Override protected void calculatePositionsAround(int position) {
+    int firstPosition = position - position % LAZY_CALCULATION_CHUNK_SIZE;
+    int lastPosition =
+        Math.min(firstPosition + LAZY_CALCULATION_CHUNK_SIZE, getNumberOfElements());
+    calculatePositions(firstPosition, lastPosition);
+  }
+
+  /**
+   * Calculates the chunks of positions whose X position is inside the rectangle passed as
+   * argument using the distance between two consecutive NoxItem instances.
+   */
+  @Override protected void calculatePositionsInsideRect(float left, float top, float right,
+      float bottom) {
+    float distance = getDistance();
+    if (distance <= 0) {
+      super.calculatePositionsInsideRect(left, top, right, bottom);
+      return;
+    }
 
-    float itemWidth = getShapeConfig().getItemSize();
-    float viewMargin = getShapeConfig().getItemMargin();
-    float x = getFirstItemLeftPosition();
+    float firstItemLeftPosition = getFirstItemLeftPosition();
+    int firstCandidate = (int) Math.max(0, Math.floor((left - firstItemLeftPosition) / distance));
+    int lastCandidate = (int) Math.min(getNumberOfElements() - 1,
+        Math.ceil((right - firstItemLeftPosition) / distance));
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      calculatePositionIfNeeded(i);
+    }
+  }
+
+  /**
+   * Returns the NoxItem instances inside the view using the distance between two consecutive
+   * NoxItem instances to calculate the first and the last NoxItem inside the view.
+   */
+  @Override public int getItemsInsideView(int[] out) {
+    float distance = getDistance();
+    if (distance <= 0) {
+      return super.getItemsInsideView(out);
+    }
 
-    for (int i = 0; i < numberOfItems; i++) {
+    float itemSize = getShapeConfig().getItemSize();
+    float left = -getOffsetX() - itemSize - getFirstItemLeftPosition();
+    float right = getShapeConfig().getViewWidth() - getOffsetX() - getFirstItemLeftPosition();
+    int firstCandidate = (int) Math.max(0, Math.floor(left / distance) - 1);
+    int lastCandidate = (int) Math.min(getNumberOfElements() - 1, Math.ceil(right / distance) + 1);
+    int count = 0;
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      if (isItemInsideView(i)) {
+        count = addItemInsideView(out, count, i);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Calculates the NoxItem hit using the distance between two consecutive NoxItem instances. Just
+   * the NoxItem instances around the point passed as argument are checked.
+   */
+  @Override public int getNoxItemHit(float x, float y) {
+    float distance = getDistance();
+    if (distance <= 0) {
+      return super.getNoxItemHit(x, y);
+    }
+
+    float left = x - getOffsetX() - getFirstItemLeftPosition();
+    int candidate = (int) Math.floor(left / distance);
+    int firstCandidate = Math.max(0, candidate - 1);
+    int lastCandidate = Math.min(candidate + 1, getNumberOfElements() - 1);
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      if (isNoxItemHit(i, x, y)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void calculatePositions(int firstPosition, int lastPosition) {
+    float height = getItemsTopPosition();
+    float firstItemLeftPosition = getFirstItemLeftPosition();
+    float distance = getDistance();
+
+    for (int i = firstPosition; i < lastPosition; i++) {
       setNoxItemYPosition(i, height);
-      setNoxItemXPosition(i, x);
-      x += itemWidth + viewMargin;
+      setNoxItemXPosition(i, firstItemLeftPosition + i * distance);
     }
   }
 
+  private float getItemsTopPosition() {
+    return (getShapeConfig().getViewHeight() / 2) - (getShapeConfig().getItemSize() / 2);
+  }
+
   protected float getFirstItemLeftPosition() {
     return getShapeConfig().getItemMargin();
   }
+
+  private float getDistance() {
+    return getShapeConfig().getItemSize() + getShapeConfig().getItemMargin();
+  }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes a group of independent calculation tasks in parallel using a pool of daemon threads
+ * shared by every Shape instance. The thread invoking execute runs the first task and waits until
+ * the rest of the tasks have finished, so the result of every task is visible once execute
+ * returns. ForkJoinPool is not available in every Android version supported by this library, so
+ * tasks are split up front by the caller instead of being forked recursively.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+class ParallelCalculator {
+
+  private static ExecutorService executor;
+
+  /**
+   * Returns the number of processors available to calculate tasks in parallel.
+   */
+  static int getNumberOfProcessors() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Returns the number of tasks a calculation should be split into to use every processor.
+   */
+  static int getNumberOfTasks() {
+    return Math.max(2, getNumberOfProcessors());
+  }
+
+  /**
+   * Executes the task passed as argument once per task index and waits until every execution has
+   * finished. Any exception thrown by a task is thrown again by this method.
+   */
+  static void execute(int numberOfTasks, final Task task) {
+    ExecutorService executor = getExecutor();
+    final CountDownLatch pendingTasks = new CountDownLatch(numberOfTasks - 1);
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    for (int i = 1; i < numberOfTasks; i++) {
+      final int taskIndex = i;
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          try {
+            task.calculate(taskIndex);
+          } catch (Throwable throwable) {
+            error.compareAndSet(null, throwable);
+          } finally {
+            pendingTasks.countDown();
+          }
+        }
+      });
+    }
+    try {
+      task.calculate(0);
+    } finally {
+      awaitUninterruptibly(pendingTasks);
+    }
+    rethrow(error.get());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void rethrow(Throwable throwable) {
+    if (throwable instanceof RuntimeException) {
+      throw (RuntimeException) throwable;
+    } else if (throwable instanceof Error) {
+      throw (Error) throwable;
+    } else if (throwable != null) {
+      throw new RuntimeException(throwable);
+    }
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      int numberOfThreads = Math.max(1, getNumberOfProcessors() - 1);
+      executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+        @Override public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "NoxParallelCalculator");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return executor;
+  }
+
+  /**
+   * Calculation executed in parallel. Every execution receives a different task index.
+   */
+  interface Task {
+
+    void calculate(int taskIndex);
+  }
+}
@@ -16,6 +16,9 @@
 
 package com.github.pedrovgs.nox.shape;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Describes where NoxView has to draw NoxItems inside the space available in NoxView. Information
  * needed to indicate the exact position for every item can be retrieved from the ShapeConfig
@@ -29,10 +32,33 @@ package com.github.pedrovgs.nox.shape;
  */
 public abstract class Shape {
 
+  private static final int LAZY_CALCULATION_THRESHOLD = 10000;
+  protected static final int LAZY_CALCULATION_CHUNK_SIZE = 256;
+  private static final int PARALLEL_CALCULATION_THRESHOLD = 100000;
+  private static final int BOUNDARIES_CHUNK_SIZE = 256;
+  private static final int MIN_USED_CAPACITY_RATIO = 4;
+  private static final float MIN_EDGE_SCALE = 0.4f;
+  private static final float EDGE_SCALING_DISTANCE_RATIO = 1.5f;
+  private static final int BYTES_PER_VALUE = 4;
+  private static final int LAYOUT_BOUNDARIES_SIZE = 4 * BYTES_PER_VALUE;
+  private static final int LAYOUT_POSITION_SIZE = 2 * BYTES_PER_VALUE;
+
   private final ShapeConfig shapeConfig;
+  private final GridIndex gridIndex = new GridIndex();
 
   private float[] noxItemsXPositions;
   private float[] noxItemsYPositions;
+  private boolean[] calculatedPositions;
+  private boolean isCalculatingLazily;
+  private int lazyCalculationThreshold = LAZY_CALCULATION_THRESHOLD;
+  private int parallelCalculationThreshold = ParallelCalculator.getNumberOfProcessors() > 1
+      ? PARALLEL_CALCULATION_THRESHOLD : Integer.MAX_VALUE;
+  private boolean isCalculatingInParallel;
+  private int numberOfCalculatedElements;
+  private int[] chunkBoundaries = new int[0];
+  private int numberOfChunkBoundaries;
+  private boolean areBoundariesOutdated;
+  private boolean isEdgeScalingEnabled;
   private int offsetX;
   private int offsetY;
   private int minX;
@@ -65,6 +91,7 @@ public abstract class Shape {
    * Returns the X position of a NoxItem for the current Shape.
    */
   public final float getXForItemAtPosition(int position) {
+    calculatePositionIfNeeded(position);
     return noxItemsXPositions[position];
   }
 
@@ -72,6 +99,7 @@ public abstract class Shape {
    * Returns the Y position of a NoxItem for the current Shape.
    */
   public final float getYForItemAtPosition(int position) {
+    calculatePositionIfNeeded(position);
     return noxItemsYPositions[position];
   }
 
@@ -90,10 +118,145 @@ public abstract class Shape {
     return matchesHorizontally && matchesVertically;
   }
 
+  /**
+   * Enables or disables the edge scaling mode. When enabled, NoxItem instances close to the view
+   * window edges are scaled down around their center, like in a fisheye lens, and NoxItem hits
+   * are calculated using the scaled NoxItem bounds.
+   */
+  public final void setEdgeScalingEnabled(boolean isEdgeScalingEnabled) {
+    this.isEdgeScalingEnabled = isEdgeScalingEnabled;
+  }
+
+  /**
+   * Returns true if NoxItem instances close to the view window edges are scaled down.
+   */
+  public final boolean isEdgeScalingEnabled() {
+    return isEdgeScalingEnabled;
+  }
+
+  /**
+   * Returns the scale factor of a NoxItem taking into account the offset applied by the scroll
+   * effect. The scale factor is always 1 if the edge scaling mode is disabled. Otherwise, it
+   * decreases linearly from 1 to MIN_EDGE_SCALE as the NoxItem center gets closer than
+   * EDGE_SCALING_DISTANCE_RATIO NoxItems to the closest view window edge.
+   */
+  public final float getScaleForItemAtPosition(int position) {
+    if (!isEdgeScalingEnabled) {
+      return 1;
+    }
+
+    float itemSize = getNoxItemSize();
+    float scalingDistance = (itemSize + getNoxItemMargin()) * EDGE_SCALING_DISTANCE_RATIO;
+    if (scalingDistance <= 0) {
+      return 1;
+    }
+    float centerX = getXForItemAtPosition(position) + offsetX + itemSize / 2;
+    float centerY = getYForItemAtPosition(position) + offsetY + itemSize / 2;
+    float distanceToEdge = Math.min(Math.min(centerX, shapeConfig.getViewWidth() - centerX),
+        Math.min(centerY, shapeConfig.getViewHeight() - centerY));
+    float ratio = Math.max(0, Math.min(1, distanceToEdge / scalingDistance));
+    return MIN_EDGE_SCALE + (1 - MIN_EDGE_SCALE) * ratio;
+  }
+
+  /**
+   * Writes into the scales array the scale factor of the NoxItem instances whose positions are
+   * passed as argument. Used to obtain the scale factor of every NoxItem inside the view using an
+   * array allocated previously.
+   */
+  public final void getScalesForItems(int[] positions, int numberOfPositions, float[] scales) {
+    for (int i = 0; i < numberOfPositions; i++) {
+      scales[i] = getScaleForItemAtPosition(positions[i]);
+    }
+  }
+
+  /**
+   * Writes into the array passed as argument the positions of the NoxItem instances inside the
+   * view window taking into account the offset applied by the scroll effect. Positions are written
+   * in ascending order and, instead of checking every NoxItem, just the NoxItem instances stored
+   * in the grid cells intersecting the view window are checked.
+   *
+   * Returns the number of NoxItem instances inside the view. If this number is bigger than the
+   * array length only the first positions are written and this method should be invoked again
+   * with a bigger array.
+   */
+  public int getItemsInsideView(int[] out) {
+    float itemSize = getNoxItemSize();
+    float left = -offsetX - itemSize - 1;
+    float top = -offsetY - itemSize - 1;
+    float right = shapeConfig.getViewWidth() - offsetX + 1;
+    float bottom = shapeConfig.getViewHeight() - offsetY + 1;
+    GridIndex index = getGridIndex(left, top, right, bottom);
+    if (!index.intersects(left, top, right, bottom)) {
+      return 0;
+    }
+
+    int count = 0;
+    int firstColumn = index.getColumn(left);
+    int lastColumn = index.getColumn(right);
+    int lastRow = index.getRow(bottom);
+    for (int row = index.getRow(top); row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int end = index.getCellEnd(column, row);
+        for (int i = index.getCellStart(column, row); i < end; i++) {
+          int position = index.getItem(i);
+          if (isItemInsideView(position)) {
+            count = addItemInsideView(out, count, position);
+          }
+        }
+      }
+    }
+    Arrays.sort(out, 0, Math.min(count, out.length));
+    return count;
+  }
+
+  /**
+   * Writes into the array passed as argument the positions of the NoxItem instances intersecting
+   * the rectangle passed as argument, without taking into account the offset applied by the
+   * scroll effect nor the NoxItem scale. Positions are written in ascending order and just the
+   * NoxItem instances stored in the grid cells intersecting the rectangle are checked.
+   *
+   * Returns the number of NoxItem instances intersecting the rectangle. If this number is bigger
+   * than the array length only the first positions are written and this method should be invoked
+   * again with a bigger array.
+   */
+  public final int getItemsInsideRect(float left, float top, float right, float bottom,
+      int[] out) {
+    float itemSize = getNoxItemSize();
+    float minLeft = left - itemSize - 1;
+    float minTop = top - itemSize - 1;
+    float maxRight = right + 1;
+    float maxBottom = bottom + 1;
+    GridIndex index = getGridIndex(minLeft, minTop, maxRight, maxBottom);
+    if (!index.intersects(minLeft, minTop, maxRight, maxBottom)) {
+      return 0;
+    }
+
+    int count = 0;
+    int firstColumn = index.getColumn(minLeft);
+    int lastColumn = index.getColumn(maxRight);
+    int lastRow = index.getRow(maxBottom);
+    for (int row = index.getRow(minTop); row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int end = index.getCellEnd(column, row);
+        for (int i = index.getCellStart(column, row); i < end; i++) {
+          int position = index.getItem(i);
+          float x = noxItemsXPositions[position];
+          float y = noxItemsYPositions[position];
+          if (x + itemSize >= left && x <= right && y + itemSize >= top && y <= bottom) {
+            count = addItemInsideView(out, count, position);
+          }
+        }
+      }
+    }
+    Arrays.sort(out, 0, Math.min(count, out.length));
+    return count;
+  }
+
   /**
    * Returns the minimum X position the view should show during the scroll process.
    */
   public final int getMinX() {
+    updateOutdatedBoundaries();
     return (int) (this.minX - getNoxItemMargin());
   }
 
@@ -101,6 +264,7 @@ public abstract class Shape {
    * Returns the maximum X position the view should show during the scroll process.
    */
   public final int getMaxX() {
+    updateOutdatedBoundaries();
     return (int) (this.maxX + getNoxItemSize() + getNoxItemMargin()
         - getShapeConfig().getViewWidth());
   }
@@ -109,6 +273,7 @@ public abstract class Shape {
    * Returns the minimum Y position the view should show during the scroll process.
    */
   public final int getMinY() {
+    updateOutdatedBoundaries();
     return (int) (this.minY - getNoxItemMargin());
   }
 
@@ -116,6 +281,7 @@ public abstract class Shape {
    * Returns the maximum Y position the view should show during the scroll process.
    */
   public final int getMaxY() {
+    updateOutdatedBoundaries();
     return (int) (this.maxY + getNoxItemMargin() + getNoxItemSize()
         - getShapeConfig().getViewHeight());
   }
@@ -145,18 +311,36 @@ public abstract class Shape {
   /**
    * Returns the position of the NoxView if any of the previously configured NoxItem instances is
    * hit. If there is no any NoxItem hit this method returns -1.
+   *
+   * Shape extensions can override this method to calculate the NoxItem hit from the Shape
+   * geometry. By default, just the NoxItem instances stored in the grid cells around the point
+   * passed as argument are checked.
    */
   public int getNoxItemHit(float x, float y) {
+    float itemSize = getNoxItemSize();
+    float left = x - offsetX - itemSize - 1;
+    float top = y - offsetY - itemSize - 1;
+    float right = x - offsetX + 1;
+    float bottom = y - offsetY + 1;
+    GridIndex index = getGridIndex(left, top, right, bottom);
+    if (!index.intersects(left, top, right, bottom)) {
+      return -1;
+    }
+
     int noxItemPosition = -1;
-    for (int i = 0; i < getNumberOfElements(); i++) {
-      float noxItemX = getXForItemAtPosition(i) + offsetX;
-      float noxItemY = getYForItemAtPosition(i) + offsetY;
-      float itemSize = getNoxItemSize();
-      boolean matchesHorizontally = x >= noxItemX && x <= noxItemX + itemSize;
-      boolean matchesVertically = y >= noxItemY && y <= noxItemY + itemSize;
-      if (matchesHorizontally && matchesVertically) {
-        noxItemPosition = i;
-        break;
+    int firstColumn = index.getColumn(left);
+    int lastColumn = index.getColumn(right);
+    int lastRow = index.getRow(bottom);
+    for (int row = index.getRow(top); row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int end = index.getCellEnd(column, row);
+        for (int i = index.getCellStart(column, row); i < end; i++) {
+          int position = index.getItem(i);
+          boolean isFirstHit = noxItemPosition == -1 || position < noxItemPosition;
+          if (isFirstHit && isNoxItemHit(position, x, y)) {
+            noxItemPosition = position;
+          }
+        }
       }
     }
     return noxItemPosition;
@@ -164,12 +348,249 @@ public abstract class Shape {
 
   /**
    * Configures the number of element the Shape is going to use to calculate NoxItems positions.
-   * This method resets the previous position calculus.
+   * This method resets the previous position calculus unless the Shape extension supports
+   * incremental calculation. In this case, the positions previously calculated are kept and just
+   * the NoxItem instances added at the end are calculated once calculate() is invoked. The
+   * position arrays grow like an ArrayList does, so adding one NoxItem doesn't copy them.
+   *
+   * As NoxItem instances can be removed from the end and the last positions calculated again, the
+   * Shape boundaries are calculated from the current positions the next time they are requested.
+   * The boundaries of every chunk of BOUNDARIES_CHUNK_SIZE positions not modified are kept, so
+   * just the positions after the last complete chunk are checked.
    */
   public void setNumberOfElements(int numberOfElements) {
     this.shapeConfig.setNumberOfElements(numberOfElements);
-    this.noxItemsXPositions = new float[numberOfElements];
-    this.noxItemsYPositions = new float[numberOfElements];
+    if (isIncrementalCalculationSupported() && !isCalculatingLazily) {
+      ensureCapacity(numberOfElements);
+      this.numberOfCalculatedElements = Math.min(numberOfCalculatedElements, numberOfElements);
+      this.areBoundariesOutdated = true;
+    } else {
+      this.noxItemsXPositions = new float[numberOfElements];
+      this.noxItemsYPositions = new float[numberOfElements];
+      this.numberOfCalculatedElements = 0;
+      resetBoundaries();
+    }
+    this.isCalculatingLazily = false;
+    this.gridIndex.invalidate();
+  }
+
+  /**
+   * Returns the first position Shape extensions supporting incremental calculation have to
+   * calculate. Positions before the one returned were calculated before the last
+   * setNumberOfElements invocation and are still valid. Every position is considered calculated
+   * after invoking this method, so it has to be invoked just once per calculate() invocation.
+   */
+  protected final int startIncrementalCalculation() {
+    int firstPosition = numberOfCalculatedElements;
+    numberOfCalculatedElements = shapeConfig.getNumberOfElements();
+    return firstPosition;
+  }
+
+  /**
+   * Returns the number of positions kept from the previous calculation.
+   */
+  protected final int getNumberOfCalculatedElements() {
+    return numberOfCalculatedElements;
+  }
+
+  /**
+   * Shape extensions whose NoxItem positions don't depend on the number of NoxItem instances
+   * placed after them have to override this method and invoke startIncrementalCalculation from
+   * calculate().
+   */
+  protected boolean isIncrementalCalculationSupported() {
+    return false;
+  }
+
+  /**
+   * Prepares the Shape to calculate NoxItem positions on demand. Returns true if the Shape
+   * extension supports lazy calculation and the number of elements is big enough to avoid the
+   * calculation of every position up front. In this case, Shape extensions have to configure the
+   * Shape boundaries using updateBoundaries and calculate the positions once
+   * calculatePositionsAround is invoked.
+   */
+  protected final boolean startLazyCalculation() {
+    isCalculatingLazily = false;
+    int numberOfElements = shapeConfig.getNumberOfElements();
+    updateOutdatedBoundaries();
+    if (isLazyCalculationSupported() && numberOfElements >= lazyCalculationThreshold) {
+      calculatedPositions = new boolean[numberOfElements];
+      isCalculatingLazily = true;
+      numberOfCalculatedElements = 0;
+      numberOfChunkBoundaries = 0;
+    } else {
+      calculatedPositions = null;
+    }
+    gridIndex.invalidate();
+    return isCalculatingLazily;
+  }
+
+  /**
+   * Returns true if the Shape calculates NoxItem positions on demand.
+   */
+  protected final boolean isCalculatingLazily() {
+    return isCalculatingLazily;
+  }
+
+  /**
+   * Shape extensions able to calculate NoxItem positions on demand have to override this method
+   * and calculatePositionsAround.
+   */
+  protected boolean isLazyCalculationSupported() {
+    return false;
+  }
+
+  /**
+   * Shape extensions supporting lazy calculation have to override this method to calculate, at
+   * least, the position passed as argument. Calculating a chunk of positions around the one
+   * requested is recommended because close NoxItem instances are usually requested together.
+   */
+  protected void calculatePositionsAround(int position) {
+    throw new UnsupportedOperationException(
+        "Shape extensions supporting lazy calculation have to override calculatePositionsAround.");
+  }
+
+  /**
+   * Calculates the position passed as argument if the Shape is calculating positions on demand and
+   * the position was not calculated before.
+   */
+  protected final void calculatePositionIfNeeded(int position) {
+    if (isCalculatingLazily && !calculatedPositions[position]) {
+      calculatePositionsAround(position);
+    }
+  }
+
+  /**
+   * Calculates, at least, the positions of the NoxItem instances whose top left corner is inside
+   * the rectangle passed as argument, without taking into account the offset applied by the
+   * scroll effect. Invoked while the Shape calculates positions on demand before querying the
+   * NoxItem instances inside a rectangle using the grid index, which just contains the positions
+   * already calculated. By default every position is calculated, so Shape extensions supporting
+   * lazy calculation should override this method to calculate just the chunks of positions
+   * intersecting the rectangle.
+   */
+  protected void calculatePositionsInsideRect(float left, float top, float right, float bottom) {
+    calculateEveryPosition();
+  }
+
+  /**
+   * Calculates the NoxItem positions from the one passed as argument to the last one splitting
+   * the positions in ranges calculated in parallel using calculatePositionsInRange. Returns false
+   * without calculating any position if the Shape extension doesn't support parallel calculation
+   * or the number of positions to calculate is under the parallel calculation threshold. The
+   * boundaries of every range are calculated in parallel too and merged once every range has been
+   * calculated.
+   */
+  protected final boolean calculatePositionsInParallel(final int firstPosition) {
+    final int lastPosition = shapeConfig.getNumberOfElements();
+    final int numberOfPositions = lastPosition - firstPosition;
+    if (!isParallelCalculationSupported() || numberOfPositions < parallelCalculationThreshold) {
+      return false;
+    }
+
+    int numberOfTasks = ParallelCalculator.getNumberOfTasks();
+    final int rangeSize = (numberOfPositions + numberOfTasks - 1) / numberOfTasks;
+    final float[] rangeBoundaries = new float[numberOfTasks * 4];
+    isCalculatingInParallel = true;
+    try {
+      ParallelCalculator.execute(numberOfTasks, new ParallelCalculator.Task() {
+        @Override public void calculate(int taskIndex) {
+          int first = Math.min(firstPosition + taskIndex * rangeSize, lastPosition);
+          int last = Math.min(first + rangeSize, lastPosition);
+          if (first < last) {
+            calculatePositionsInRange(first, last);
+            calculateRangeBoundaries(first, last, rangeBoundaries, taskIndex * 4);
+          }
+        }
+      });
+    } finally {
+      isCalculatingInParallel = false;
+    }
+    for (int task = 0; task < numberOfTasks; task++) {
+      if (task * rangeSize < numberOfPositions) {
+        int i = task * 4;
+        updateBoundaries(rangeBoundaries[i], rangeBoundaries[i + 1], rangeBoundaries[i + 2],
+            rangeBoundaries[i + 3]);
+      }
+    }
+    gridIndex.invalidate();
+    invalidateChunkBoundaries(firstPosition);
+    return true;
+  }
+
+  /**
+   * Shape extensions able to calculate NoxItem positions in parallel have to override this method
+   * and calculatePositionsInRange.
+   */
+  protected boolean isParallelCalculationSupported() {
+    return false;
+  }
+
+  /**
+   * Shape extensions supporting parallel calculation have to override this method to calculate the
+   * positions between the first position, inclusive, and the last one, exclusive. This method is
+   * invoked from different threads at the same time, so it can only configure the positions passed
+   * as argument using setNoxItemXPosition and setNoxItemYPosition.
+   */
+  protected void calculatePositionsInRange(int firstPosition, int lastPosition) {
+    throw new UnsupportedOperationException("Shape extensions supporting parallel calculation have "
+        + "to override calculatePositionsInRange.");
+  }
+
+  /**
+   * Configures the Shape boundaries without calculating every NoxItem position. Used by Shape
+   * extensions calculating positions on demand to estimate the Shape boundaries. The estimation
+   * has to contain every NoxItem position.
+   */
+  protected final void updateBoundaries(float minX, float maxX, float minY, float maxY) {
+    this.minX = (int) Math.min(minX, this.minX);
+    this.maxX = (int) Math.max(maxX, this.maxX);
+    this.minY = (int) Math.min(minY, this.minY);
+    this.maxY = (int) Math.max(maxY, this.maxY);
+  }
+
+  /**
+   * Writes the position passed as argument into the array used by getItemsInsideView if there is
+   * enough space and returns the new number of NoxItem instances inside the view.
+   */
+  protected static int addItemInsideView(int[] out, int count, int position) {
+    if (count < out.length) {
+      out[count] = position;
+    }
+    return count + 1;
+  }
+
+  /**
+   * Returns true if the NoxItem at the position passed as argument contains the point passed as
+   * argument taking into account the offset applied by the scroll effect and the NoxItem scale.
+   */
+  protected final boolean isNoxItemHit(int position, float x, float y) {
+    float noxItemX = getXForItemAtPosition(position) + offsetX;
+    float noxItemY = getYForItemAtPosition(position) + offsetY;
+    float itemSize = getNoxItemSize();
+    if (isEdgeScalingEnabled) {
+      float scaledItemSize = itemSize * getScaleForItemAtPosition(position);
+      noxItemX += (itemSize - scaledItemSize) / 2;
+      noxItemY += (itemSize - scaledItemSize) / 2;
+      itemSize = scaledItemSize;
+    }
+    boolean matchesHorizontally = x >= noxItemX && x <= noxItemX + itemSize;
+    boolean matchesVertically = y >= noxItemY && y <= noxItemY + itemSize;
+    return matchesHorizontally && matchesVertically;
+  }
+
+  /**
+   * Returns the X offset applied by the scroll effect.
+   */
+  protected final int getOffsetX() {
+    return offsetX;
+  }
+
+  /**
+   * Returns the Y offset applied by the scroll effect.
+   */
+  protected final int getOffsetY() {
+    return offsetY;
   }
 
   /**
@@ -179,6 +600,12 @@ public abstract class Shape {
    */
   protected final void setNoxItemXPosition(int position, float x) {
     noxItemsXPositions[position] = x;
+    if (isCalculatingInParallel) {
+      return;
+    }
+    markPositionAsCalculated(position);
+    gridIndex.invalidate();
+    invalidateChunkBoundaries(position);
     minX = (int) Math.min(x, minX);
     maxX = (int) Math.max(x, maxX);
   }
@@ -190,10 +617,74 @@ public abstract class Shape {
    */
   protected final void setNoxItemYPosition(int position, float y) {
     noxItemsYPositions[position] = y;
+    if (isCalculatingInParallel) {
+      return;
+    }
+    markPositionAsCalculated(position);
+    gridIndex.invalidate();
+    invalidateChunkBoundaries(position);
     minY = (int) Math.min(y, minY);
     maxY = (int) Math.max(y, maxY);
   }
 
+  /**
+   * Shape extensions keeping any state calculated in calculate() apart from the NoxItem positions
+   * and the Shape boundaries have to override this method to calculate it again once the layout
+   * has been restored from a ShapeLayoutCache.
+   */
+  protected void onLayoutRestored() {
+  }
+
+  /**
+   * Returns the number of bytes needed to write the layout of this Shape.
+   */
+  final int getLayoutSize() {
+    return LAYOUT_BOUNDARIES_SIZE + shapeConfig.getNumberOfElements() * LAYOUT_POSITION_SIZE;
+  }
+
+  /**
+   * Writes the Shape boundaries and every NoxItem position into the buffer passed as argument.
+   * Positions not calculated yet are calculated before writing them.
+   */
+  final void writeLayout(ByteBuffer buffer) {
+    calculateEveryPosition();
+    updateOutdatedBoundaries();
+    int numberOfElements = shapeConfig.getNumberOfElements();
+    buffer.putInt(minX).putInt(maxX).putInt(minY).putInt(maxY);
+    buffer.asFloatBuffer().put(noxItemsXPositions, 0, numberOfElements);
+    buffer.position(buffer.position() + numberOfElements * BYTES_PER_VALUE);
+    buffer.asFloatBuffer().put(noxItemsYPositions, 0, numberOfElements);
+    buffer.position(buffer.position() + numberOfElements * BYTES_PER_VALUE);
+  }
+
+  /**
+   * Replaces the Shape boundaries and every NoxItem position with the ones read from the buffer
+   * passed as argument, written previously by a Shape with the same class and configuration.
+   * Every position is considered calculated once this method returns.
+   */
+  final void readLayout(ByteBuffer buffer) {
+    int numberOfElements = shapeConfig.getNumberOfElements();
+    if (noxItemsXPositions.length < numberOfElements) {
+      noxItemsXPositions = new float[numberOfElements];
+      noxItemsYPositions = new float[numberOfElements];
+    }
+    minX = buffer.getInt();
+    maxX = buffer.getInt();
+    minY = buffer.getInt();
+    maxY = buffer.getInt();
+    buffer.asFloatBuffer().get(noxItemsXPositions, 0, numberOfElements);
+    buffer.position(buffer.position() + numberOfElements * BYTES_PER_VALUE);
+    buffer.asFloatBuffer().get(noxItemsYPositions, 0, numberOfElements);
+    buffer.position(buffer.position() + numberOfElements * BYTES_PER_VALUE);
+    isCalculatingLazily = false;
+    calculatedPositions = null;
+    numberOfCalculatedElements = numberOfElements;
+    numberOfChunkBoundaries = 0;
+    areBoundariesOutdated = false;
+    gridIndex.invalidate();
+    onLayoutRestored();
+  }
+
   /**
    * Returns the NoxItem size taking into account the scale factor.
    */
@@ -201,10 +692,216 @@ public abstract class Shape {
     return getShapeConfig().getItemSize();
   }
 
+  /**
+   * Returns the GridIndex used to look for the NoxItem instances whose top left corner is inside
+   * the rectangle passed as argument. If the Shape is calculating positions on demand, the
+   * positions inside the rectangle are calculated first and just the positions calculated are
+   * indexed. The index is built again if any NoxItem position has changed since the last query.
+   */
+  private GridIndex getGridIndex(float left, float top, float right, float bottom) {
+    if (isCalculatingLazily) {
+      calculatePositionsInsideRect(left, top, right, bottom);
+    }
+    if (!gridIndex.isBuilt()) {
+      float cellSize = getNoxItemSize() + getNoxItemMargin();
+      int numberOfElements = shapeConfig.getNumberOfElements();
+      boolean[] indexedPositions = isCalculatingLazily ? calculatedPositions : null;
+      gridIndex.build(noxItemsXPositions, noxItemsYPositions, numberOfElements, indexedPositions,
+          cellSize);
+    }
+    return gridIndex;
+  }
+
+  /**
+   * Calculates every position not calculated before if the Shape is calculating positions on
+   * demand. Shape extensions supporting parallel calculation calculate every position in parallel
+   * if the number of elements is over the parallel calculation threshold and stop calculating
+   * positions on demand. Otherwise, the positions not calculated yet are calculated chunk by chunk.
+   */
+  private void calculateEveryPosition() {
+    if (!isCalculatingLazily) {
+      return;
+    }
+    if (calculatePositionsInParallel(0)) {
+      isCalculatingLazily = false;
+      calculatedPositions = null;
+      numberOfCalculatedElements = shapeConfig.getNumberOfElements();
+      return;
+    }
+    for (int i = 0; i < calculatedPositions.length; i++) {
+      calculatePositionIfNeeded(i);
+    }
+  }
+
+  /**
+   * Grows the position arrays keeping the positions previously calculated if the capacity is not
+   * enough to store the number of elements passed as argument. Arrays are shrunk if most of their
+   * capacity is not used.
+   */
+  private void ensureCapacity(int numberOfElements) {
+    int capacity = noxItemsXPositions.length;
+    int newCapacity = capacity;
+    if (numberOfElements > capacity) {
+      newCapacity = Math.max(numberOfElements, capacity * 2);
+    } else if (numberOfElements < capacity / MIN_USED_CAPACITY_RATIO) {
+      newCapacity = numberOfElements;
+    }
+    if (newCapacity != capacity) {
+      noxItemsXPositions = Arrays.copyOf(noxItemsXPositions, newCapacity);
+      noxItemsYPositions = Arrays.copyOf(noxItemsYPositions, newCapacity);
+    }
+  }
+
+  /**
+   * Writes the minimum and maximum X and Y positions of a range of positions into the array passed
+   * as argument starting from the given index.
+   */
+  private void calculateRangeBoundaries(int firstPosition, int lastPosition, float[] boundaries,
+      int index) {
+    float minX = noxItemsXPositions[firstPosition];
+    float maxX = minX;
+    float minY = noxItemsYPositions[firstPosition];
+    float maxY = minY;
+    for (int i = firstPosition + 1; i < lastPosition; i++) {
+      minX = Math.min(minX, noxItemsXPositions[i]);
+      maxX = Math.max(maxX, noxItemsXPositions[i]);
+      minY = Math.min(minY, noxItemsYPositions[i]);
+      maxY = Math.max(maxY, noxItemsYPositions[i]);
+    }
+    boundaries[index] = minX;
+    boundaries[index + 1] = maxX;
+    boundaries[index + 2] = minY;
+    boundaries[index + 3] = maxY;
+  }
+
+  /**
+   * Resets the Shape boundaries to the ones of a Shape without any position calculated.
+   */
+  private void resetBoundaries() {
+    minX = 0;
+    maxX = 0;
+    minY = 0;
+    maxY = 0;
+    numberOfChunkBoundaries = 0;
+    areBoundariesOutdated = false;
+  }
+
+  /**
+   * Calculates the Shape boundaries again from the positions of the current number of elements if
+   * it has changed since the last calculation. The boundaries of the complete chunks of positions
+   * are reused and just the positions after them are checked.
+   */
+  private void updateOutdatedBoundaries() {
+    if (!areBoundariesOutdated) {
+      return;
+    }
+    areBoundariesOutdated = false;
+    int numberOfElements = shapeConfig.getNumberOfElements();
+    int numberOfChunks = numberOfElements / BOUNDARIES_CHUNK_SIZE;
+    calculateChunkBoundaries(numberOfChunks);
+    if (numberOfChunks == 0) {
+      minX = 0;
+      maxX = 0;
+      minY = 0;
+      maxY = 0;
+    } else {
+      int index = (numberOfChunks - 1) * 4;
+      minX = chunkBoundaries[index];
+      maxX = chunkBoundaries[index + 1];
+      minY = chunkBoundaries[index + 2];
+      maxY = chunkBoundaries[index + 3];
+    }
+    for (int i = numberOfChunks * BOUNDARIES_CHUNK_SIZE; i < numberOfElements; i++) {
+      minX = (int) Math.min(noxItemsXPositions[i], minX);
+      maxX = (int) Math.max(noxItemsXPositions[i], maxX);
+      minY = (int) Math.min(noxItemsYPositions[i], minY);
+      maxY = (int) Math.max(noxItemsYPositions[i], maxY);
+    }
+  }
+
+  /**
+   * Calculates the boundaries of the positions from the first one to the end of every chunk of
+   * positions, up to the number of chunks passed as argument, not calculated yet. The boundaries of
+   * every chunk are calculated from the boundaries of the previous one.
+   */
+  private void calculateChunkBoundaries(int numberOfChunks) {
+    if (chunkBoundaries.length < numberOfChunks * 4) {
+      chunkBoundaries =
+          Arrays.copyOf(chunkBoundaries, Math.max(numberOfChunks * 4, chunkBoundaries.length * 2));
+    }
+    for (int chunk = numberOfChunkBoundaries; chunk < numberOfChunks; chunk++) {
+      int chunkMinX = 0;
+      int chunkMaxX = 0;
+      int chunkMinY = 0;
+      int chunkMaxY = 0;
+      if (chunk > 0) {
+        int previousIndex = (chunk - 1) * 4;
+        chunkMinX = chunkBoundaries[previousIndex];
+        chunkMaxX = chunkBoundaries[previousIndex + 1];
+        chunkMinY = chunkBoundaries[previousIndex + 2];
+        chunkMaxY = chunkBoundaries[previousIndex + 3];
+      }
+      int lastPosition = (chunk + 1) * BOUNDARIES_CHUNK_SIZE;
+      for (int i = chunk * BOUNDARIES_CHUNK_SIZE; i < lastPosition; i++) {
+        chunkMinX = (int) Math.min(noxItemsXPositions[i], chunkMinX);
+        chunkMaxX = (int) Math.max(noxItemsXPositions[i], chunkMaxX);
+        chunkMinY = (int) Math.min(noxItemsYPositions[i], chunkMinY);
+        chunkMaxY = (int) Math.max(noxItemsYPositions[i], chunkMaxY);
+      }
+      int index = chunk * 4;
+      chunkBoundaries[index] = chunkMinX;
+      chunkBoundaries[index + 1] = chunkMaxX;
+      chunkBoundaries[index + 2] = chunkMinY;
+      chunkBoundaries[index + 3] = chunkMaxY;
+    }
+    numberOfChunkBoundaries = Math.max(numberOfChunkBoundaries, numberOfChunks);
+  }
+
+  /**
+   * Discards the boundaries kept for the chunk containing the position passed as argument and the
+   * following ones because the position has changed.
+   */
+  private void invalidateChunkBoundaries(int position) {
+    int chunk = position / BOUNDARIES_CHUNK_SIZE;
+    if (chunk < numberOfChunkBoundaries) {
+      numberOfChunkBoundaries = chunk;
+    }
+  }
+
+  private void markPositionAsCalculated(int position) {
+    if (isCalculatingLazily) {
+      calculatedPositions[position] = true;
+    }
+  }
+
   /**
    * Returns the NoxIte margin taking into account the scale factor.
    */
   private float getNoxItemMargin() {
     return getShapeConfig().getItemMargin();
   }
+
+  /**
+   * Method created for testing purposes. Configures the number of elements from which Shape
+   * extensions supporting lazy calculation calculate NoxItem positions on demand.
+   */
+  void setLazyCalculationThreshold(int lazyCalculationThreshold) {
+    this.lazyCalculationThreshold = lazyCalculationThreshold;
+  }
+
+  /**
+   * Method created for testing purposes. Configures the number of elements from which Shape
+   * extensions supporting parallel calculation calculate NoxItem positions in parallel.
+   */
+  void setParallelCalculationThreshold(int parallelCalculationThreshold) {
+    this.parallelCalculationThreshold = parallelCalculationThreshold;
+  }
+
+  /**
+   * Method created for testing purposes. Returns true if the position passed as argument has been
+   * calculated or if the Shape is not calculating NoxItem positions on demand.
+   */
+  boolean isPositionCalculated(int position) {
+    return !isCalculatingLazily || calculatedPositions[position];
+  }
 }
@@ -29,6 +29,8 @@ public class ShapeFactory {
   public static final int CIRCULAR_SHAPE_KEY = 2;
   public static final int FIXED_CIRCULAR_SHAPE_KEY = 3;
   public static final int SPIRAL_SHAPE_KEY = 4;
+  public static final int HEXAGONAL_SHAPE_KEY = 5;
+  public static final int UNKNOWN_SHAPE_KEY = -1;
 
   public static Shape getLinearShape(ShapeConfig shapeConfig) {
     return new LinearShape(shapeConfig);
@@ -50,6 +52,10 @@ public class ShapeFactory {
     return new FixedCircularShape(shapeConfig);
   }
 
+  public static Shape getHexagonalShape(ShapeConfig shapeConfig) {
+    return new HexagonalShape(shapeConfig);
+  }
+
   public static Shape getShapeByKey(int shapeKey, ShapeConfig shapeConfig) {
     Shape shape;
     switch (shapeKey) {
@@ -68,9 +74,38 @@ public class ShapeFactory {
       case SPIRAL_SHAPE_KEY:
         shape = new SpiralShape(shapeConfig);
         break;
+      case HEXAGONAL_SHAPE_KEY:
+        shape = new HexagonalShape(shapeConfig);
+        break;
       default:
         shape = new LinearShape(shapeConfig);
     }
     return shape;
   }
+
+  /**
+   * Returns the key associated to the Shape implementation passed as argument or
+   * UNKNOWN_SHAPE_KEY if the Shape passed as argument is not one of the Shape implementations
+   * provided by this library.
+   */
+  public static int getShapeKey(Shape shape) {
+    Class<? extends Shape> shapeClass = shape.getClass();
+    int shapeKey;
+    if (shapeClass == LinearShape.class) {
+      shapeKey = LINEAR_SHAPE_KEY;
+    } else if (shapeClass == LinearCenteredShape.class) {
+      shapeKey = LINEAR_CENTERED_SHAPE_KEY;
+    } else if (shapeClass == CircularShape.class) {
+      shapeKey = CIRCULAR_SHAPE_KEY;
+    } else if (shapeClass == FixedCircularShape.class) {
+      shapeKey = FIXED_CIRCULAR_SHAPE_KEY;
+    } else if (shapeClass == SpiralShape.class) {
+      shapeKey = SPIRAL_SHAPE_KEY;
+    } else if (shapeClass == HexagonalShape.class) {
+      shapeKey = HEXAGONAL_SHAPE_KEY;
+    } else {
+      shapeKey = UNKNOWN_SHAPE_KEY;
+    }
+    return shapeKey;
+  }
 }
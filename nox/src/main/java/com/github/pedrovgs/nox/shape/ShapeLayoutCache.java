@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Persists the layout of Shape instances, the NoxItem positions and the Shape boundaries, into
+ * binary files stored in a directory. Once a layout has been persisted, the next Shape with the
+ * same implementation and ShapeConfig is restored from a memory-mapped file instead of
+ * calculating every position again, so NoxView can draw the first frame without waiting for the
+ * Shape calculation after a cold start.
+ *
+ * Just the Shape implementations provided by the library are persisted. Custom Shape
+ * implementations are always calculated. Files are written to a temporary file renamed once it
+ * has been completely written, and any file not matching the expected header or size is ignored
+ * and written again. Just the last layout persisted for a Shape implementation and view
+ * configuration is kept, so the files persisted for a previous number of NoxItem instances are
+ * deleted once a new one is written.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class ShapeLayoutCache {
+
+  private static final int MAGIC_NUMBER = 0x4E4F5831;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8 * 4;
+  private static final String FILE_PREFIX = "nox_layout_";
+  private static final String FILE_EXTENSION = ".bin";
+  private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+  private final File directory;
+
+  public ShapeLayoutCache(File directory) {
+    validateDirectory(directory);
+    this.directory = directory;
+  }
+
+  /**
+   * Restores the layout of the Shape passed as argument if it was persisted before. Otherwise,
+   * calculates the Shape and persists its layout to restore it the next time.
+   */
+  public void calculate(Shape shape) {
+    if (!load(shape)) {
+      shape.calculate();
+      save(shape);
+    }
+  }
+
+  /**
+   * Restores the layout of the Shape passed as argument from the file associated to its
+   * implementation and ShapeConfig. Returns false without modifying the Shape if the layout was
+   * not persisted before, the Shape implementation is not supported or the file can't be read.
+   */
+  public boolean load(Shape shape) {
+    File file = getFile(shape);
+    if (file == null || file.length() != HEADER_SIZE + shape.getLayoutSize()) {
+      return false;
+    }
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(file, "r");
+      FileChannel channel = randomAccessFile.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (!readHeader(buffer, shape)) {
+        return false;
+      }
+      shape.readLayout(buffer);
+      return true;
+    } catch (IOException e) {
+      return false;
+    } finally {
+      close(randomAccessFile);
+    }
+  }
+
+  /**
+   * Persists the layout of the Shape passed as argument, calculated previously, into the file
+   * associated to its implementation and ShapeConfig. Positions not calculated yet because the
+   * Shape is calculating them on demand are calculated before persisting them. Layouts persisted
+   * previously for the same Shape implementation and view configuration with a different number
+   * of elements are deleted. Returns false if the Shape implementation is not supported or the
+   * file can't be written.
+   */
+  public boolean save(Shape shape) {
+    File file = getFile(shape);
+    if (file == null) {
+      return false;
+    }
+    directory.mkdirs();
+    File temporaryFile = new File(directory, file.getName() + TEMPORARY_FILE_EXTENSION);
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + shape.getLayoutSize());
+    writeHeader(buffer, shape);
+    shape.writeLayout(buffer);
+    buffer.flip();
+    RandomAccessFile randomAccessFile = null;
+    try {
+      randomAccessFile = new RandomAccessFile(temporaryFile, "rw");
+      randomAccessFile.setLength(0);
+      FileChannel channel = randomAccessFile.getChannel();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      randomAccessFile.close();
+      randomAccessFile = null;
+      if (!temporaryFile.renameTo(file)) {
+        return false;
+      }
+      deletePreviousLayouts(shape, file);
+      return true;
+    } catch (IOException e) {
+      temporaryFile.delete();
+      return false;
+    } finally {
+      close(randomAccessFile);
+    }
+  }
+
+  /**
+   * Removes every layout persisted previously.
+   */
+  public void clear() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().startsWith(FILE_PREFIX)) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the file associated to the Shape implementation and ShapeConfig passed as argument or
+   * null if the Shape implementation is not supported.
+   */
+  File getFile(Shape shape) {
+    String layoutKey = getLayoutKey(shape);
+    if (layoutKey == null) {
+      return null;
+    }
+    return new File(directory, FILE_PREFIX + layoutKey + FILE_EXTENSION);
+  }
+
+  /**
+   * Returns a key identifying the layout of the Shape passed as argument built from its shape key
+   * and every ShapeConfig field, or null if the Shape implementation is not one of the Shape
+   * implementations provided by this library.
+   */
+  static String getLayoutKey(Shape shape) {
+    int shapeKey = ShapeFactory.getShapeKey(shape);
+    if (shapeKey == ShapeFactory.UNKNOWN_SHAPE_KEY) {
+      return null;
+    }
+    ShapeConfig shapeConfig = shape.getShapeConfig();
+    return shapeKey + "_" + shapeConfig.getNumberOfElements() + "_" + getViewKey(shapeConfig);
+  }
+
+  /**
+   * Returns the part of the layout key built from every ShapeConfig field but the number of
+   * elements.
+   */
+  private static String getViewKey(ShapeConfig shapeConfig) {
+    return shapeConfig.getViewWidth() + "x" + shapeConfig.getViewHeight() + "_"
+        + Integer.toHexString(Float.floatToIntBits(shapeConfig.getItemSize())) + "_"
+        + Integer.toHexString(Float.floatToIntBits(shapeConfig.getItemMargin()));
+  }
+
+  /**
+   * Deletes the layouts persisted for the implementation and view configuration of the Shape
+   * passed as argument but a different number of elements. The file passed as argument is kept.
+   */
+  private void deletePreviousLayouts(Shape shape, File file) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    String prefix = FILE_PREFIX + ShapeFactory.getShapeKey(shape) + "_";
+    String suffix = "_" + getViewKey(shape.getShapeConfig()) + FILE_EXTENSION;
+    for (File previousFile : files) {
+      String name = previousFile.getName();
+      if (name.startsWith(prefix) && name.endsWith(suffix) && !name.equals(file.getName())) {
+        previousFile.delete();
+      }
+    }
+  }
+
+  private void writeHeader(ByteBuffer buffer, Shape shape) {
+    ShapeConfig shapeConfig = shape.getShapeConfig();
+    buffer.putInt(MAGIC_NUMBER)
+        .putInt(VERSION)
+        .putInt(ShapeFactory.getShapeKey(shape))
+        .putInt(shapeConfig.getNumberOfElements())
+        .putInt(shapeConfig.getViewWidth())
+        .putInt(shapeConfig.getViewHeight())
+        .putFloat(shapeConfig.getItemSize())
+        .putFloat(shapeConfig.getItemMargin());
+  }
+
+  /**
+   * Returns true if the header read from the buffer passed as argument matches with the header
+   * written for the Shape passed as argument. The buffer position is moved after the header.
+   */
+  private boolean readHeader(ByteBuffer buffer, Shape shape) {
+    ByteBuffer expectedHeader = ByteBuffer.allocate(HEADER_SIZE);
+    writeHeader(expectedHeader, shape);
+    expectedHeader.flip();
+    ByteBuffer header = buffer.duplicate();
+    header.limit(HEADER_SIZE);
+    buffer.position(HEADER_SIZE);
+    return header.equals(expectedHeader);
+  }
+
+  private void close(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // The layout has already been read or written.
+      }
+    }
+  }
+
+  private void validateDirectory(File directory) {
+    if (directory == null) {
+      throw new NullPointerException("You can't pass a null directory as argument.");
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps in memory the layout of the last Shape instances calculated, the NoxItem positions and the
+ * Shape boundaries, to restore them instead of calculating the Shape again when a Shape with the
+ * same implementation and ShapeConfig is used again, for example, switching back to a Shape used
+ * previously. The memory used is bounded and the least recently used layouts are discarded first.
+ *
+ * Just the Shape implementations provided by the library calculating every position up front are
+ * kept. Shape instances calculating their positions on demand are not kept because persisting
+ * them would force the calculation of every position. Every method is thread safe.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class ShapeLayoutMemoryCache {
+
+  private static final int DEFAULT_MAX_SIZE_IN_BYTES = 4 * 1024 * 1024;
+
+  private final int maxSizeInBytes;
+  private final LinkedHashMap<String, ByteBuffer> layouts =
+      new LinkedHashMap<String, ByteBuffer>(16, 0.75f, true);
+  private int sizeInBytes;
+
+  public ShapeLayoutMemoryCache() {
+    this(DEFAULT_MAX_SIZE_IN_BYTES);
+  }
+
+  public ShapeLayoutMemoryCache(int maxSizeInBytes) {
+    validateMaxSize(maxSizeInBytes);
+    this.maxSizeInBytes = maxSizeInBytes;
+  }
+
+  /**
+   * Restores the layout of the Shape passed as argument if it was kept before. Returns false
+   * without modifying the Shape otherwise.
+   */
+  public synchronized boolean load(Shape shape) {
+    String layoutKey = ShapeLayoutCache.getLayoutKey(shape);
+    ByteBuffer layout = layoutKey == null ? null : layouts.get(layoutKey);
+    if (layout == null) {
+      return false;
+    }
+    shape.readLayout(layout.duplicate().order(layout.order()));
+    return true;
+  }
+
+  /**
+   * Keeps the layout of the Shape passed as argument, calculated previously, discarding the least
+   * recently used layouts if needed. Returns false if the Shape implementation is not supported,
+   * the Shape is calculating its positions on demand or its layout is bigger than the memory
+   * available.
+   */
+  public synchronized boolean save(Shape shape) {
+    String layoutKey = ShapeLayoutCache.getLayoutKey(shape);
+    int layoutSize = shape.getLayoutSize();
+    if (layoutKey == null || shape.isCalculatingLazily() || layoutSize > maxSizeInBytes) {
+      return false;
+    }
+    ByteBuffer layout = ByteBuffer.allocate(layoutSize).order(ByteOrder.nativeOrder());
+    shape.writeLayout(layout);
+    layout.flip();
+    remove(layoutKey);
+    trimToSize(maxSizeInBytes - layoutSize);
+    layouts.put(layoutKey, layout);
+    sizeInBytes += layoutSize;
+    return true;
+  }
+
+  /**
+   * Discards every layout kept previously.
+   */
+  public synchronized void clear() {
+    layouts.clear();
+    sizeInBytes = 0;
+  }
+
+  /**
+   * Returns the number of bytes used by the layouts kept.
+   */
+  public synchronized int getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  private void remove(String layoutKey) {
+    ByteBuffer layout = layouts.remove(layoutKey);
+    if (layout != null) {
+      sizeInBytes -= layout.capacity();
+    }
+  }
+
+  /**
+   * Discards the least recently used layouts until the memory used is not bigger than the size
+   * passed as argument.
+   */
+  private void trimToSize(int maxSizeInBytes) {
+    Iterator<Map.Entry<String, ByteBuffer>> iterator = layouts.entrySet().iterator();
+    while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+      sizeInBytes -= iterator.next().getValue().capacity();
+      iterator.remove();
+    }
+  }
+
+  private void validateMaxSize(int maxSizeInBytes) {
+    if (maxSizeInBytes <= 0) {
+      throw new IllegalArgumentException("The max size has to be greater than zero.");
+    }
+  }
+}
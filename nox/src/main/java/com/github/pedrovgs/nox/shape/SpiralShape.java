@@ -25,6 +25,8 @@ package com.github.pedrovgs.nox.shape;
  */
 class SpiralShape extends Shape {
 
+  private static final double HALF_DIAGONAL = 0.7072;
+
   SpiralShape(ShapeConfig shapeConfig) {
     super(shapeConfig);
   }
@@ -32,22 +34,167 @@ class SpiralShape extends Shape {
   @Override public void calculate() {
     ShapeConfig pc = getShapeConfig();
     int numberOfItems = pc.getNumberOfElements();
-    float centerY = (pc.getViewHeight() / 2) - (pc.getItemSize() / 2) - (pc.getItemMargin() / 2);
-    float centerX = (pc.getViewWidth() / 2) - (pc.getItemSize() / 2) - (pc.getItemMargin() / 2);
-    float angle = pc.getItemSize();
-    for (int i = 0; i < numberOfItems; i++) {
-      setX(centerX, angle, i);
-      setY(centerY, angle, i);
+    if (startLazyCalculation()) {
+      float maxDistanceToCenter = pc.getItemSize() * (numberOfItems - 1);
+      updateBoundaries(getCenterX() - maxDistanceToCenter, getCenterX() + maxDistanceToCenter,
+          getCenterY() - maxDistanceToCenter, getCenterY() + maxDistanceToCenter);
+      return;
+    }
+    int firstPosition = startIncrementalCalculation();
+    if (!calculatePositionsInParallel(firstPosition)) {
+      calculatePositionsInRange(firstPosition, numberOfItems);
+    }
+  }
+
+  @Override protected boolean isIncrementalCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isLazyCalculationSupported() {
+    return true;
+  }
+
+  @Override protected boolean isParallelCalculationSupported() {
+    return true;
+  }
+
+  /**
+   * Calculates the chunk of positions containing the position passed as argument.
+   */
+  @Override protected void calculatePositionsAround(int position) {
+    int firstPosition = position - position % LAZY_CALCULATION_CHUNK_SIZE;
+    int lastPosition =
+        Math.min(firstPosition + LAZY_CALCULATION_CHUNK_SIZE, getNumberOfElements());
+    calculatePositionsInRange(firstPosition, lastPosition);
+  }
+
+  /**
+   * Calculates the chunks of positions placed between the minimum and the maximum distance from
+   * the center of the spiral to the rectangle passed as argument.
+   */
+  @Override protected void calculatePositionsInsideRect(float left, float top, float right,
+      float bottom) {
+    float itemSize = getShapeConfig().getItemSize();
+    if (itemSize <= 0) {
+      super.calculatePositionsInsideRect(left, top, right, bottom);
+      return;
     }
+
+    double centerX = getCenterX();
+    double centerY = getCenterY();
+    double nearDx = Math.max(Math.max(left - centerX, 0), centerX - right);
+    double nearDy = Math.max(Math.max(top - centerY, 0), centerY - bottom);
+    double farDx = Math.max(Math.abs(centerX - left), Math.abs(centerX - right));
+    double farDy = Math.max(Math.abs(centerY - top), Math.abs(centerY - bottom));
+    double minDistance = Math.sqrt(nearDx * nearDx + nearDy * nearDy);
+    double maxDistance = Math.sqrt(farDx * farDx + farDy * farDy);
+    int firstCandidate = (int) Math.max(0, Math.floor(minDistance / itemSize) - 1);
+    int lastCandidate =
+        (int) Math.min(getNumberOfElements() - 1, Math.ceil(maxDistance / itemSize) + 1);
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      calculatePositionIfNeeded(i);
+    }
+  }
+
+  /**
+   * Returns the NoxItem instances inside the view using the distance between the center of the
+   * spiral and the view. Just the NoxItem instances placed between the minimum and the maximum
+   * distance to the view are checked.
+   */
+  @Override public int getItemsInsideView(int[] out) {
+    ShapeConfig pc = getShapeConfig();
+    float itemSize = pc.getItemSize();
+    if (itemSize <= 0) {
+      return super.getItemsInsideView(out);
+    }
+
+    double centerX = getCenterX() + itemSize / 2 + getOffsetX();
+    double centerY = getCenterY() + itemSize / 2 + getOffsetY();
+    double left = -itemSize / 2 - 1;
+    double top = -itemSize / 2 - 1;
+    double right = pc.getViewWidth() + itemSize / 2 + 1;
+    double bottom = pc.getViewHeight() + itemSize / 2 + 1;
+    double nearDx = Math.max(Math.max(left - centerX, 0), centerX - right);
+    double nearDy = Math.max(Math.max(top - centerY, 0), centerY - bottom);
+    double farDx = Math.max(Math.abs(centerX - left), Math.abs(centerX - right));
+    double farDy = Math.max(Math.abs(centerY - top), Math.abs(centerY - bottom));
+    double minDistance = Math.sqrt(nearDx * nearDx + nearDy * nearDy);
+    double maxDistance = Math.sqrt(farDx * farDx + farDy * farDy);
+    int firstCandidate = (int) Math.max(0, Math.floor(minDistance / itemSize) - 1);
+    int lastCandidate =
+        (int) Math.min(getNumberOfElements() - 1, Math.ceil(maxDistance / itemSize) + 1);
+    int count = 0;
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      if (isItemInsideView(i)) {
+        count = addItemInsideView(out, count, i);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Calculates the NoxItem hit using the distance to the center of the spiral. The NoxItem at a
+   * given position is placed at "position * itemSize" from the center, so just the NoxItem
+   * instances whose distance to the center is close to the point distance are checked.
+   */
+  @Override public int getNoxItemHit(float x, float y) {
+    float itemSize = getShapeConfig().getItemSize();
+    if (itemSize <= 0) {
+      return super.getNoxItemHit(x, y);
+    }
+
+    double dx = x - getOffsetX() - getCenterX() - itemSize / 2;
+    double dy = y - getOffsetY() - getCenterY() - itemSize / 2;
+    double distanceToCenter = Math.sqrt(dx * dx + dy * dy);
+    double maxDistanceToItemCenter = itemSize * HALF_DIAGONAL + 1;
+    int firstCandidate = (int) Math.max(0, Math.floor(
+        (distanceToCenter - maxDistanceToItemCenter) / itemSize));
+    int lastCandidate = (int) Math.min(getNumberOfElements() - 1,
+        Math.ceil((distanceToCenter + maxDistanceToItemCenter) / itemSize));
+    for (int i = firstCandidate; i <= lastCandidate; i++) {
+      if (isNoxItemHit(i, x, y)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Calculates the positions between the first position, inclusive, and the last one, exclusive.
+   * Every position is independent, so ranges can be calculated in parallel. The NoxItem at
+   * position "i" is placed at an angle of "i" radians, so the angles are obtained using a
+   * RotationKernel instead of calculating the sine and cosine of every angle.
+   */
+  @Override protected void calculatePositionsInRange(int firstPosition, int lastPosition) {
+    float centerY = getCenterY();
+    float centerX = getCenterX();
+    float angle = getShapeConfig().getItemSize();
+    RotationKernel rotationKernel = new RotationKernel();
+    rotationKernel.start(0, 1, firstPosition);
+    for (int i = firstPosition; i < lastPosition; i++) {
+      setX(centerX, angle, i, rotationKernel.getCos());
+      setY(centerY, angle, i, rotationKernel.getSin());
+      rotationKernel.next();
+    }
+  }
+
+  private float getCenterX() {
+    ShapeConfig pc = getShapeConfig();
+    return (pc.getViewWidth() / 2) - (pc.getItemSize() / 2) - (pc.getItemMargin() / 2);
+  }
+
+  private float getCenterY() {
+    ShapeConfig pc = getShapeConfig();
+    return (pc.getViewHeight() / 2) - (pc.getItemSize() / 2) - (pc.getItemMargin() / 2);
   }
 
-  private void setX(float centerX, float angle, int i) {
-    double x = centerX + (angle * i * Math.cos(i));
+  private void setX(float centerX, float angle, int i, double cos) {
+    double x = centerX + (angle * i * cos);
     setNoxItemXPosition(i, (float) x);
   }
 
-  private void setY(float centerY, float angle, int i) {
-    double y = centerY + (angle * i * Math.sin(i));
+  private void setY(float centerY, float angle, int i, double sin) {
+    double y = centerY + (angle * i * sin);
     setNoxItemYPosition(i, (float) y);
   }
 }
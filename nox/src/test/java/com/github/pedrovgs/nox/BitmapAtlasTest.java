@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class) public class BitmapAtlasTest {
+
+  private static final int ANY_SLOT_SIZE = 100;
+  private static final int ANY_CAPACITY = 3;
+  private static final int SLOTS_PER_PAGE = 10 * 10;
+
+  private Bitmap anyBitmap;
+  private BitmapAtlas bitmapAtlas;
+
+  @Before public void setUp() {
+    anyBitmap = Bitmap.createBitmap(ANY_SLOT_SIZE, ANY_SLOT_SIZE, Bitmap.Config.ARGB_8888);
+    bitmapAtlas = new BitmapAtlas(ANY_SLOT_SIZE, ANY_CAPACITY);
+  }
+
+  @Test public void shouldNotContainPositionsNotAddedBefore() {
+    assertFalse(bitmapAtlas.contains(0));
+    assertFalse(bitmapAtlas.contains(1000));
+  }
+
+  @Test public void shouldContainThePositionsAdded() {
+    bitmapAtlas.put(0, anyBitmap);
+    bitmapAtlas.put(1000, anyBitmap);
+
+    assertTrue(bitmapAtlas.contains(0));
+    assertTrue(bitmapAtlas.contains(1000));
+    assertEquals(2, bitmapAtlas.getNumberOfUsedSlots());
+  }
+
+  @Test public void shouldReuseTheSlotOfAPositionAddedAgain() {
+    bitmapAtlas.put(0, anyBitmap);
+
+    bitmapAtlas.put(0, anyBitmap);
+
+    assertEquals(1, bitmapAtlas.getNumberOfUsedSlots());
+  }
+
+  @Test public void shouldStoreEveryPositionInADifferentSlotOfTheSamePage() {
+    Rect firstSlot = new Rect();
+    Rect secondSlot = new Rect();
+    bitmapAtlas.put(0, anyBitmap);
+    bitmapAtlas.put(1, anyBitmap);
+
+    Bitmap firstPage = bitmapAtlas.getPage(0, firstSlot);
+    Bitmap secondPage = bitmapAtlas.getPage(1, secondSlot);
+
+    assertSame(firstPage, secondPage);
+    assertNotEquals(firstSlot, secondSlot);
+    assertEquals(ANY_SLOT_SIZE, firstSlot.width());
+    assertEquals(ANY_SLOT_SIZE, firstSlot.height());
+    assertEquals(1, bitmapAtlas.getNumberOfPages());
+  }
+
+  @Test public void shouldRecycleTheLeastRecentlyUsedSlotOnceEverySlotIsUsed() {
+    bitmapAtlas.put(0, anyBitmap);
+    bitmapAtlas.put(1, anyBitmap);
+    bitmapAtlas.put(2, anyBitmap);
+    bitmapAtlas.getPage(0, new Rect());
+
+    bitmapAtlas.put(3, anyBitmap);
+
+    assertTrue(bitmapAtlas.contains(0));
+    assertFalse(bitmapAtlas.contains(1));
+    assertTrue(bitmapAtlas.contains(2));
+    assertTrue(bitmapAtlas.contains(3));
+    assertEquals(ANY_CAPACITY, bitmapAtlas.getNumberOfUsedSlots());
+  }
+
+  @Test public void shouldRecycleFirstTheSlotsFreedAfterAResize() {
+    bitmapAtlas.put(0, anyBitmap);
+    bitmapAtlas.put(1, anyBitmap);
+    bitmapAtlas.put(2, anyBitmap);
+
+    bitmapAtlas.resize(2);
+    bitmapAtlas.put(3, anyBitmap);
+
+    assertTrue(bitmapAtlas.contains(0));
+    assertTrue(bitmapAtlas.contains(1));
+    assertFalse(bitmapAtlas.contains(2));
+    assertTrue(bitmapAtlas.contains(3));
+  }
+
+  @Test public void shouldCreateNewPagesOnceThePreviousOnesAreFull() {
+    bitmapAtlas = new BitmapAtlas(ANY_SLOT_SIZE, SLOTS_PER_PAGE + 1);
+
+    for (int position = 0; position <= SLOTS_PER_PAGE; position++) {
+      bitmapAtlas.put(position, anyBitmap);
+    }
+
+    assertEquals(2, bitmapAtlas.getNumberOfPages());
+  }
+
+  @Test public void shouldUseThePagesWhichFitIntoTheMemoryBudget() {
+    int bytesPerPage = 1000 * 1000 * 4;
+
+    int capacity = BitmapAtlas.getCapacity(ANY_SLOT_SIZE, bytesPerPage * 3);
+
+    assertEquals(3 * SLOTS_PER_PAGE, capacity);
+  }
+
+  @Test public void shouldUseAMinimumNumberOfPagesIfTheMemoryBudgetIsTooSmall() {
+    int capacity = BitmapAtlas.getCapacity(ANY_SLOT_SIZE, 0);
+
+    assertEquals(BitmapAtlas.MIN_NUMBER_OF_PAGES * SLOTS_PER_PAGE, capacity);
+  }
+
+  @Test public void shouldRemoveEveryPageOnceReleased() {
+    bitmapAtlas.put(0, anyBitmap);
+
+    bitmapAtlas.release();
+
+    assertEquals(0, bitmapAtlas.getNumberOfPages());
+  }
+}
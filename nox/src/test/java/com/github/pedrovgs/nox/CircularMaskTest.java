@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class) public class CircularMaskTest {
+
+  private static final int ANY_SIZE = 10;
+  private static final int ANY_MAX_NUMBER_OF_SHADERS = 3;
+
+  private Bitmap anyBitmap;
+  private CircularMask circularMask;
+
+  @Before public void setUp() {
+    anyBitmap = Bitmap.createBitmap(ANY_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888);
+    circularMask = new CircularMask();
+  }
+
+  @Test public void shouldDrawTheBitmapAsACircleInsteadOfDrawingTheBitmap() {
+    Canvas canvas = mock(Canvas.class);
+
+    circularMask.draw(canvas, anyBitmap, new RectF(0, 0, ANY_SIZE, ANY_SIZE));
+
+    verify(canvas).drawCircle(eq(ANY_SIZE / 2f), eq(ANY_SIZE / 2f), eq(ANY_SIZE / 2f),
+        any(Paint.class));
+    verify(canvas, never()).drawBitmap(any(Bitmap.class), anyFloat(), anyFloat(),
+        any(Paint.class));
+  }
+
+  @Test public void shouldCreateJustOneShaderPerBitmap() {
+    Canvas canvas = mock(Canvas.class);
+    RectF dst = new RectF(0, 0, ANY_SIZE, ANY_SIZE);
+
+    circularMask.draw(canvas, anyBitmap, dst);
+    circularMask.draw(canvas, anyBitmap, new Rect(0, 0, ANY_SIZE / 2, ANY_SIZE / 2), dst);
+
+    assertEquals(1, circularMask.getNumberOfShaders());
+  }
+
+  @Test public void shouldKeepTheShadersOfTheLastBitmapsDrawnOnly() {
+    CircularMask circularMask = new CircularMask(ANY_MAX_NUMBER_OF_SHADERS);
+    Canvas canvas = mock(Canvas.class);
+    RectF dst = new RectF(0, 0, ANY_SIZE, ANY_SIZE);
+
+    for (int i = 0; i <= ANY_MAX_NUMBER_OF_SHADERS; i++) {
+      Bitmap bitmap = Bitmap.createBitmap(ANY_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888);
+      circularMask.draw(canvas, bitmap, dst);
+    }
+
+    assertEquals(ANY_MAX_NUMBER_OF_SHADERS, circularMask.getNumberOfShaders());
+  }
+
+  @Test public void shouldNotDrawAnythingIfTheSourceBoundsAreEmpty() {
+    Canvas canvas = mock(Canvas.class);
+
+    circularMask.draw(canvas, anyBitmap, new Rect(), new RectF(0, 0, ANY_SIZE, ANY_SIZE));
+
+    verify(canvas, never()).drawCircle(anyFloat(), anyFloat(), anyFloat(), any(Paint.class));
+  }
+
+  @Test public void shouldRemoveEveryShaderOnceReleased() {
+    circularMask.draw(mock(Canvas.class), anyBitmap, new RectF(0, 0, ANY_SIZE, ANY_SIZE));
+
+    circularMask.release();
+
+    assertEquals(0, circularMask.getNumberOfShaders());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class IntRingBufferTest {
+
+  private static final int ANY_CAPACITY = 4;
+
+  private IntRingBuffer ringBuffer;
+
+  @Before public void setUp() {
+    ringBuffer = new IntRingBuffer(ANY_CAPACITY);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptACapacityEqualsToZero() {
+    new IntRingBuffer(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotPollValuesFromAnEmptyRingBuffer() {
+    ringBuffer.poll();
+  }
+
+  @Test public void shouldBeEmptyOnceCreated() {
+    assertTrue(ringBuffer.isEmpty());
+    assertEquals(0, ringBuffer.size());
+  }
+
+  @Test public void shouldReturnTheValuesInTheSameOrderTheyWereAdded() {
+    ringBuffer.add(3);
+    ringBuffer.add(1);
+    ringBuffer.add(2);
+
+    assertEquals(3, ringBuffer.poll());
+    assertEquals(1, ringBuffer.poll());
+    assertEquals(2, ringBuffer.poll());
+    assertTrue(ringBuffer.isEmpty());
+  }
+
+  @Test public void shouldReuseTheArrayWhenTheValuesAddedWrapAround() {
+    for (int i = 0; i < ANY_CAPACITY * 3; i++) {
+      ringBuffer.add(i);
+      ringBuffer.add(i);
+      assertEquals(i, ringBuffer.poll());
+      assertEquals(i, ringBuffer.poll());
+    }
+
+    assertEquals(ANY_CAPACITY, ringBuffer.getCapacity());
+  }
+
+  @Test public void shouldKeepTheOrderOfTheValuesAfterGrowing() {
+    ringBuffer.add(-1);
+    ringBuffer.poll();
+    for (int i = 0; i < ANY_CAPACITY * 2; i++) {
+      ringBuffer.add(i);
+    }
+
+    assertEquals(ANY_CAPACITY * 2, ringBuffer.size());
+    for (int i = 0; i < ANY_CAPACITY * 2; i++) {
+      assertEquals(i, ringBuffer.poll());
+    }
+  }
+
+  @Test public void shouldRemoveEveryValueOnceCleared() {
+    ringBuffer.add(1);
+    ringBuffer.add(2);
+
+    ringBuffer.clear();
+
+    assertEquals(0, ringBuffer.size());
+    assertTrue(ringBuffer.isEmpty());
+  }
+}
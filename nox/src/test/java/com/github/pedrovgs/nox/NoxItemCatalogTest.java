@@ -16,13 +16,13 @@
 
 package com.github.pedrovgs.nox;
 
+import android.graphics.Bitmap;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import com.github.pedrovgs.nox.doubles.FakeImageLoader;
 import com.github.pedrovgs.nox.imageloader.ImageLoader;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Observer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,7 +36,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -47,6 +50,7 @@ import static org.mockito.Mockito.verify;
 @Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class) public class NoxItemCatalogTest {
 
   private static final int ANY_NOX_ITEM_SIZE = 100;
+  private static final int ANY_ATLAS_CAPACITY = 10;
   private static final String ANY_URL = "http://anyimage.com/1";
   private static final String ANY_URL_2 = "http://anyimage.com/2";
   private static final NoxItem ANY_NOX_ITEM = new NoxItem(ANY_URL);
@@ -56,7 +60,7 @@ import static org.mockito.Mockito.verify;
   private static final boolean USE_CIRCULAR_TRANSFORMATION = true;
 
   @Spy private ImageLoader imageLoader = new FakeImageLoader();
-  @Mock Observer observer;
+  @Mock NoxItemCatalog.Listener listener;
 
   @Before public void setUp() {
     MockitoAnnotations.initMocks(this);
@@ -139,29 +143,35 @@ import static org.mockito.Mockito.verify;
     verify(imageLoader).useCircularTransformation(USE_CIRCULAR_TRANSFORMATION);
   }
 
+  @Test(expected = NullPointerException.class) public void shouldNotAcceptANullListener() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.setListener(null);
+  }
+
   @Test
-  public void shouldNotifyObserversWhenAnImageAndPlaceholderAreLoadedIndicatingNoxItemPosition() {
+  public void shouldNotifyListenerWhenAnImageAndPlaceholderAreLoadedIndicatingNoxItemPosition() {
     NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
-    noxItemCatalog.addObserver(observer);
+    noxItemCatalog.setListener(listener);
 
     noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
 
-    verify(observer, times(2)).update(noxItemCatalog, 0);
+    verify(listener, times(2)).onNoxItemReady(0);
   }
 
   @Test
-  public void shouldNotifyObserversWhenNoxItemsAreLoadedIndicatingNoxItemPositionWithSomeElements() {
+  public void shouldNotifyListenerWhenNoxItemsAreLoadedIndicatingNoxItemPositionWithSomeElements() {
     List<NoxItem> noxItems = new LinkedList<NoxItem>();
     noxItems.add(new NoxItem(ANY_URL));
     noxItems.add(new NoxItem(ANY_URL_2));
     NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
-    noxItemCatalog.addObserver(observer);
+    noxItemCatalog.setListener(listener);
 
     noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
     noxItemCatalog.load(1, USE_CIRCULAR_TRANSFORMATION);
 
-    verify(observer, times(2)).update(noxItemCatalog, 0);
-    verify(observer, times(2)).update(noxItemCatalog, 1);
+    verify(listener, times(2)).onNoxItemReady(0);
+    verify(listener, times(2)).onNoxItemReady(1);
   }
 
   @Test public void shouldLoadImagesForEveryNoxItemUsingNoxItemUrl() {
@@ -188,6 +198,43 @@ import static org.mockito.Mockito.verify;
     assertNotNull(noxItemCatalog.getBitmap(0));
   }
 
+  @Test public void shouldCopyTheBitmapsLoadedIntoTheBitmapAtlasIfConfigured() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_URL));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+    noxItemCatalog.setBitmapAtlas(new BitmapAtlas(ANY_NOX_ITEM_SIZE, ANY_ATLAS_CAPACITY));
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertTrue(noxItemCatalog.isBitmapInAtlas(0));
+    assertTrue(noxItemCatalog.isBitmapReady(0));
+  }
+
+  @Test public void shouldNotKeepTheBitmapsCopiedIntoTheBitmapAtlas() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_URL));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+    noxItemCatalog.setBitmapAtlas(new BitmapAtlas(ANY_NOX_ITEM_SIZE, ANY_ATLAS_CAPACITY));
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertNull(noxItemCatalog.getBitmap(0));
+    verify(imageLoader).useMemoryCache(false);
+  }
+
+  @Test public void shouldRemoveTheBitmapsOfNoxItemsRemovedFromTheBitmapAtlas() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_URL));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+    noxItemCatalog.setBitmapAtlas(new BitmapAtlas(ANY_NOX_ITEM_SIZE, ANY_ATLAS_CAPACITY));
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    noxItems.clear();
+    noxItemCatalog.recreate();
+
+    assertFalse(noxItemCatalog.isBitmapInAtlas(0));
+  }
+
   @Test public void shouldReturnNullPlaceholdersWhenNoxItemsAreLoadedUsingUrl() {
     List<NoxItem> noxItems = new LinkedList<NoxItem>();
     noxItems.add(new NoxItem(ANY_URL));
@@ -222,6 +269,33 @@ import static org.mockito.Mockito.verify;
     assertNotNull(noxItemCatalog.getBitmap(0));
   }
 
+  @Test public void shouldShareTheDefaultPlaceholderBitmapBetweenEveryNoxItem() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_URL));
+    noxItems.add(new NoxItem(ANY_URL_2));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+    noxItemCatalog.setDefaultPlaceholder(ANY_PLACEHOLDER);
+
+    Bitmap placeholder = noxItemCatalog.getDefaultPlaceholderBitmap(false);
+
+    assertTrue(noxItemCatalog.isDefaultPlaceholderUsed(0));
+    assertTrue(noxItemCatalog.isDefaultPlaceholderUsed(1));
+    assertSame(placeholder, noxItemCatalog.getDefaultPlaceholderBitmap(false));
+    assertEquals(ANY_NOX_ITEM_SIZE, placeholder.getWidth());
+    assertEquals(ANY_NOX_ITEM_SIZE, placeholder.getHeight());
+  }
+
+  @Test public void shouldNotUseTheDefaultPlaceholderIfTheNoxItemPlaceholderIsLoaded() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_URL, ANY_PLACEHOLDER_ID));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+    noxItemCatalog.setDefaultPlaceholder(ANY_PLACEHOLDER);
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertFalse(noxItemCatalog.isDefaultPlaceholderUsed(0));
+  }
+
   @Test public void shouldReturnANotNullPlaceholderWhenNoxItemsAreLoaded() {
     List<NoxItem> noxItems = new LinkedList<NoxItem>();
     noxItems.add(new NoxItem(ANY_URL, ANY_PLACEHOLDER_ID));
@@ -291,6 +365,96 @@ import static org.mockito.Mockito.verify;
     verify(imageLoader, times(2)).load(ANY_URL);
   }
 
+  @Test public void shouldCancelNoxItemDownloadIfItIsBeingPerformed() {
+    ImageLoader imageLoader = spy(new FakeImageLoader(true));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(imageLoader);
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+    noxItemCatalog.cancel(0);
+
+    verify(imageLoader).cancel(any(ImageLoader.Listener.class));
+  }
+
+  @Test public void shouldNotCancelNoxItemDownloadIfItIsNotBeingPerformed() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+    noxItemCatalog.cancel(0);
+
+    verify(imageLoader, never()).cancel(any(ImageLoader.Listener.class));
+  }
+
+  @Test public void shouldLoadNoxItemAgainIfItsDownloadWasCancelled() {
+    ImageLoader imageLoader = spy(new FakeImageLoader(true));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(imageLoader);
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+    noxItemCatalog.cancel(0);
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    verify(imageLoader, times(2)).load(ANY_URL);
+  }
+
+  @Test public void shouldLoadPreviewsUsingAFractionOfTheNoxItemSizeAndACheaperConfig() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+
+    verify(imageLoader).size(ANY_NOX_ITEM_SIZE / NoxItemCatalog.PREVIEW_SIZE_DIVIDER);
+    verify(imageLoader).config(NoxItemCatalog.PREVIEW_CONFIG);
+  }
+
+  @Test public void shouldStorePreviewsApartFromTheFullSizeBitmaps() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertTrue(noxItemCatalog.isPreviewReady(0));
+    assertNotNull(noxItemCatalog.getPreview(0));
+    assertFalse(noxItemCatalog.isBitmapReady(0));
+  }
+
+  @Test public void shouldLoadTheFullSizeBitmapEvenIfThePreviewIsReady() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+    boolean isLoadStarted = noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertTrue(isLoadStarted);
+    assertTrue(noxItemCatalog.isBitmapReady(0));
+    verify(imageLoader).size(ANY_NOX_ITEM_SIZE);
+  }
+
+  @Test public void shouldNotLoadPreviewIfBitmapIsReady() {
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog();
+
+    noxItemCatalog.load(0, USE_CIRCULAR_TRANSFORMATION);
+    boolean isPreviewLoadStarted = noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertFalse(isPreviewLoadStarted);
+    assertFalse(noxItemCatalog.isPreviewReady(0));
+  }
+
+  @Test public void shouldNotLoadPreviewsOfNoxItemsLoadedUsingResourceId() {
+    List<NoxItem> noxItems = new LinkedList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(noxItems);
+
+    boolean isPreviewLoadStarted = noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+
+    assertFalse(isPreviewLoadStarted);
+  }
+
+  @Test public void shouldCancelThePreviewDownloadIfItIsBeingPerformed() {
+    ImageLoader imageLoader = spy(new FakeImageLoader(true));
+    NoxItemCatalog noxItemCatalog = givenOneNoxItemCatalog(imageLoader);
+
+    noxItemCatalog.loadPreview(0, USE_CIRCULAR_TRANSFORMATION);
+    noxItemCatalog.cancel(0);
+
+    verify(imageLoader).cancel(any(ImageLoader.Listener.class));
+  }
+
   private NoxItemCatalog givenOneNoxItemCatalog() {
     LinkedList<NoxItem> noxItems = new LinkedList<NoxItem>();
     noxItems.add(ANY_NOX_ITEM);
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.app.Activity;
+import com.github.pedrovgs.nox.doubles.FakeShape;
+import com.github.pedrovgs.nox.shape.Shape;
+import com.github.pedrovgs.nox.shape.ShapeConfig;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@RunWith(NoxRobolectricTestRunner.class) public class NoxSurfaceViewTest {
+
+  private static final int ANY_RESOURCE_ID = R.drawable.ic_nox;
+  private static final int ANY_VIEW_WIDTH = 100;
+  private static final int ANY_VIEW_HEIGHT = 100;
+  private static final int ANY_ITEM_SIZE = 8;
+  private static final int ANY_ITEM_MARGIN = 2;
+
+  private NoxSurfaceView noxSurfaceView;
+
+  @Before public void setUp() {
+    Activity activity = Robolectric.buildActivity(Activity.class).create().resume().get();
+    noxSurfaceView = new NoxSurfaceView(activity);
+  }
+
+  @Test(expected = NullPointerException.class) public void shouldNotAcceptNullShapeInstances() {
+    noxSurfaceView.setShape(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldNotAcceptNullOnNoxItemClickListenerInstances() {
+    noxSurfaceView.setOnNoxItemClickListener(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANewShapeWithDifferentNumberOfElementsThanThePreviousConfigured() {
+    Shape shape = givenAShapeWithNumberOfElements(2);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxSurfaceView.showNoxItems(noxItems);
+    noxSurfaceView.setShape(shape);
+  }
+
+  @Test public void shouldCreateAShapeWithTheNumberOfNoxItemsShown() {
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxSurfaceView.showNoxItems(noxItems);
+
+    Shape shape = noxSurfaceView.getShape();
+    assertNotNull(shape);
+    assertEquals(1, shape.getNumberOfElements());
+  }
+
+  @Test public void shouldRecalculateTheCustomShapeConfiguredIfTheDataSetChanges() {
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    Shape shape = givenAShapeWithNumberOfElements(1);
+    noxSurfaceView.showNoxItems(noxItems);
+    noxSurfaceView.setShape(shape);
+
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    noxSurfaceView.notifyDataSetChanged();
+
+    assertSame(shape, noxSurfaceView.getShape());
+    assertEquals(2, shape.getNumberOfElements());
+  }
+
+  private List<NoxItem> givenOneListWithJustOneNoxItem() {
+    List<NoxItem> noxItems = new ArrayList<NoxItem>();
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    return noxItems;
+  }
+
+  private Shape givenAShapeWithNumberOfElements(int numberOfElements) {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(numberOfElements, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE,
+            ANY_ITEM_MARGIN);
+    return new FakeShape(shapeConfig);
+  }
+}
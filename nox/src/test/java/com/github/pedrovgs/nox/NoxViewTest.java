@@ -20,24 +20,44 @@ import android.app.Activity;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.view.MotionEvent;
 import android.view.View;
+import com.github.pedrovgs.nox.doubles.AllocatedMemory;
+import com.github.pedrovgs.nox.doubles.FakeCanvas;
+import com.github.pedrovgs.nox.doubles.FakeExecutor;
 import com.github.pedrovgs.nox.doubles.FakeShape;
 import com.github.pedrovgs.nox.shape.Shape;
 import com.github.pedrovgs.nox.shape.ShapeConfig;
+import com.github.pedrovgs.nox.shape.ShapeFactory;
+import com.github.pedrovgs.nox.shape.ShapeLayoutCache;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.Robolectric;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.AdditionalMatchers.not;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyFloat;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -58,11 +78,20 @@ import static org.mockito.Mockito.verify;
   private static final int ANY_VIEW_HEIGHT = 100;
   private static final int ANY_ITEM_SIZE = 8;
   private static final int ANY_ITEM_MARGIN = 2;
+  private static final int ANY_FAR_AWAY_SCROLL = 10000;
+  private static final int ANY_NUMBER_OF_NOX_ITEMS = 500;
+  private static final int ANY_NUMBER_OF_FRAMES = 200;
+  private static final int ANY_SCROLL_STEP = 3;
+  private static final float ANY_FLING_VELOCITY = 5000;
+  private static final long ALLOCATION_TOLERANCE_IN_BYTES = 1024;
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Activity activity;
   private NoxView noxView;
 
   @Before public void setUp() {
-    Activity activity = Robolectric.buildActivity(Activity.class).create().resume().get();
+    activity = Robolectric.buildActivity(Activity.class).create().resume().get();
     noxView = new NoxView(activity);
   }
 
@@ -200,6 +229,69 @@ import static org.mockito.Mockito.verify;
     verify(noxView).invalidate();
   }
 
+  @Test public void shouldInvalidateJustTheBoundsOfTheNoxItemReady() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+
+    noxView.getNoxItemCatalog().notifyNoxItemReady(0);
+    noxView.processReadyNoxItems();
+
+    Rect dirtyNoxItemsBounds = noxView.getDirtyNoxItemsBounds();
+    Shape shape = noxView.getShape();
+    assertFalse(dirtyNoxItemsBounds.isEmpty());
+    assertTrue(dirtyNoxItemsBounds.contains((int) shape.getXForItemAtPosition(0),
+        (int) shape.getYForItemAtPosition(0)));
+  }
+
+  @Test public void shouldNotInvalidateAnyNoxItemBoundsUntilTheNoxItemsReadyAreProcessed() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+
+    noxView.getNoxItemCatalog().notifyNoxItemReady(0);
+    noxView.getNoxItemCatalog().notifyNoxItemReady(0);
+
+    assertTrue(noxView.getDirtyNoxItemsBounds().isEmpty());
+  }
+
+  @Test public void shouldMergeTheBoundsOfEveryNoxItemReadyBeforeTheNextFrame() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    noxView.showNoxItems(noxItems);
+    ShapeConfig shapeConfig =
+        new ShapeConfig(2, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    Shape shape = ShapeFactory.getShapeByKey(ShapeFactory.HEXAGONAL_SHAPE_KEY, shapeConfig);
+    noxView.setShape(shape);
+    noxView.onDraw(canvas);
+
+    noxView.getNoxItemCatalog().notifyNoxItemReady(0);
+    noxView.getNoxItemCatalog().notifyNoxItemReady(1);
+    noxView.processReadyNoxItems();
+
+    Rect dirtyNoxItemsBounds = noxView.getDirtyNoxItemsBounds();
+    for (int position = 0; position < 2; position++) {
+      assertTrue(dirtyNoxItemsBounds.contains((int) shape.getXForItemAtPosition(position),
+          (int) shape.getYForItemAtPosition(position)));
+    }
+  }
+
+  @Test public void shouldClearTheBoundsInvalidatedOnceTheFrameIsDrawn() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+    noxView.getNoxItemCatalog().notifyNoxItemReady(0);
+    noxView.processReadyNoxItems();
+
+    noxView.onDraw(canvas);
+
+    assertTrue(noxView.getDirtyNoxItemsBounds().isEmpty());
+  }
+
   @Test public void shouldNotInvalidateViewIfNoxViewIsNotVisible() {
     List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
 
@@ -219,7 +311,20 @@ import static org.mockito.Mockito.verify;
     noxView.showNoxItems(noxItems);
     noxView.draw(canvas);
 
-    verify(canvas, never()).drawBitmap(any(Bitmap.class), anyInt(), anyInt(), any(Paint.class));
+    Bitmap placeholder = noxView.getNoxItemCatalog().getDefaultPlaceholderBitmap(false);
+    verify(canvas, never()).drawBitmap(not(eq(placeholder)), anyInt(), anyInt(),
+        any(Paint.class));
+  }
+
+  @Test public void shouldDrawTheSharedPlaceholderBitmapIfTheNoxItemHasNoPlaceholder() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+
+    Bitmap placeholder = noxView.getNoxItemCatalog().getDefaultPlaceholderBitmap(false);
+    verify(canvas).drawBitmap(eq(placeholder), anyFloat(), anyFloat(), any(Paint.class));
   }
 
   @Test public void shouldNotDrawAnyNoxItemIfTheNoxItemCatalogIsEmpty() {
@@ -245,6 +350,119 @@ import static org.mockito.Mockito.verify;
     verify(canvas).drawBitmap(eq(bitmap), anyInt(), anyInt(), any(Paint.class));
   }
 
+  @Test public void shouldDrawNoxItemResourcesScaledDownIfEdgeScalingIsEnabled() {
+    Canvas canvas = mock(Canvas.class);
+    Bitmap bitmap = mock(Bitmap.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setEdgeScaling(true);
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setBitmap(0, bitmap);
+    noxItemCatalog.notifyNoxItemReady(0);
+    noxView.onDraw(canvas);
+
+    verify(canvas).drawBitmap(eq(bitmap), (Rect) isNull(), any(RectF.class), any(Paint.class));
+    verify(canvas, never()).drawBitmap(eq(bitmap), anyInt(), anyInt(), any(Paint.class));
+  }
+
+  @Test public void shouldLoadPreviewsInsteadOfFullSizeImagesDuringAFling() {
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = spy(noxView.getNoxItemCatalog());
+    noxView.setNoxItemCatalog(noxItemCatalog);
+    Scroller scroller =
+        new Scroller(noxView, ANY_MIN_X, ANY_MAX_X, ANY_MIN_Y, ANY_MAX_Y, ANY_OVER_SIZE);
+    noxView.setScroller(scroller);
+    scroller.fling(ANY_FLING_VELOCITY, ANY_FLING_VELOCITY);
+    noxView.onDraw(mock(Canvas.class));
+
+    assertTrue(scroller.isScrollingFast());
+    verify(noxItemCatalog).loadPreview(0, false);
+    verify(noxItemCatalog, never()).load(eq(0), anyBoolean());
+  }
+
+  @Test public void shouldDrawThePreviewScaledUpIfTheFullSizeImageIsNotReady() {
+    Canvas canvas = mock(Canvas.class);
+    Bitmap preview = mock(Bitmap.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setPreview(0, preview);
+    noxItemCatalog.notifyNoxItemReady(0);
+    noxView.onDraw(canvas);
+
+    verify(canvas).drawBitmap(eq(preview), (Rect) isNull(), any(RectF.class), any(Paint.class));
+  }
+
+  @Test public void shouldDrawTheFullSizeImageInsteadOfThePreviewOnceLoaded() {
+    Canvas canvas = mock(Canvas.class);
+    Bitmap preview = mock(Bitmap.class);
+    Bitmap bitmap = mock(Bitmap.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setPreview(0, preview);
+    noxItemCatalog.setBitmap(0, bitmap);
+    noxItemCatalog.notifyNoxItemReady(0);
+    noxView.onDraw(canvas);
+
+    verify(canvas).drawBitmap(eq(bitmap), anyInt(), anyInt(), any(Paint.class));
+    verify(canvas, never()).drawBitmap(eq(preview), (Rect) isNull(), any(RectF.class),
+        any(Paint.class));
+  }
+
+  @Test public void shouldMaskTheNoxItemImagesWhileDrawnIfTheCircularMaskIsEnabled() {
+    Canvas canvas = mock(Canvas.class);
+    Bitmap bitmap = Bitmap.createBitmap(ANY_ITEM_SIZE, ANY_ITEM_SIZE, Bitmap.Config.ARGB_8888);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setCircularMaskEnabled(true);
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setBitmap(0, bitmap);
+    noxItemCatalog.notifyNoxItemReady(0);
+    noxView.onDraw(canvas);
+
+    verify(canvas).drawCircle(anyFloat(), anyFloat(), anyFloat(), any(Paint.class));
+    verify(canvas, never()).drawBitmap(eq(bitmap), anyInt(), anyInt(), any(Paint.class));
+  }
+
+  @Test public void shouldDrawThePressedOverlayOverTheImageOfTheNoxItemPressed() {
+    Canvas canvas = mock(Canvas.class);
+    givenOneNoxItemLoaded();
+
+    pressNoxItem(0, MotionEvent.ACTION_DOWN);
+    noxView.onDraw(canvas);
+
+    verify(canvas).drawCircle(anyFloat(), anyFloat(), anyFloat(), any(Paint.class));
+  }
+
+  @Test public void shouldNotDrawThePressedOverlayOnceTheNoxItemIsReleased() {
+    Canvas canvas = mock(Canvas.class);
+    givenOneNoxItemLoaded();
+
+    pressNoxItem(0, MotionEvent.ACTION_DOWN);
+    pressNoxItem(0, MotionEvent.ACTION_UP);
+    noxView.onDraw(canvas);
+
+    verify(canvas, never()).drawCircle(anyFloat(), anyFloat(), anyFloat(), any(Paint.class));
+  }
+
+  @Test public void shouldInvalidateJustTheBoundsOfTheNoxItemPressed() {
+    givenOneNoxItemLoaded();
+
+    pressNoxItem(0, MotionEvent.ACTION_DOWN);
+
+    Shape shape = noxView.getShape();
+    Rect dirtyBounds = noxView.getDirtyNoxItemsBounds();
+    assertEquals((int) Math.floor(shape.getXForItemAtPosition(0)), dirtyBounds.left);
+    assertEquals((int) Math.floor(shape.getYForItemAtPosition(0)), dirtyBounds.top);
+  }
+
   @Test public void shouldNotDrawNoxItemsOutOfTheViewEvenIfAreReadyToDraw() {
     Canvas canvas = mock(Canvas.class);
     List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
@@ -265,6 +483,195 @@ import static org.mockito.Mockito.verify;
     noxView.setOnNoxItemClickListener(null);
   }
 
+  @Test(expected = NullPointerException.class)
+  public void shouldNotAcceptNullInstancesOfOnNoxItemVisibilityListener() {
+    noxView.setOnNoxItemVisibilityListener(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldNotAcceptNullInstancesOfOnFrameMetricsListener() {
+    noxView.setFrameMetricsListener(null);
+  }
+
+  @Test public void shouldNotifyTheFrameMetricsOfEveryFrameDrawn() {
+    Canvas canvas = mock(Canvas.class);
+    OnFrameMetricsListener listener = mock(OnFrameMetricsListener.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setFrameMetricsListener(listener);
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setBitmap(0, mock(Bitmap.class));
+    noxView.onDraw(canvas);
+
+    ArgumentCaptor<FrameMetrics> frameMetrics = ArgumentCaptor.forClass(FrameMetrics.class);
+    verify(listener).onFrameDrawn(frameMetrics.capture());
+    assertEquals(1, frameMetrics.getValue().getNumberOfNoxItemsTested());
+    assertEquals(0, frameMetrics.getValue().getNumberOfNoxItemsCulled());
+    assertEquals(1, frameMetrics.getValue().getNumberOfNoxItemsDrawn());
+    assertEquals(1, frameMetrics.getValue().getNumberOfBitmapsDrawn());
+    assertEquals(0, frameMetrics.getValue().getNumberOfPlaceholdersDrawn());
+  }
+
+  @Test public void shouldNotNotifyTheFrameMetricsOnceTheListenerHasBeenRemoved() {
+    Canvas canvas = mock(Canvas.class);
+    OnFrameMetricsListener listener = mock(OnFrameMetricsListener.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setFrameMetricsListener(listener);
+    noxView.setFrameMetricsListener(OnFrameMetricsListener.EMPTY);
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+
+    verify(listener, never()).onFrameDrawn(any(FrameMetrics.class));
+  }
+
+  @Test public void shouldNotifyWhenANoxItemEntersTheView() {
+    Canvas canvas = mock(Canvas.class);
+    OnNoxItemVisibilityListener listener = mock(OnNoxItemVisibilityListener.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setOnNoxItemVisibilityListener(listener);
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+
+    verify(listener).onNoxItemEntered(0, noxItems.get(0));
+  }
+
+  @Test public void shouldNotifyWhenANoxItemExitsTheView() {
+    Canvas canvas = mock(Canvas.class);
+    OnNoxItemVisibilityListener listener = mock(OnNoxItemVisibilityListener.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setOnNoxItemVisibilityListener(listener);
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+    noxView.scrollTo(ANY_FAR_AWAY_SCROLL, ANY_FAR_AWAY_SCROLL);
+    noxView.onDraw(canvas);
+
+    verify(listener).onNoxItemExited(0, noxItems.get(0));
+  }
+
+  @Test public void shouldNotNotifyTheSameNoxItemEnteringTheViewTwice() {
+    Canvas canvas = mock(Canvas.class);
+    OnNoxItemVisibilityListener listener = mock(OnNoxItemVisibilityListener.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.setOnNoxItemVisibilityListener(listener);
+    noxView.showNoxItems(noxItems);
+    noxView.onDraw(canvas);
+    noxView.onDraw(canvas);
+
+    verify(listener).onNoxItemEntered(0, noxItems.get(0));
+    verify(listener, never()).onNoxItemExited(anyInt(), any(NoxItem.class));
+  }
+
+  @Test public void shouldCancelNoxItemDownloadWhenTheNoxItemExitsTheView() {
+    Canvas canvas = mock(Canvas.class);
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = spy(noxView.getNoxItemCatalog());
+    noxView.setNoxItemCatalog(noxItemCatalog);
+    noxView.onDraw(canvas);
+    noxView.scrollTo(ANY_FAR_AWAY_SCROLL, ANY_FAR_AWAY_SCROLL);
+    noxView.onDraw(canvas);
+
+    verify(noxItemCatalog).cancel(0);
+  }
+
+  @Test public void shouldKeepThePreviousShapeUntilTheNewOneIsCalculatedInBackground() {
+    FakeExecutor executor = givenAShapeCalculatedInBackground();
+    Shape previousShape = givenAShapeWithNumberOfElements(1);
+    Shape newShape = givenAShapeWithNumberOfElements(1);
+    noxView.setShape(previousShape);
+
+    noxView.setShape(newShape);
+
+    assertSame(previousShape, noxView.getShape());
+    executor.runPendingTasks();
+    assertSame(newShape, noxView.getShape());
+  }
+
+  @Test public void shouldPublishJustTheLastShapeCalculatedInBackground() {
+    FakeExecutor executor = givenAShapeCalculatedInBackground();
+    Shape firstShape = givenAShapeWithNumberOfElements(1);
+    Shape lastShape = givenAShapeWithNumberOfElements(1);
+
+    noxView.setShape(firstShape);
+    noxView.setShape(lastShape);
+    executor.runPendingTasks();
+
+    assertSame(lastShape, noxView.getShape());
+  }
+
+  @Test public void shouldRecalculateTheShapeInBackgroundIfTheDataSetChanges() {
+    FakeExecutor executor = givenAShapeCalculatedInBackground();
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    executor.runPendingTasks();
+    Shape previousShape = noxView.getShape();
+
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    noxView.notifyDataSetChanged();
+
+    assertSame(previousShape, noxView.getShape());
+    assertEquals(1, previousShape.getNumberOfElements());
+    executor.runPendingTasks();
+    assertEquals(2, noxView.getShape().getNumberOfElements());
+    assertEquals(ShapeFactory.getShapeKey(previousShape),
+        ShapeFactory.getShapeKey(noxView.getShape()));
+  }
+
+  @Test public void shouldNotDrawRemovedNoxItemsWhileTheShapeIsCalculatedInBackground() {
+    Canvas canvas = mock(Canvas.class);
+    FakeExecutor executor = givenAShapeCalculatedInBackground();
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    executor.runPendingTasks();
+
+    noxItems.clear();
+    noxView.notifyDataSetChanged();
+    noxView.onDraw(canvas);
+
+    verify(canvas, never()).drawBitmap(any(Bitmap.class), anyInt(), anyInt(), any(Paint.class));
+  }
+
+  @Test public void shouldNotPersistTheLayoutRecalculatedIfTheDataSetChanges()
+      throws IOException {
+    File directory = temporaryFolder.newFolder();
+    noxView.setShapeLayoutCache(new ShapeLayoutCache(directory));
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    File[] persistedLayouts = directory.listFiles();
+    long lastModified = persistedLayouts[0].lastModified();
+
+    noxItems.add(new NoxItem(ANY_RESOURCE_ID));
+    noxView.notifyDataSetChanged();
+
+    assertEquals(2, noxView.getShape().getNumberOfElements());
+    assertArrayEquals(persistedLayouts, directory.listFiles());
+    assertEquals(lastModified, persistedLayouts[0].lastModified());
+  }
+
+  @Test public void shouldNotAllocateAnyObjectPerNoxItemDrawnWhileScrolling() {
+    assumeTrue(AllocatedMemory.isSupported());
+    FakeCanvas canvas = new FakeCanvas();
+    Bitmap bitmap = Bitmap.createBitmap(ANY_ITEM_SIZE, ANY_ITEM_SIZE, Bitmap.Config.ARGB_8888);
+    NoxView emptyNoxView = givenANoxViewWithEveryNoxItemLoaded(0, bitmap);
+    NoxView noxView = givenANoxViewWithEveryNoxItemLoaded(ANY_NUMBER_OF_NOX_ITEMS, bitmap);
+    scroll(emptyNoxView, canvas);
+    scroll(noxView, canvas);
+
+    long emptyNoxViewAllocatedBytes = measureAllocatedBytesWhileScrolling(emptyNoxView, canvas);
+    long allocatedBytes = measureAllocatedBytesWhileScrolling(noxView, canvas);
+
+    assertTrue(canvas.getNumberOfBitmapsDrawn() > ANY_NUMBER_OF_FRAMES);
+    assertTrue("NoxView allocated " + (allocatedBytes - emptyNoxViewAllocatedBytes)
+            + " bytes more than an empty NoxView while scrolling",
+        allocatedBytes <= emptyNoxViewAllocatedBytes + ALLOCATION_TOLERANCE_IN_BYTES);
+  }
+
   private List<NoxItem> givenOneListWithJustOneNoxItem() {
     List<NoxItem> noxItems = new ArrayList<NoxItem>();
     noxItems.add(new NoxItem(ANY_RESOURCE_ID));
@@ -294,4 +701,68 @@ import static org.mockito.Mockito.verify;
     path.setBoundaries(minX, maxX, minY, maxY, overSize);
     return path;
   }
+
+  private void givenOneNoxItemLoaded() {
+    List<NoxItem> noxItems = givenOneListWithJustOneNoxItem();
+    noxView.showNoxItems(noxItems);
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    noxItemCatalog.setBitmap(0, mock(Bitmap.class));
+    noxItemCatalog.notifyNoxItemReady(0);
+    noxView.onDraw(mock(Canvas.class));
+  }
+
+  private void pressNoxItem(int position, int action) {
+    Shape shape = noxView.getShape();
+    float x = shape.getXForItemAtPosition(position) - noxView.getScrollX() + 1;
+    float y = shape.getYForItemAtPosition(position) - noxView.getScrollY() + 1;
+    MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+    noxView.onTouchEvent(event);
+    event.recycle();
+  }
+
+  /**
+   * Creates a NoxView showing the number of NoxItem instances passed as argument with the bitmap
+   * passed as argument already loaded for every NoxItem, so no resource is loaded while scrolling.
+   */
+  private NoxView givenANoxViewWithEveryNoxItemLoaded(int numberOfNoxItems, Bitmap bitmap) {
+    NoxView noxView = new NoxView(activity);
+    List<NoxItem> noxItems = new ArrayList<NoxItem>();
+    for (int i = 0; i < numberOfNoxItems; i++) {
+      noxItems.add(new NoxItem("http://anyimage.com/" + i));
+    }
+    noxView.showNoxItems(noxItems);
+    ShapeConfig shapeConfig =
+        new ShapeConfig(numberOfNoxItems, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE,
+            ANY_ITEM_MARGIN);
+    noxView.setShape(ShapeFactory.getShapeByKey(ShapeFactory.HEXAGONAL_SHAPE_KEY, shapeConfig));
+    NoxItemCatalog noxItemCatalog = noxView.getNoxItemCatalog();
+    for (int i = 0; i < numberOfNoxItems; i++) {
+      noxItemCatalog.setBitmap(i, bitmap);
+    }
+    return noxView;
+  }
+
+  /**
+   * Scrolls the NoxView passed as argument forward and back drawing a frame for every scroll step.
+   */
+  private void scroll(NoxView noxView, Canvas canvas) {
+    for (int frame = 0; frame < ANY_NUMBER_OF_FRAMES; frame++) {
+      int distance = Math.min(frame, ANY_NUMBER_OF_FRAMES - frame) * ANY_SCROLL_STEP;
+      noxView.scrollTo(distance, distance / 2);
+      noxView.onDraw(canvas);
+    }
+  }
+
+  private long measureAllocatedBytesWhileScrolling(NoxView noxView, Canvas canvas) {
+    long allocatedBytesBefore = AllocatedMemory.getAllocatedBytes();
+    scroll(noxView, canvas);
+    return AllocatedMemory.getAllocatedBytes() - allocatedBytesBefore;
+  }
+
+  private FakeExecutor givenAShapeCalculatedInBackground() {
+    FakeExecutor executor = new FakeExecutor();
+    noxView.setShapeCalculator(new ShapeCalculator(noxView, executor));
+    noxView.setCalculateShapeInBackground(true);
+    return executor;
+  }
 }
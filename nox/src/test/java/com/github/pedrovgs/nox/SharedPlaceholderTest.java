@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class) public class SharedPlaceholderTest {
+
+  private static final int ANY_SIZE = 10;
+
+  @Test public void shouldRenderTheBitmapJustOnce() {
+    SharedPlaceholder sharedPlaceholder = new SharedPlaceholder(new ColorDrawable(), ANY_SIZE);
+
+    Bitmap bitmap = sharedPlaceholder.getBitmap(false);
+
+    assertSame(bitmap, sharedPlaceholder.getBitmap(false));
+  }
+
+  @Test public void shouldUseTheSameBitmapForEveryStateIfTheDrawableIsNotStateful() {
+    SharedPlaceholder sharedPlaceholder = new SharedPlaceholder(new ColorDrawable(), ANY_SIZE);
+
+    assertSame(sharedPlaceholder.getBitmap(false), sharedPlaceholder.getBitmap(true));
+  }
+
+  @Test public void shouldRenderAPressedBitmapIfTheDrawableIsStateful() {
+    Drawable drawable = new ColorDrawable() {
+      @Override public boolean isStateful() {
+        return true;
+      }
+    };
+    SharedPlaceholder sharedPlaceholder = new SharedPlaceholder(drawable, ANY_SIZE);
+
+    assertNotSame(sharedPlaceholder.getBitmap(false), sharedPlaceholder.getBitmap(true));
+  }
+
+  @Test public void shouldRecycleTheBitmapsOnceReleased() {
+    SharedPlaceholder sharedPlaceholder = new SharedPlaceholder(new ColorDrawable(), ANY_SIZE);
+    Bitmap bitmap = sharedPlaceholder.getBitmap(false);
+
+    sharedPlaceholder.release();
+
+    assertTrue(bitmap.isRecycled());
+    assertNotSame(bitmap, sharedPlaceholder.getBitmap(false));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class) public class TileCacheTest {
+
+  private static final int ANY_TILE_SIZE = 50;
+  private static final int ANY_VIEW_WIDTH = 100;
+  private static final int ANY_VIEW_HEIGHT = 150;
+  private static final int TILES_INSIDE_THE_VIEW = 2 * 3;
+  private static final int ANY_FAR_AWAY_SCROLL = 10000;
+
+  private CountingRenderer renderer;
+  private TileCache tileCache;
+
+  @Before public void setUp() {
+    renderer = new CountingRenderer();
+    tileCache = new TileCache(ANY_TILE_SIZE, renderer);
+  }
+
+  @Test public void shouldRenderEveryTileInsideTheViewWindowJustOnce() {
+    drawViewWindow(0, 0);
+    drawViewWindow(0, 0);
+
+    assertEquals(TILES_INSIDE_THE_VIEW, renderer.numberOfRenderedTiles);
+    assertEquals(TILES_INSIDE_THE_VIEW, tileCache.getNumberOfTiles());
+  }
+
+  @Test public void shouldDrawJustTheTilesIntersectingTheViewWindow() {
+    Canvas canvas = mock(Canvas.class);
+
+    tileCache.draw(canvas, 10, 10, 10 + ANY_VIEW_WIDTH, 10 + ANY_VIEW_HEIGHT);
+
+    int tilesIntersectingTheViewWindow = 3 * 4;
+    verify(canvas, times(tilesIntersectingTheViewWindow)).drawBitmap(any(Bitmap.class),
+        anyFloat(), anyFloat(), any(Paint.class));
+    verify(canvas).drawBitmap(any(Bitmap.class), eq(0f), eq(0f), any(Paint.class));
+    verify(canvas).drawBitmap(any(Bitmap.class), eq(100f), eq(150f), any(Paint.class));
+  }
+
+  @Test public void shouldRenderTilesWithNegativeCoordinates() {
+    drawViewWindow(-ANY_TILE_SIZE, -ANY_TILE_SIZE);
+
+    assertEquals(-ANY_TILE_SIZE, renderer.minLeft);
+    assertEquals(-ANY_TILE_SIZE, renderer.minTop);
+  }
+
+  @Test public void shouldRenderAgainJustTheTilesInvalidated() {
+    drawViewWindow(0, 0);
+
+    tileCache.invalidate(10, 10, 20, 20);
+    drawViewWindow(0, 0);
+
+    assertEquals(TILES_INSIDE_THE_VIEW + 1, renderer.numberOfRenderedTiles);
+  }
+
+  @Test public void shouldRenderAgainEveryTileAfterInvalidatingEveryTile() {
+    drawViewWindow(0, 0);
+
+    tileCache.invalidateAll();
+    drawViewWindow(0, 0);
+
+    assertEquals(TILES_INSIDE_THE_VIEW * 2, renderer.numberOfRenderedTiles);
+  }
+
+  @Test public void shouldReuseTheTilesLeavingTheViewWindow() {
+    drawViewWindow(0, 0);
+
+    drawViewWindow(ANY_FAR_AWAY_SCROLL, ANY_FAR_AWAY_SCROLL);
+
+    assertEquals(TILES_INSIDE_THE_VIEW, tileCache.getNumberOfTiles());
+    assertEquals(0, tileCache.getNumberOfPooledTiles());
+    assertEquals(TILES_INSIDE_THE_VIEW * 2, renderer.numberOfRenderedTiles);
+  }
+
+  @Test public void shouldMoveTheTilesLeavingTheViewWindowToThePool() {
+    drawViewWindow(0, 0);
+
+    tileCache.draw(mock(Canvas.class), 0, 0, ANY_TILE_SIZE, ANY_TILE_SIZE);
+
+    assertEquals(1, tileCache.getNumberOfTiles());
+    assertEquals(TILES_INSIDE_THE_VIEW - 1, tileCache.getNumberOfPooledTiles());
+  }
+
+  @Test public void shouldRemoveEveryTileOnceReleased() {
+    drawViewWindow(0, 0);
+
+    tileCache.release();
+
+    assertEquals(0, tileCache.getNumberOfTiles());
+    assertEquals(0, tileCache.getNumberOfPooledTiles());
+  }
+
+  private void drawViewWindow(int left, int top) {
+    tileCache.draw(mock(Canvas.class), left, top, left + ANY_VIEW_WIDTH, top + ANY_VIEW_HEIGHT);
+  }
+
+  private static class CountingRenderer implements TileCache.Renderer {
+
+    private int numberOfRenderedTiles;
+    private int minLeft;
+    private int minTop;
+
+    @Override public void render(Canvas canvas, int left, int top, int right, int bottom) {
+      numberOfRenderedTiles++;
+      minLeft = Math.min(minLeft, left);
+      minTop = Math.min(minTop, top);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.doubles;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the memory allocated by the current thread, used by tests checking that a piece of
+ * code doesn't allocate more memory than expected. The measure is not available in every JVM, so
+ * tests using it have to check isSupported() first. Robolectric shadows don't allocate the pixels
+ * of the bitmaps created, so just the allocations of the Java objects are measured.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public final class AllocatedMemory {
+
+  private AllocatedMemory() {
+  }
+
+  /**
+   * Returns true if the memory allocated by the current thread can be measured.
+   */
+  public static boolean isSupported() {
+    ThreadMXBean threadMXBean = getThreadMXBean();
+    return threadMXBean != null
+        && threadMXBean.isThreadAllocatedMemorySupported()
+        && threadMXBean.isThreadAllocatedMemoryEnabled();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread since it was started.
+   */
+  public static long getAllocatedBytes() {
+    return getThreadMXBean().getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static ThreadMXBean getThreadMXBean() {
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    return threadMXBean instanceof ThreadMXBean ? (ThreadMXBean) threadMXBean : null;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.doubles;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas implementation created for testing purposes. Ignores every draw operation and just counts
+ * the number of bitmaps drawn, so drawing into this canvas doesn't allocate any object. Used to
+ * measure the objects allocated by NoxView while drawing.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class FakeCanvas extends Canvas {
+
+  private int numberOfBitmapsDrawn;
+
+  @Override public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    numberOfBitmapsDrawn++;
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    numberOfBitmapsDrawn++;
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+    numberOfBitmapsDrawn++;
+  }
+
+  @Override public int save() {
+    return 0;
+  }
+
+  @Override public void restore() {
+
+  }
+
+  public int getNumberOfBitmapsDrawn() {
+    return numberOfBitmapsDrawn;
+  }
+}
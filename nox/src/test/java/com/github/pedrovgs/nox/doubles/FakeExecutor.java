@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.doubles;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor implementation created for testing purposes. Stores every task and executes them only
+ * when runPendingTasks is invoked to be able to simulate work done in a worker thread.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class FakeExecutor implements Executor {
+
+  private final Queue<Runnable> pendingTasks = new LinkedList<Runnable>();
+
+  @Override public void execute(Runnable task) {
+    pendingTasks.add(task);
+  }
+
+  public void runPendingTasks() {
+    while (!pendingTasks.isEmpty()) {
+      pendingTasks.poll().run();
+    }
+  }
+}
@@ -65,6 +65,14 @@ public class FakeImageLoader implements ImageLoader {
     return this;
   }
 
+  @Override public ImageLoader config(Bitmap.Config config) {
+    return this;
+  }
+
+  @Override public ImageLoader useMemoryCache(boolean useMemoryCache) {
+    return this;
+  }
+
   @Override public void notify(Listener listener) {
     this.listener = listener;
     if (loadOnDemand) {
@@ -90,6 +98,10 @@ public class FakeImageLoader implements ImageLoader {
 
   }
 
+  @Override public void cancel(Listener listener) {
+
+  }
+
   public void forceLoad() {
     loadOnDemand = false;
     notify(listener);
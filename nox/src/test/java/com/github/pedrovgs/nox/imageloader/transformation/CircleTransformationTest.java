@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.imageloader.transformation;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import com.github.pedrovgs.nox.doubles.AllocatedMemory;
+import com.squareup.picasso.Transformation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+@Config(emulateSdk = 18) @RunWith(RobolectricTestRunner.class)
+public class CircleTransformationTest {
+
+  private static final int ANY_SIZE = 100;
+  private static final int ANY_LARGER_SIZE = 120;
+  private static final int ANY_PREVIEW_SIZE = 25;
+  private static final int ANY_NUMBER_OF_TRANSFORMATIONS = 200;
+
+  @Test public void shouldReturnASquareBitmapWithTheSizeOfTheShortestSide() {
+    CircleTransformation circleTransformation = new CircleTransformation();
+    Bitmap source = givenABitmap(ANY_LARGER_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888);
+
+    Bitmap bitmap = circleTransformation.transform(source);
+
+    assertEquals(ANY_SIZE, bitmap.getWidth());
+    assertEquals(ANY_SIZE, bitmap.getHeight());
+  }
+
+  @Test public void shouldRecycleTheSourceBitmapIfANewBitmapIsReturned() {
+    CircleTransformation circleTransformation = new CircleTransformation();
+    Bitmap source = givenABitmap(ANY_LARGER_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888);
+
+    Bitmap bitmap = circleTransformation.transform(source);
+
+    assertNotSame(source, bitmap);
+    assertTrue(source.isRecycled());
+  }
+
+  @Test public void shouldMaskSquareMutableBitmapsInPlace() {
+    CircleTransformation circleTransformation = new CircleTransformation();
+    Bitmap source = givenABitmap(ANY_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888);
+    assumeTrue(source.isMutable());
+
+    Bitmap bitmap = circleTransformation.transform(source);
+
+    assertSame(source, bitmap);
+    assertFalse(bitmap.isRecycled());
+  }
+
+  @Test public void shouldNotMaskInPlaceBitmapsWithoutAlphaChannel() {
+    CircleTransformation circleTransformation = new CircleTransformation();
+    Bitmap source = givenABitmap(ANY_SIZE, ANY_SIZE, Bitmap.Config.RGB_565);
+
+    Bitmap bitmap = circleTransformation.transform(source);
+
+    assertNotSame(source, bitmap);
+    assertEquals(Bitmap.Config.ARGB_8888, bitmap.getConfig());
+  }
+
+  @Test public void shouldReuseTheMaskOfEverySizeWhileTransformingBitmapsOfDifferentSizes() {
+    CircleTransformation circleTransformation = new CircleTransformation();
+    circleTransformation.transform(givenABitmap(ANY_SIZE, ANY_SIZE, Bitmap.Config.ARGB_8888));
+    Bitmap mask = circleTransformation.getMask(ANY_SIZE);
+    Bitmap previewMask = circleTransformation.getMask(ANY_PREVIEW_SIZE);
+
+    for (int i = 0; i < ANY_NUMBER_OF_TRANSFORMATIONS; i++) {
+      int size = i % 2 == 0 ? ANY_SIZE : ANY_PREVIEW_SIZE;
+      circleTransformation.transform(givenABitmap(size, size, Bitmap.Config.ARGB_8888));
+    }
+
+    assertSame(mask, circleTransformation.getMask(ANY_SIZE));
+    assertSame(previewMask, circleTransformation.getMask(ANY_PREVIEW_SIZE));
+  }
+
+  @Test public void shouldTransformBitmapsFromDifferentThreads() throws Exception {
+    final CircleTransformation circleTransformation = new CircleTransformation();
+    final Bitmap[] bitmaps = new Bitmap[2];
+    circleTransformation.transform(givenABitmap(ANY_LARGER_SIZE));
+
+    Thread thread = new Thread(new Runnable() {
+      @Override public void run() {
+        bitmaps[0] = circleTransformation.transform(givenABitmap(ANY_LARGER_SIZE));
+      }
+    });
+    thread.start();
+    bitmaps[1] = circleTransformation.transform(givenABitmap(ANY_LARGER_SIZE));
+    thread.join();
+
+    assertEquals(ANY_SIZE, bitmaps[0].getWidth());
+    assertEquals(ANY_SIZE, bitmaps[1].getWidth());
+  }
+
+  /**
+   * Compares the Java objects allocated by CircleTransformation with the ones allocated by the
+   * previous implementation, which created a squared bitmap, an output bitmap, a Canvas, a Paint
+   * and a BitmapShader per transformation. Robolectric bitmaps have no pixels, so the pixel
+   * memory is not measured.
+   */
+  @Test public void shouldAllocateLessMemoryThanThePreviousImplementation() {
+    assumeTrue(AllocatedMemory.isSupported());
+    Transformation previousTransformation = new PreviousCircleTransformation();
+    Transformation circleTransformation = new CircleTransformation();
+    transform(previousTransformation, ANY_LARGER_SIZE);
+    transform(circleTransformation, ANY_LARGER_SIZE);
+
+    long previousAllocatedBytes = transform(previousTransformation, ANY_LARGER_SIZE);
+    long allocatedBytes = transform(circleTransformation, ANY_LARGER_SIZE);
+
+    assertTrue("CircleTransformation allocated " + perTransformation(allocatedBytes)
+            + " bytes per transformation, the previous implementation allocated "
+            + perTransformation(previousAllocatedBytes) + " bytes",
+        allocatedBytes < previousAllocatedBytes);
+  }
+
+  private Bitmap givenABitmap(int width) {
+    return givenABitmap(width, ANY_SIZE, Bitmap.Config.ARGB_8888);
+  }
+
+  private Bitmap givenABitmap(int width, int height, Bitmap.Config config) {
+    return Bitmap.createBitmap(width, height, config);
+  }
+
+  /**
+   * Transforms a number of bitmaps with the width passed as argument and returns the number of
+   * bytes allocated, including the source bitmaps created.
+   */
+  private long transform(Transformation transformation, int width) {
+    long allocatedBytesBefore = AllocatedMemory.getAllocatedBytes();
+    for (int i = 0; i < ANY_NUMBER_OF_TRANSFORMATIONS; i++) {
+      Bitmap source = givenABitmap(width, ANY_SIZE, Bitmap.Config.ARGB_8888);
+      transformation.transform(source);
+    }
+    return AllocatedMemory.getAllocatedBytes() - allocatedBytesBefore;
+  }
+
+  private long perTransformation(long value) {
+    return value / ANY_NUMBER_OF_TRANSFORMATIONS;
+  }
+
+  /**
+   * Previous CircleTransformation implementation, kept to compare the objects allocated.
+   */
+  private static class PreviousCircleTransformation implements Transformation {
+
+    @Override public Bitmap transform(Bitmap source) {
+      int size = Math.min(source.getWidth(), source.getHeight());
+      int x = (source.getWidth() - size) / 2;
+      int y = (source.getHeight() - size) / 2;
+      Bitmap squaredBitmap = Bitmap.createBitmap(source, x, y, size, size);
+      if (squaredBitmap != source) {
+        source.recycle();
+      }
+      Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+      Canvas canvas = new Canvas(bitmap);
+      Paint paint = new Paint();
+      BitmapShader shader =
+          new BitmapShader(squaredBitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP);
+      paint.setShader(shader);
+      paint.setAntiAlias(true);
+      float r = size / 2f;
+      canvas.drawCircle(r, r, r, paint);
+      squaredBitmap.recycle();
+      return bitmap;
+    }
+
+    @Override public String key() {
+      return "Previous_Circle_Transformation";
+    }
+  }
+}
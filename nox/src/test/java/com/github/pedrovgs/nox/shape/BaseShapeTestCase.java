@@ -18,7 +18,10 @@ package com.github.pedrovgs.nox.shape;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Base Shape test case. This test class should be extended by every Shape implementation.
@@ -29,7 +32,11 @@ public abstract class BaseShapeTestCase {
 
   private static final int ITEM_SIZE = 10;
   private static final int ITEM_MARGIN = 2;
+  private static final int ANY_VIEW_SIZE = 100;
+  private static final int ANY_NUMBER_OF_ELEMENTS = 200;
+  protected static final int ANY_LARGE_NUMBER_OF_ELEMENTS = 3000;
   protected static final double DELTA = 0.1;
+  protected static final double SUB_PIXEL_DELTA = 0.01;
 
   public abstract Shape getShape(ShapeConfig shapeConfig);
 
@@ -63,6 +70,394 @@ public abstract class BaseShapeTestCase {
     assertTrue(shape.isItemInsideView(0));
   }
 
+  @Test public void shouldReturnTheSameItemsInsideTheViewThanCheckingItemByItem() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    Shape shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    for (int offset = -500; offset <= 500; offset += 25) {
+      shape.setOffset(offset, -offset / 2);
+      assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+    }
+  }
+
+  @Test public void shouldReturnTheNumberOfItemsInsideTheViewEvenIfTheyDoNotFitInTheArray() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    Shape shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    int[] expectedItems = new int[ANY_NUMBER_OF_ELEMENTS];
+    int expectedCount = shape.getItemsInsideView(expectedItems);
+    assertEquals(expectedCount, shape.getItemsInsideView(new int[0]));
+  }
+
+  @Test public void shouldReturnTheSameNoxItemHitThanCheckingItemByItem() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    Shape shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    assertNoxItemHitIsTheItemCheckedOneByOne(shape);
+  }
+
+  @Test public void shouldReturnTheSameNoxItemHitThanCheckingItemByItemUsingEdgeScaling() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    Shape shape = getShape(shapeConfig);
+    shape.setEdgeScalingEnabled(true);
+
+    shape.calculate();
+
+    assertNoxItemHitIsTheItemCheckedOneByOne(shape);
+  }
+
+  @Test public void shouldReturnTheSameItemsInsideARectThanCheckingItemByItem() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+    int[] itemsInsideRect = new int[shape.getNumberOfElements()];
+
+    for (int left = -600; left <= 600; left += 150) {
+      int top = -left / 2;
+      int right = left + ANY_VIEW_SIZE * 2;
+      int bottom = top + ANY_VIEW_SIZE;
+      int count = shape.getItemsInsideRect(left, top, right, bottom, itemsInsideRect);
+
+      int expectedCount = 0;
+      float itemSize = shape.getShapeConfig().getItemSize();
+      for (int i = 0; i < shape.getNumberOfElements(); i++) {
+        float x = shape.getXForItemAtPosition(i);
+        float y = shape.getYForItemAtPosition(i);
+        if (x + itemSize >= left && x <= right && y + itemSize >= top && y <= bottom) {
+          assertEquals(i, itemsInsideRect[expectedCount]);
+          expectedCount++;
+        }
+      }
+      assertEquals(expectedCount, count);
+    }
+  }
+
+  @Test public void shouldNotScaleNoxItemsIfEdgeScalingIsDisabled() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      assertEquals(1f, shape.getScaleForItemAtPosition(i), 0);
+    }
+  }
+
+  @Test public void shouldScaleDownNoxItemsCloseToTheViewEdgesIfEdgeScalingIsEnabled() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.setEdgeScalingEnabled(true);
+    shape.calculate();
+
+    float minScale = 1;
+    float maxScale = 0;
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      float scale = shape.getScaleForItemAtPosition(i);
+      minScale = Math.min(minScale, scale);
+      maxScale = Math.max(maxScale, scale);
+    }
+    assertTrue(minScale < maxScale);
+    assertTrue(minScale > 0);
+    assertTrue(maxScale <= 1);
+  }
+
+  @Test public void shouldWriteTheScaleOfEveryNoxItemInsideTheViewIntoTheArrayPassed() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.setEdgeScalingEnabled(true);
+    shape.calculate();
+    int[] itemsInsideView = new int[shape.getNumberOfElements()];
+    float[] scales = new float[shape.getNumberOfElements()];
+
+    int count = shape.getItemsInsideView(itemsInsideView);
+    shape.getScalesForItems(itemsInsideView, count, scales);
+
+    for (int i = 0; i < count; i++) {
+      assertEquals(shape.getScaleForItemAtPosition(itemsInsideView[i]), scales[i], 0);
+    }
+  }
+
+  @Test public void shouldReturnTheSameNoxItemHitThanCheckingItemByItemWithoutMargin() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE, 0);
+    Shape shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    assertNoxItemHitIsTheItemCheckedOneByOne(shape);
+  }
+
+  @Test public void shouldReturnMinusOneIfThereIsNoNoxItemHit() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    Shape shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    assertEquals(-1, shape.getNoxItemHit(Float.MAX_VALUE / 2, Float.MAX_VALUE / 2));
+  }
+
+  @Test public void shouldCalculateTheSamePositionsOnDemand() {
+    Shape shape = givenAShapeWithManyElements();
+    Shape lazyShape = givenAShapeWithManyElements();
+    lazyShape.setLazyCalculationThreshold(0);
+
+    shape.calculate();
+    lazyShape.calculate();
+
+    for (int i = ANY_LARGE_NUMBER_OF_ELEMENTS - 1; i >= 0; i--) {
+      assertEquals(shape.getXForItemAtPosition(i), lazyShape.getXForItemAtPosition(i), DELTA);
+      assertEquals(shape.getYForItemAtPosition(i), lazyShape.getYForItemAtPosition(i), DELTA);
+    }
+  }
+
+  @Test public void shouldEstimateBoundariesContainingEveryPositionWhenCalculatingOnDemand() {
+    Shape shape = givenAShapeWithManyElements();
+    Shape lazyShape = givenAShapeWithManyElements();
+    lazyShape.setLazyCalculationThreshold(0);
+
+    shape.calculate();
+    lazyShape.calculate();
+
+    assertTrue(lazyShape.getMinX() <= shape.getMinX());
+    assertTrue(lazyShape.getMaxX() >= shape.getMaxX());
+    assertTrue(lazyShape.getMinY() <= shape.getMinY());
+    assertTrue(lazyShape.getMaxY() >= shape.getMaxY());
+  }
+
+  @Test public void shouldReturnTheSameItemsInsideTheViewWhenCalculatingOnDemand() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.setLazyCalculationThreshold(0);
+
+    shape.calculate();
+
+    for (int offset = -2000; offset <= 2000; offset += 250) {
+      shape.setOffset(offset, -offset);
+      assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+    }
+  }
+
+  @Test public void shouldReturnTheSameItemsInsideARectWhenCalculatingOnDemand() {
+    Shape lazyShape = givenAShapeWithManyElements();
+    lazyShape.setLazyCalculationThreshold(0);
+    Shape shape = givenAShapeWithManyElements();
+    lazyShape.calculate();
+    shape.calculate();
+    int[] lazyItemsInsideRect = new int[shape.getNumberOfElements()];
+    int[] itemsInsideRect = new int[shape.getNumberOfElements()];
+
+    for (int left = -600; left <= 600; left += 150) {
+      int top = -left / 2;
+      int right = left + ANY_VIEW_SIZE * 2;
+      int bottom = top + ANY_VIEW_SIZE;
+      int lazyCount = lazyShape.getItemsInsideRect(left, top, right, bottom, lazyItemsInsideRect);
+      int count = shape.getItemsInsideRect(left, top, right, bottom, itemsInsideRect);
+
+      assertEquals(count, lazyCount);
+      for (int i = 0; i < count; i++) {
+        assertEquals(itemsInsideRect[i], lazyItemsInsideRect[i]);
+      }
+    }
+  }
+
+  @Test public void shouldKeepCalculatingOnDemandAfterQueryingTheItemsInsideARect() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.setLazyCalculationThreshold(0);
+    shape.calculate();
+    assumeTrue(shape.isCalculatingLazily());
+
+    shape.getItemsInsideRect(0, 0, ANY_VIEW_SIZE, ANY_VIEW_SIZE,
+        new int[shape.getNumberOfElements()]);
+
+    assertFalse(isEveryPositionCalculated(shape));
+  }
+
+  @Test public void shouldCalculateTheSamePositionsWhenCalculatingInParallel() {
+    Shape shape = givenAShapeWithManyElements();
+    Shape parallelShape = givenAShapeWithManyElements();
+    parallelShape.setParallelCalculationThreshold(0);
+
+    shape.calculate();
+    parallelShape.calculate();
+
+    for (int i = 0; i < ANY_LARGE_NUMBER_OF_ELEMENTS; i++) {
+      assertEquals(shape.getXForItemAtPosition(i), parallelShape.getXForItemAtPosition(i), DELTA);
+      assertEquals(shape.getYForItemAtPosition(i), parallelShape.getYForItemAtPosition(i), DELTA);
+    }
+  }
+
+  @Test public void shouldCalculateTheSameBoundariesWhenCalculatingInParallel() {
+    Shape shape = givenAShapeWithManyElements();
+    Shape parallelShape = givenAShapeWithManyElements();
+    parallelShape.setParallelCalculationThreshold(0);
+
+    shape.calculate();
+    parallelShape.calculate();
+
+    assertEquals(shape.getMinX(), parallelShape.getMinX());
+    assertEquals(shape.getMaxX(), parallelShape.getMaxX());
+    assertEquals(shape.getMinY(), parallelShape.getMinY());
+    assertEquals(shape.getMaxY(), parallelShape.getMaxY());
+  }
+
+  @Test public void shouldReturnTheSameItemsInsideTheViewWhenCalculatingInParallel() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.setParallelCalculationThreshold(0);
+
+    shape.calculate();
+
+    for (int offset = -2000; offset <= 2000; offset += 250) {
+      shape.setOffset(offset, -offset);
+      assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+    }
+  }
+
+  @Test public void shouldCalculateTheSamePositionsAddingNoxItemsAtTheEnd() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+
+    for (int numberOfElements = ANY_LARGE_NUMBER_OF_ELEMENTS + 1;
+        numberOfElements < ANY_LARGE_NUMBER_OF_ELEMENTS + 100; numberOfElements += 7) {
+      shape.setNumberOfElements(numberOfElements);
+      shape.calculate();
+
+      assertShapeIsEqualsToANewShapeWithTheSameNumberOfElements(shape);
+    }
+  }
+
+  @Test public void shouldCalculateTheSamePositionsRemovingNoxItemsAtTheEnd() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+
+    for (int numberOfElements = ANY_LARGE_NUMBER_OF_ELEMENTS - 1;
+        numberOfElements > ANY_LARGE_NUMBER_OF_ELEMENTS - 100; numberOfElements -= 7) {
+      shape.setNumberOfElements(numberOfElements);
+      shape.calculate();
+
+      assertShapeIsEqualsToANewShapeWithTheSameNumberOfElements(shape);
+    }
+  }
+
+  @Test public void shouldCalculateTheSamePositionsRemovingMostOfTheNoxItems() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+
+    shape.setNumberOfElements(ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+
+    assertShapeIsEqualsToANewShapeWithTheSameNumberOfElements(shape);
+  }
+
+  @Test public void shouldShrinkTheBoundariesRemovingNoxItemsAtTheEnd() {
+    Shape shape = givenAShapeWithManyElements();
+    shape.calculate();
+    int width = shape.getMaxX() - shape.getMinX();
+    int height = shape.getMaxY() - shape.getMinY();
+
+    shape.setNumberOfElements(ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+
+    Shape newShape = getShape(
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN));
+    newShape.calculate();
+    assertShapeBoundariesAreEquals(newShape, shape);
+    assertTrue(shape.getMaxX() - shape.getMinX() < width
+        || shape.getMaxY() - shape.getMinY() < height);
+  }
+
+  private void assertShapeIsEqualsToANewShapeWithTheSameNumberOfElements(Shape shape) {
+    int numberOfElements = shape.getNumberOfElements();
+    Shape newShape = getShape(
+        new ShapeConfig(numberOfElements, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE, ITEM_MARGIN));
+    newShape.calculate();
+    for (int i = 0; i < numberOfElements; i++) {
+      assertEquals(newShape.getXForItemAtPosition(i), shape.getXForItemAtPosition(i), DELTA);
+      assertEquals(newShape.getYForItemAtPosition(i), shape.getYForItemAtPosition(i), DELTA);
+    }
+    assertShapeBoundariesAreEquals(newShape, shape);
+    assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+  }
+
+  private void assertShapeBoundariesAreEquals(Shape expectedShape, Shape shape) {
+    assertEquals(expectedShape.getMinX(), shape.getMinX());
+    assertEquals(expectedShape.getMaxX(), shape.getMaxX());
+    assertEquals(expectedShape.getMinY(), shape.getMinY());
+    assertEquals(expectedShape.getMaxY(), shape.getMaxY());
+  }
+
+  protected void assertNoxItemHitIsTheItemCheckedOneByOne(Shape shape) {
+    for (int offset = -300; offset <= 300; offset += 100) {
+      shape.setOffset(offset, offset / 3);
+      for (float x = -10; x <= ANY_VIEW_SIZE + 10; x += 0.75f) {
+        for (float y = -10; y <= ANY_VIEW_SIZE + 10; y += 0.75f) {
+          assertEquals(getNoxItemHitCheckingItemByItem(shape, offset, offset / 3, x, y),
+              shape.getNoxItemHit(x, y));
+        }
+      }
+    }
+  }
+
+  private int getNoxItemHitCheckingItemByItem(Shape shape, int offsetX, int offsetY, float x,
+      float y) {
+    float itemSize = shape.getShapeConfig().getItemSize();
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      float noxItemX = shape.getXForItemAtPosition(i) + offsetX;
+      float noxItemY = shape.getYForItemAtPosition(i) + offsetY;
+      float scaledItemSize = itemSize;
+      if (shape.isEdgeScalingEnabled()) {
+        scaledItemSize = itemSize * shape.getScaleForItemAtPosition(i);
+        noxItemX += (itemSize - scaledItemSize) / 2;
+        noxItemY += (itemSize - scaledItemSize) / 2;
+      }
+      boolean matchesHorizontally = x >= noxItemX && x <= noxItemX + scaledItemSize;
+      boolean matchesVertically = y >= noxItemY && y <= noxItemY + scaledItemSize;
+      if (matchesHorizontally && matchesVertically) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  protected void assertItemsInsideViewAreTheItemsCheckedOneByOne(Shape shape) {
+    int[] itemsInsideView = new int[shape.getNumberOfElements()];
+    int count = shape.getItemsInsideView(itemsInsideView);
+    int expectedCount = 0;
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      if (shape.isItemInsideView(i)) {
+        assertEquals(i, itemsInsideView[expectedCount]);
+        expectedCount++;
+      }
+    }
+    assertEquals(expectedCount, count);
+  }
+
+  private boolean isEveryPositionCalculated(Shape shape) {
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      if (!shape.isPositionCalculated(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Shape givenAShapeWithManyElements() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ITEM_SIZE,
+            ITEM_MARGIN);
+    return getShape(shapeConfig);
+  }
+
   protected ShapeConfig givenAShapeConfig(int numberOfElements, int viewWidth, int viewHeight,
       float itemSize, float itemMargin) {
     return new ShapeConfig(numberOfElements, viewWidth, viewHeight, itemSize, itemMargin);
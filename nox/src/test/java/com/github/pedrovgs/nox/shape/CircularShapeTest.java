@@ -16,10 +16,17 @@
 
 package com.github.pedrovgs.nox.shape;
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * @author Pedro Vicente Gomez Sanchez.
@@ -30,6 +37,7 @@ public class CircularShapeTest extends BaseShapeTestCase {
   private static final int ANY_VIEW_HEIGHT = 100;
   private static final float ANY_ITEM_SIZE = 8;
   private static final float ANY_ITEM_MARGIN = 2;
+  private static final int ANY_HUGE_NUMBER_OF_ELEMENTS = 200000;
 
   private Shape shape;
 
@@ -73,6 +81,88 @@ public class CircularShapeTest extends BaseShapeTestCase {
     assertElementPositions(4, centerX - radius, centerY, shape);
   }
 
+  @Test public void shouldReturnTheItemsInsideTheViewCheckingCircleLevelsWhenScrolledToTheEdges() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(5000, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    for (int offsetX = -500; offsetX <= 500; offsetX += 125) {
+      for (int offsetY = -500; offsetY <= 500; offsetY += 125) {
+        shape.setOffset(offsetX, offsetY);
+        assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+      }
+    }
+  }
+
+  @Test public void shouldStoreTheFirstItemSizeAndRadiusOfEveryCircleLevel() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(20, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    CircularShape circularShape = (CircularShape) getShape(shapeConfig);
+
+    circularShape.calculate();
+
+    float radius = ANY_ITEM_SIZE + ANY_ITEM_MARGIN;
+    assertEquals(4, circularShape.getNumberOfRings());
+    assertRing(circularShape, 0, 0, 1, 0);
+    assertRing(circularShape, 1, 1, 6, radius);
+    assertRing(circularShape, 2, 7, 12, 2 * radius);
+    assertRing(circularShape, 3, 19, 1, 0);
+  }
+
+  private void assertRing(CircularShape circularShape, int ring, int firstItem, int size,
+      float radius) {
+    assertEquals(firstItem, circularShape.getRingFirstItem(ring));
+    assertEquals(size, circularShape.getRingSize(ring));
+    assertEquals(radius, circularShape.getRingRadius(ring), DELTA);
+  }
+
+  @Test public void shouldKeepPositionsInsideASubPixelToleranceOfTheTrigonometricFormula() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    CircularShape circularShape = (CircularShape) getShape(shapeConfig);
+
+    circularShape.calculate();
+
+    float centerX = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float centerY = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    for (int ring = 0; ring < circularShape.getNumberOfRings(); ring++) {
+      int firstItem = circularShape.getRingFirstItem(ring);
+      int ringSize = circularShape.getRingSize(ring);
+      float radius = circularShape.getRingRadius(ring);
+      for (int i = 0; i < ringSize; i++) {
+        double angle = Math.PI * 2 / ringSize * i;
+        float x = (float) (centerX + Math.sin(angle) * radius);
+        float y = (float) (centerY + Math.cos(angle) * radius);
+        assertEquals(x, circularShape.getXForItemAtPosition(firstItem + i), SUB_PIXEL_DELTA);
+        assertEquals(y, circularShape.getYForItemAtPosition(firstItem + i), SUB_PIXEL_DELTA);
+      }
+    }
+  }
+
+  @Test public void shouldCalculateEveryPositionInParallelBeforeWritingAHugeLayout() {
+    assumeTrue(ParallelCalculator.getNumberOfProcessors() > 1);
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_HUGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    final Set<Thread> calculationThreads = Collections.synchronizedSet(new HashSet<Thread>());
+    Shape shape = new CircularShape(shapeConfig) {
+      @Override protected void calculatePositionsInRange(int firstPosition, int lastPosition) {
+        calculationThreads.add(Thread.currentThread());
+        super.calculatePositionsInRange(firstPosition, lastPosition);
+      }
+    };
+    shape.calculate();
+    assertTrue(shape.isCalculatingLazily());
+
+    shape.writeLayout(ByteBuffer.allocate(shape.getLayoutSize()));
+
+    assertFalse(shape.isCalculatingLazily());
+    assertTrue(calculationThreads.size() > 1);
+  }
+
   private void assertElementPositions(int position, float x, float y, Shape shape) {
     assertEquals(x, shape.getXForItemAtPosition(position), DELTA);
     assertEquals(y, shape.getYForItemAtPosition(position), DELTA);
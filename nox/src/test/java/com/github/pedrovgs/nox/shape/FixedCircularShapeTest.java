@@ -73,6 +73,45 @@ public class FixedCircularShapeTest extends BaseShapeTestCase {
     assertElementPositions(4, centerX - radius, centerY, shape);
   }
 
+  @Test public void shouldReturnTheItemsInsideTheViewCheckingCircleLevelsWhenScrolledToTheEdges() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(5000, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    for (int offsetX = -500; offsetX <= 500; offsetX += 125) {
+      for (int offsetY = -500; offsetY <= 500; offsetY += 125) {
+        shape.setOffset(offsetX, offsetY);
+        assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+      }
+    }
+  }
+
+  @Test public void shouldKeepPositionsInsideASubPixelToleranceOfTheTrigonometricFormula() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    CircularShape circularShape = (CircularShape) getShape(shapeConfig);
+
+    circularShape.calculate();
+
+    float centerX = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float centerY = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    for (int ring = 0; ring < circularShape.getNumberOfRings(); ring++) {
+      int firstItem = circularShape.getRingFirstItem(ring);
+      int ringSize = circularShape.getRingSize(ring);
+      float radius = circularShape.getRingRadius(ring);
+      for (int i = 0; i < ringSize; i++) {
+        double angle = Math.PI * 2 / ringSize * i;
+        float x = (float) (centerX + Math.sin(angle) * radius);
+        float y = (float) (centerY + Math.cos(angle) * radius);
+        assertEquals(x, circularShape.getXForItemAtPosition(firstItem + i), SUB_PIXEL_DELTA);
+        assertEquals(y, circularShape.getYForItemAtPosition(firstItem + i), SUB_PIXEL_DELTA);
+      }
+    }
+  }
+
   private void assertElementPositions(int position, float x, float y, Shape shape) {
     assertEquals(x, shape.getXForItemAtPosition(position), DELTA);
     assertEquals(y, shape.getYForItemAtPosition(position), DELTA);
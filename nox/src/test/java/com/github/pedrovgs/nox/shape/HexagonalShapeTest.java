@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class HexagonalShapeTest extends BaseShapeTestCase {
+
+  private static final int ANY_VIEW_WIDTH = 100;
+  private static final int ANY_VIEW_HEIGHT = 100;
+  private static final float ANY_ITEM_SIZE = 8;
+  private static final float ANY_ITEM_MARGIN = 2;
+
+  private Shape shape;
+
+  @Override public Shape getShape(ShapeConfig shapeConfig) {
+    return ShapeFactory.getHexagonalShape(shapeConfig);
+  }
+
+  @Test public void shouldReturnTheMiddleOfTheViewAsPositionForJustOneElement() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(1, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    float expectedLeft = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    assertEquals(expectedLeft, shape.getXForItemAtPosition(0), DELTA);
+    float expectedTop = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    assertEquals(expectedTop, shape.getYForItemAtPosition(0), DELTA);
+  }
+
+  @Test public void shouldPlaceTheFirstHexagonalLevelAroundTheFirstElement() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(7, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    float centerX = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float centerY = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float distance = ANY_ITEM_SIZE + ANY_ITEM_MARGIN;
+    float rowHeight = (float) (distance * Math.sqrt(3) / 2);
+    assertElementPositions(1, centerX + distance, centerY, shape);
+    assertElementPositions(2, centerX + distance / 2, centerY + rowHeight, shape);
+    assertElementPositions(3, centerX - distance / 2, centerY + rowHeight, shape);
+    assertElementPositions(4, centerX - distance, centerY, shape);
+    assertElementPositions(5, centerX - distance / 2, centerY - rowHeight, shape);
+    assertElementPositions(6, centerX + distance / 2, centerY - rowHeight, shape);
+  }
+
+  @Test public void shouldPlaceEveryElementAtTheSameDistanceOfItsClosestNeighbour() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    float distance = ANY_ITEM_SIZE + ANY_ITEM_MARGIN;
+    for (int i = 1; i < ANY_LARGE_NUMBER_OF_ELEMENTS; i += 37) {
+      double minDistance = Double.MAX_VALUE;
+      for (int j = 0; j < ANY_LARGE_NUMBER_OF_ELEMENTS; j++) {
+        if (i != j) {
+          double dx = shape.getXForItemAtPosition(i) - shape.getXForItemAtPosition(j);
+          double dy = shape.getYForItemAtPosition(i) - shape.getYForItemAtPosition(j);
+          minDistance = Math.min(minDistance, Math.sqrt(dx * dx + dy * dy));
+        }
+      }
+      assertEquals(distance, minDistance, DELTA);
+    }
+  }
+
+  @Test public void shouldTransformPositionsIntoAxialCoordinatesAndBack() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    float centerX = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float centerY = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float distance = ANY_ITEM_SIZE + ANY_ITEM_MARGIN;
+    double rowHeight = distance * Math.sqrt(3) / 2;
+    for (int i = 0; i < ANY_LARGE_NUMBER_OF_ELEMENTS; i++) {
+      int r = (int) Math.round((shape.getYForItemAtPosition(i) - centerY) / rowHeight);
+      int q = (int) Math.round((shape.getXForItemAtPosition(i) - centerX) / distance - r / 2f);
+      assertEquals(i, HexagonalShape.getPosition(q, r));
+    }
+  }
+
+  @Test public void shouldReturnTheHexagonalLevelOfEveryPosition() {
+    assertEquals(0, HexagonalShape.getLevel(0));
+    assertEquals(1, HexagonalShape.getLevel(1));
+    assertEquals(1, HexagonalShape.getLevel(6));
+    assertEquals(2, HexagonalShape.getLevel(7));
+    assertEquals(2, HexagonalShape.getLevel(18));
+    assertEquals(3, HexagonalShape.getLevel(19));
+    assertEquals(577, HexagonalShape.getLevel(1 + 3 * 577 * 576));
+    assertEquals(576, HexagonalShape.getLevel(3 * 577 * 576));
+  }
+
+  @Test public void shouldReturnTheItemsInsideTheViewCheckingGridCellsWhenScrolledToTheEdges() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(5000, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    for (int offsetX = -500; offsetX <= 500; offsetX += 125) {
+      for (int offsetY = -500; offsetY <= 500; offsetY += 125) {
+        shape.setOffset(offsetX, offsetY);
+        assertItemsInsideViewAreTheItemsCheckedOneByOne(shape);
+      }
+    }
+  }
+
+  private void assertElementPositions(int position, float x, float y, Shape shape) {
+    assertEquals(x, shape.getXForItemAtPosition(position), DELTA);
+    assertEquals(y, shape.getYForItemAtPosition(position), DELTA);
+  }
+}
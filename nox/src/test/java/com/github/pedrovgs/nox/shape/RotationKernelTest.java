@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class RotationKernelTest {
+
+  private static final double MAX_ERROR = 3e-14;
+  private static final int ANY_NUMBER_OF_ANGLES = 100000;
+
+  @Test public void shouldReturnTheSineAndCosineOfTheFirstAngle() {
+    RotationKernel rotationKernel = new RotationKernel();
+
+    rotationKernel.start(0.5, 0.1, 0);
+
+    assertEquals(Math.sin(0.5), rotationKernel.getSin(), 0);
+    assertEquals(Math.cos(0.5), rotationKernel.getCos(), 0);
+  }
+
+  @Test public void shouldStartFromTheAngleAtTheIndexPassedAsArgument() {
+    RotationKernel rotationKernel = new RotationKernel();
+
+    rotationKernel.start(0.5, 0.1, 10);
+
+    assertEquals(Math.sin(0.5 + 0.1 * 10), rotationKernel.getSin(), 0);
+    assertEquals(Math.cos(0.5 + 0.1 * 10), rotationKernel.getCos(), 0);
+  }
+
+  @Test public void shouldKeepTheErrorBoundedForSmallAngleSteps() {
+    assertErrorIsBounded(0, Math.PI * 2 / 6000);
+  }
+
+  @Test public void shouldKeepTheErrorBoundedForAngleStepsOfOneRadian() {
+    assertErrorIsBounded(0, 1);
+  }
+
+  @Test public void shouldKeepTheErrorBoundedForBigAngleSteps() {
+    assertErrorIsBounded(0.25, Math.PI * 2 / 6);
+  }
+
+  private void assertErrorIsBounded(double firstAngle, double angleStep) {
+    RotationKernel rotationKernel = new RotationKernel();
+    rotationKernel.start(firstAngle, angleStep, 0);
+    for (int i = 0; i < ANY_NUMBER_OF_ANGLES; i++) {
+      double angle = firstAngle + angleStep * i;
+      double maxError = MAX_ERROR + Math.ulp(angle);
+      assertEquals(Math.sin(angle), rotationKernel.getSin(), maxError);
+      assertEquals(Math.cos(angle), rotationKernel.getCos(), maxError);
+      rotationKernel.next();
+    }
+  }
+}
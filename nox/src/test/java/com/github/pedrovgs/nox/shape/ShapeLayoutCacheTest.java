@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class ShapeLayoutCacheTest {
+
+  private static final int[] SHAPE_KEYS = {
+      ShapeFactory.LINEAR_SHAPE_KEY, ShapeFactory.LINEAR_CENTERED_SHAPE_KEY,
+      ShapeFactory.CIRCULAR_SHAPE_KEY, ShapeFactory.FIXED_CIRCULAR_SHAPE_KEY,
+      ShapeFactory.SPIRAL_SHAPE_KEY, ShapeFactory.HEXAGONAL_SHAPE_KEY
+  };
+  private static final int ANY_NUMBER_OF_ELEMENTS = 500;
+  private static final int ANY_VIEW_WIDTH = 120;
+  private static final int ANY_VIEW_HEIGHT = 100;
+  private static final float ANY_ITEM_SIZE = 10;
+  private static final float ANY_ITEM_MARGIN = 2;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ShapeLayoutCache layoutCache;
+
+  @Before public void setUp() throws IOException {
+    layoutCache = new ShapeLayoutCache(temporaryFolder.newFolder());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldNotAcceptANullDirectory() {
+    new ShapeLayoutCache(null);
+  }
+
+  @Test public void shouldNotLoadALayoutNotPersistedBefore() {
+    Shape shape = givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+
+    assertFalse(layoutCache.load(shape));
+  }
+
+  @Test public void shouldRestoreTheSameLayoutThanCalculatingTheShape() {
+    for (int shapeKey : SHAPE_KEYS) {
+      Shape shape = givenAShape(shapeKey, ANY_NUMBER_OF_ELEMENTS);
+      shape.calculate();
+      layoutCache.save(shape);
+
+      Shape restoredShape = givenAShape(shapeKey, ANY_NUMBER_OF_ELEMENTS);
+      assertTrue(layoutCache.load(restoredShape));
+
+      assertShapesAreEquals(shape, restoredShape);
+    }
+  }
+
+  @Test public void shouldRestoreEveryPositionOfShapesCalculatedLazily() {
+    for (int shapeKey : SHAPE_KEYS) {
+      Shape shape = givenAShape(shapeKey, ANY_NUMBER_OF_ELEMENTS);
+      shape.setLazyCalculationThreshold(0);
+      shape.calculate();
+      layoutCache.save(shape);
+
+      Shape restoredShape = givenAShape(shapeKey, ANY_NUMBER_OF_ELEMENTS);
+      assertTrue(layoutCache.load(restoredShape));
+
+      assertShapesAreEquals(shape, restoredShape);
+    }
+  }
+
+  @Test public void shouldCalculateTheCircleLevelsOfRestoredCircularShapes() {
+    CircularShape shape =
+        (CircularShape) givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+
+    CircularShape restoredShape =
+        (CircularShape) givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    layoutCache.load(restoredShape);
+
+    assertEquals(shape.getNumberOfRings(), restoredShape.getNumberOfRings());
+    for (int ring = 0; ring < shape.getNumberOfRings(); ring++) {
+      assertEquals(shape.getRingFirstItem(ring), restoredShape.getRingFirstItem(ring));
+      assertEquals(shape.getRingSize(ring), restoredShape.getRingSize(ring));
+      assertEquals(shape.getRingRadius(ring), restoredShape.getRingRadius(ring), 0);
+    }
+  }
+
+  @Test public void shouldCalculateAndPersistTheShapeIfTheLayoutWasNotPersistedBefore() {
+    Shape shape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+
+    layoutCache.calculate(shape);
+
+    Shape calculatedShape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    calculatedShape.calculate();
+    assertShapesAreEquals(calculatedShape, shape);
+    assertTrue(layoutCache.getFile(shape).exists());
+  }
+
+  @Test public void shouldNotLoadALayoutPersistedForADifferentShapeConfig() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+
+    Shape shapeWithMoreElements =
+        givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS + 1);
+    Shape anotherShape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+
+    assertFalse(layoutCache.load(shapeWithMoreElements));
+    assertFalse(layoutCache.load(anotherShape));
+  }
+
+  @Test public void shouldNotLoadATruncatedLayout() throws IOException {
+    Shape shape = givenAShape(ShapeFactory.HEXAGONAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+    File file = layoutCache.getFile(shape);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    randomAccessFile.setLength(file.length() - 1);
+    randomAccessFile.close();
+
+    assertFalse(layoutCache.load(givenAShape(ShapeFactory.HEXAGONAL_SHAPE_KEY,
+        ANY_NUMBER_OF_ELEMENTS)));
+  }
+
+  @Test public void shouldNotLoadALayoutWithADifferentHeader() throws IOException {
+    Shape shape = givenAShape(ShapeFactory.HEXAGONAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(layoutCache.getFile(shape), "rw");
+    randomAccessFile.writeInt(0);
+    randomAccessFile.close();
+
+    assertFalse(layoutCache.load(givenAShape(ShapeFactory.HEXAGONAL_SHAPE_KEY,
+        ANY_NUMBER_OF_ELEMENTS)));
+  }
+
+  @Test public void shouldNotPersistCustomShapes() {
+    Shape shape = new LinearShape(givenAShapeConfig(ANY_NUMBER_OF_ELEMENTS)) {
+    };
+    shape.calculate();
+
+    assertFalse(layoutCache.save(shape));
+    assertFalse(layoutCache.load(shape));
+  }
+
+  @Test public void shouldNotLoadAnyLayoutAfterClearingTheCache() {
+    Shape shape = givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+
+    layoutCache.clear();
+
+    assertFalse(layoutCache.load(shape));
+  }
+
+  @Test public void shouldDeleteTheLayoutPersistedForAPreviousNumberOfElements() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+    File previousFile = layoutCache.getFile(shape);
+
+    Shape shapeWithMoreElements =
+        givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS + 1);
+    shapeWithMoreElements.calculate();
+    layoutCache.save(shapeWithMoreElements);
+
+    assertFalse(previousFile.exists());
+    assertTrue(layoutCache.getFile(shapeWithMoreElements).exists());
+  }
+
+  @Test public void shouldKeepTheLayoutsPersistedForADifferentShapeOrViewSize() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    layoutCache.save(shape);
+
+    Shape anotherShape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS + 1);
+    anotherShape.calculate();
+    layoutCache.save(anotherShape);
+    Shape rotatedShape = ShapeFactory.getShapeByKey(ShapeFactory.LINEAR_SHAPE_KEY,
+        new ShapeConfig(ANY_NUMBER_OF_ELEMENTS + 1, ANY_VIEW_HEIGHT, ANY_VIEW_WIDTH,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN));
+    rotatedShape.calculate();
+    layoutCache.save(rotatedShape);
+
+    assertTrue(layoutCache.getFile(shape).exists());
+    assertTrue(layoutCache.getFile(anotherShape).exists());
+    assertTrue(layoutCache.getFile(rotatedShape).exists());
+  }
+
+  private void assertShapesAreEquals(Shape expectedShape, Shape shape) {
+    int numberOfElements = expectedShape.getNumberOfElements();
+    for (int i = 0; i < numberOfElements; i++) {
+      assertEquals(expectedShape.getXForItemAtPosition(i), shape.getXForItemAtPosition(i), 0);
+      assertEquals(expectedShape.getYForItemAtPosition(i), shape.getYForItemAtPosition(i), 0);
+    }
+    assertEquals(expectedShape.getMinX(), shape.getMinX());
+    assertEquals(expectedShape.getMaxX(), shape.getMaxX());
+    assertEquals(expectedShape.getMinY(), shape.getMinY());
+    assertEquals(expectedShape.getMaxY(), shape.getMaxY());
+    for (int offset = -300; offset <= 300; offset += 50) {
+      expectedShape.setOffset(offset, -offset);
+      shape.setOffset(offset, -offset);
+      assertArrayEquals(getItemsInsideView(expectedShape), getItemsInsideView(shape));
+      for (int x = 0; x < ANY_VIEW_WIDTH; x += 3) {
+        assertEquals(expectedShape.getNoxItemHit(x, x), shape.getNoxItemHit(x, x));
+      }
+    }
+  }
+
+  private int[] getItemsInsideView(Shape shape) {
+    int[] itemsInsideView = new int[shape.getNumberOfElements()];
+    int count = shape.getItemsInsideView(itemsInsideView);
+    int[] result = new int[count];
+    System.arraycopy(itemsInsideView, 0, result, 0, count);
+    return result;
+  }
+
+  private Shape givenAShape(int shapeKey, int numberOfElements) {
+    return ShapeFactory.getShapeByKey(shapeKey, givenAShapeConfig(numberOfElements));
+  }
+
+  private ShapeConfig givenAShapeConfig(int numberOfElements) {
+    return new ShapeConfig(numberOfElements, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE,
+        ANY_ITEM_MARGIN);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class ShapeLayoutMemoryCacheTest {
+
+  private static final int ANY_NUMBER_OF_ELEMENTS = 300;
+  private static final int ANY_VIEW_SIZE = 100;
+  private static final float ANY_ITEM_SIZE = 10;
+  private static final float ANY_ITEM_MARGIN = 2;
+
+  private ShapeLayoutMemoryCache memoryCache;
+
+  @Before public void setUp() {
+    memoryCache = new ShapeLayoutMemoryCache();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptAMaxSizeEqualsToZero() {
+    new ShapeLayoutMemoryCache(0);
+  }
+
+  @Test public void shouldNotLoadALayoutNotKeptBefore() {
+    Shape shape = givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+
+    assertFalse(memoryCache.load(shape));
+  }
+
+  @Test public void shouldRestoreTheSameLayoutThanCalculatingTheShape() {
+    Shape shape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    memoryCache.save(shape);
+
+    Shape restoredShape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    assertTrue(memoryCache.load(restoredShape));
+
+    for (int i = 0; i < ANY_NUMBER_OF_ELEMENTS; i++) {
+      assertEquals(shape.getXForItemAtPosition(i), restoredShape.getXForItemAtPosition(i), 0);
+      assertEquals(shape.getYForItemAtPosition(i), restoredShape.getYForItemAtPosition(i), 0);
+    }
+    assertEquals(shape.getMinX(), restoredShape.getMinX());
+    assertEquals(shape.getMaxX(), restoredShape.getMaxX());
+    assertEquals(shape.getMinY(), restoredShape.getMinY());
+    assertEquals(shape.getMaxY(), restoredShape.getMaxY());
+  }
+
+  @Test public void shouldNotShareThePositionsKeptWithTheShapesRestored() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    memoryCache.save(shape);
+    Shape restoredShape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    memoryCache.load(restoredShape);
+
+    restoredShape.setNoxItemXPosition(0, Float.MAX_VALUE);
+    Shape anotherRestoredShape =
+        givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    memoryCache.load(anotherRestoredShape);
+
+    assertEquals(shape.getXForItemAtPosition(0), anotherRestoredShape.getXForItemAtPosition(0), 0);
+  }
+
+  @Test public void shouldNotLoadALayoutKeptForADifferentShapeConfig() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    memoryCache.save(shape);
+
+    assertFalse(
+        memoryCache.load(givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS + 1)));
+    assertFalse(
+        memoryCache.load(givenAShape(ShapeFactory.HEXAGONAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS)));
+  }
+
+  @Test public void shouldNotKeepShapesCalculatingPositionsOnDemand() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.setLazyCalculationThreshold(0);
+    shape.calculate();
+
+    assertFalse(memoryCache.save(shape));
+    assertTrue(shape.isCalculatingLazily());
+  }
+
+  @Test public void shouldNotKeepCustomShapes() {
+    Shape shape = new LinearShape(givenAShapeConfig(ANY_NUMBER_OF_ELEMENTS)) {
+    };
+    shape.calculate();
+
+    assertFalse(memoryCache.save(shape));
+  }
+
+  @Test public void shouldDiscardTheLeastRecentlyUsedLayoutsOnceTheMaxSizeIsReached() {
+    Shape linearShape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    Shape spiralShape = givenAShape(ShapeFactory.SPIRAL_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    Shape circularShape = givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    memoryCache = new ShapeLayoutMemoryCache(linearShape.getLayoutSize() * 2);
+    linearShape.calculate();
+    spiralShape.calculate();
+    circularShape.calculate();
+
+    memoryCache.save(linearShape);
+    memoryCache.save(spiralShape);
+    memoryCache.load(linearShape);
+    memoryCache.save(circularShape);
+
+    assertTrue(memoryCache.load(linearShape));
+    assertFalse(memoryCache.load(spiralShape));
+    assertTrue(memoryCache.load(circularShape));
+    assertEquals(linearShape.getLayoutSize() * 2, memoryCache.getSizeInBytes());
+  }
+
+  @Test public void shouldNotKeepLayoutsBiggerThanTheMaxSize() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    memoryCache = new ShapeLayoutMemoryCache(shape.getLayoutSize() - 1);
+    shape.calculate();
+
+    assertFalse(memoryCache.save(shape));
+    assertEquals(0, memoryCache.getSizeInBytes());
+  }
+
+  @Test public void shouldReplaceTheLayoutKeptForTheSameShapeAndShapeConfig() {
+    Shape shape = givenAShape(ShapeFactory.LINEAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+
+    memoryCache.save(shape);
+    memoryCache.save(shape);
+
+    assertEquals(shape.getLayoutSize(), memoryCache.getSizeInBytes());
+  }
+
+  @Test public void shouldNotLoadAnyLayoutAfterClearingTheCache() {
+    Shape shape = givenAShape(ShapeFactory.CIRCULAR_SHAPE_KEY, ANY_NUMBER_OF_ELEMENTS);
+    shape.calculate();
+    memoryCache.save(shape);
+
+    memoryCache.clear();
+
+    assertFalse(memoryCache.load(shape));
+    assertEquals(0, memoryCache.getSizeInBytes());
+  }
+
+  private Shape givenAShape(int shapeKey, int numberOfElements) {
+    return ShapeFactory.getShapeByKey(shapeKey, givenAShapeConfig(numberOfElements));
+  }
+
+  private ShapeConfig givenAShapeConfig(int numberOfElements) {
+    return new ShapeConfig(numberOfElements, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ANY_ITEM_SIZE,
+        ANY_ITEM_MARGIN);
+  }
+}
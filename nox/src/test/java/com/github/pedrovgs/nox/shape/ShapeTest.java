@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015 Pedro Vicente Gomez Sanchez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.pedrovgs.nox.shape;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the queries implemented by Shape using a Shape extension calculating NoxItem positions on
+ * demand without overriding getItemsInsideView nor getNoxItemHit.
+ *
+ * @author Pedro Vicente Gomez Sanchez.
+ */
+public class ShapeTest {
+
+  private static final int ANY_LARGE_NUMBER_OF_ELEMENTS = 3000;
+  private static final int ANY_VIEW_SIZE = 100;
+  private static final float ANY_ITEM_SIZE = 10;
+  private static final float ANY_ITEM_MARGIN = 2;
+
+  @Test public void shouldKeepCalculatingOnDemandAfterQueryingTheItemsInsideTheView() {
+    Shape shape = givenALazyGridShape();
+    shape.calculate();
+
+    int count = shape.getItemsInsideView(new int[ANY_LARGE_NUMBER_OF_ELEMENTS]);
+
+    assertTrue(count > 0);
+    assertFalse(isEveryPositionCalculated(shape));
+  }
+
+  @Test public void shouldKeepCalculatingOnDemandAfterQueryingTheNoxItemHit() {
+    Shape shape = givenALazyGridShape();
+    shape.calculate();
+
+    int noxItemHit = shape.getNoxItemHit(ANY_ITEM_MARGIN + 1, ANY_ITEM_MARGIN + 1);
+
+    assertEquals(0, noxItemHit);
+    assertFalse(isEveryPositionCalculated(shape));
+  }
+
+  @Test public void shouldReturnTheSameItemsInsideTheViewThanCalculatingEveryPosition() {
+    Shape lazyShape = givenALazyGridShape();
+    Shape shape = givenALazyGridShape();
+    shape.setLazyCalculationThreshold(Integer.MAX_VALUE);
+    lazyShape.calculate();
+    shape.calculate();
+    int[] lazyItemsInsideView = new int[ANY_LARGE_NUMBER_OF_ELEMENTS];
+    int[] itemsInsideView = new int[ANY_LARGE_NUMBER_OF_ELEMENTS];
+
+    for (int offset = -1800; offset <= 0; offset += 150) {
+      lazyShape.setOffset(offset / 3, offset);
+      shape.setOffset(offset / 3, offset);
+      int lazyCount = lazyShape.getItemsInsideView(lazyItemsInsideView);
+      int count = shape.getItemsInsideView(itemsInsideView);
+
+      assertEquals(count, lazyCount);
+      for (int i = 0; i < count; i++) {
+        assertEquals(itemsInsideView[i], lazyItemsInsideView[i]);
+      }
+    }
+  }
+
+  private Shape givenALazyGridShape() {
+    ShapeConfig shapeConfig =
+        new ShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_SIZE, ANY_VIEW_SIZE, ANY_ITEM_SIZE,
+            ANY_ITEM_MARGIN);
+    Shape shape = new LazyGridShape(shapeConfig);
+    shape.setLazyCalculationThreshold(0);
+    return shape;
+  }
+
+  private boolean isEveryPositionCalculated(Shape shape) {
+    for (int i = 0; i < shape.getNumberOfElements(); i++) {
+      if (!shape.isPositionCalculated(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Shape extension placing NoxItem instances in rows of a fixed number of columns and
+   * calculating just the chunks of positions intersecting the rectangles queried.
+   */
+  private static class LazyGridShape extends Shape {
+
+    private static final int NUMBER_OF_COLUMNS = 20;
+
+    LazyGridShape(ShapeConfig shapeConfig) {
+      super(shapeConfig);
+    }
+
+    @Override public void calculate() {
+      int numberOfElements = getNumberOfElements();
+      if (startLazyCalculation()) {
+        int lastRow = (numberOfElements - 1) / NUMBER_OF_COLUMNS;
+        int lastColumn = Math.min(numberOfElements, NUMBER_OF_COLUMNS) - 1;
+        updateBoundaries(getPosition(0), getPosition(lastColumn), getPosition(0),
+            getPosition(lastRow));
+        return;
+      }
+      calculatePositions(0, numberOfElements);
+    }
+
+    @Override protected boolean isLazyCalculationSupported() {
+      return true;
+    }
+
+    @Override protected void calculatePositionsAround(int position) {
+      int firstPosition = position - position % LAZY_CALCULATION_CHUNK_SIZE;
+      int lastPosition =
+          Math.min(firstPosition + LAZY_CALCULATION_CHUNK_SIZE, getNumberOfElements());
+      calculatePositions(firstPosition, lastPosition);
+    }
+
+    @Override protected void calculatePositionsInsideRect(float left, float top, float right,
+        float bottom) {
+      int firstColumn = Math.max(0, getIndex(left));
+      int lastColumn = Math.min(NUMBER_OF_COLUMNS - 1, getIndex(right));
+      int firstRow = Math.max(0, getIndex(top));
+      int lastRow = getIndex(bottom);
+      for (int row = firstRow; row <= lastRow; row++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          int position = row * NUMBER_OF_COLUMNS + column;
+          if (position < getNumberOfElements()) {
+            calculatePositionIfNeeded(position);
+          }
+        }
+      }
+    }
+
+    private void calculatePositions(int firstPosition, int lastPosition) {
+      for (int i = firstPosition; i < lastPosition; i++) {
+        setNoxItemXPosition(i, getPosition(i % NUMBER_OF_COLUMNS));
+        setNoxItemYPosition(i, getPosition(i / NUMBER_OF_COLUMNS));
+      }
+    }
+
+    private float getPosition(int index) {
+      return getShapeConfig().getItemMargin() + index * getDistance();
+    }
+
+    private int getIndex(float position) {
+      return (int) Math.floor((position - getShapeConfig().getItemMargin()) / getDistance());
+    }
+
+    private float getDistance() {
+      return getShapeConfig().getItemSize() + getShapeConfig().getItemMargin();
+    }
+  }
+}
@@ -49,6 +49,24 @@ public class SpiralShapeTest extends BaseShapeTestCase {
     assertEquals(expectedTop, shape.getYForItemAtPosition(0), DELTA);
   }
 
+  @Test public void shouldKeepPositionsInsideASubPixelToleranceOfTheTrigonometricFormula() {
+    ShapeConfig shapeConfig =
+        givenAShapeConfig(ANY_LARGE_NUMBER_OF_ELEMENTS, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT,
+            ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
+    shape = getShape(shapeConfig);
+
+    shape.calculate();
+
+    float centerX = ANY_VIEW_WIDTH / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    float centerY = ANY_VIEW_HEIGHT / 2 - ANY_ITEM_SIZE / 2 - ANY_ITEM_MARGIN / 2;
+    for (int i = 0; i < ANY_LARGE_NUMBER_OF_ELEMENTS; i++) {
+      float x = (float) (centerX + ANY_ITEM_SIZE * i * Math.cos(i));
+      float y = (float) (centerY + ANY_ITEM_SIZE * i * Math.sin(i));
+      assertEquals(x, shape.getXForItemAtPosition(i), SUB_PIXEL_DELTA);
+      assertEquals(y, shape.getYForItemAtPosition(i), SUB_PIXEL_DELTA);
+    }
+  }
+
   @Test public void shouldConfigureElementsFollowingAnArchimedeanSpiral() {
     ShapeConfig shapeConfig =
         givenAShapeConfig(10, ANY_VIEW_WIDTH, ANY_VIEW_HEIGHT, ANY_ITEM_SIZE, ANY_ITEM_MARGIN);
@@ -129,6 +129,10 @@ public class ContactsActivity extends ActionBarActivity {
         newShape = ShapeFactory.getFixedCircularShape(shapeConfig);
         noxView.setShape(newShape);
         break;
+      case R.id.hexagonal_shape_option:
+        newShape = ShapeFactory.getHexagonalShape(shapeConfig);
+        noxView.setShape(newShape);
+        break;
       default:
         newShape = ShapeFactory.getSpiralShape(shapeConfig);
         noxView.setShape(newShape);